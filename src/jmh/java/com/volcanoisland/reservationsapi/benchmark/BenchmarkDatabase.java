@@ -0,0 +1,115 @@
+package com.volcanoisland.reservationsapi.benchmark;
+
+import com.volcanoisland.reservationsapi.ReservationsApiApplication;
+import com.volcanoisland.reservationsapi.model.ReservationStatusEnum;
+import com.volcanoisland.reservationsapi.service.OccupancyIndex;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Starts the application on an embedded H2 database loaded with a given number of reservations.
+ *
+ * Active reservations take two nights out of every three over the last ten years and the next month,
+ * the remaining reservations are cancelled ones spread randomly over the same period.
+ */
+final class BenchmarkDatabase {
+
+    private static final String INSERT_RESERVATION = "INSERT INTO Reservation " +
+            "(arrivalDate, departureDate, guestEmail, guestFullName, status, createdAt, updatedAt, version) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, 0)";
+    private static final String INSERT_NIGHT = "INSERT INTO ReservationNight (night, reservationId) " +
+            "SELECT ?, id FROM Reservation WHERE arrivalDate = ? AND status = 0";
+    private static final int BATCH_SIZE = 1000;
+    private static final int HISTORY_DAYS = 3650;
+    private static final int UPCOMING_DAYS = 30;
+
+    private BenchmarkDatabase() {
+    }
+
+    /**
+     * @param reservations Number of reservations to load
+     * @param occupancyIndexEnabled Whether availability is answered from the occupancy index or the database
+     * @return The started application context
+     */
+    static ConfigurableApplicationContext start(int reservations, boolean occupancyIndexEnabled) {
+        return start(WebApplicationType.NONE, reservations,
+                "reservations.occupancy-index.enabled=" + occupancyIndexEnabled);
+    }
+
+    /**
+     * Starts the application serving requests on a random port.
+     * @param reservations Number of reservations to load
+     * @param properties Additional application properties
+     * @return The started application context
+     */
+    static ConfigurableApplicationContext startServer(int reservations, String... properties) {
+        return start(WebApplicationType.SERVLET, reservations, properties);
+    }
+
+    private static ConfigurableApplicationContext start(WebApplicationType webApplicationType, int reservations,
+                                                        String... properties) {
+        // Passed as command line arguments, as these take precedence over application.properties
+        List<String> arguments = new ArrayList<>(Arrays.asList(
+                "--spring.datasource.url=jdbc:h2:mem:benchmark-" + System.nanoTime() + ";DB_CLOSE_DELAY=-1",
+                "--server.port=0",
+                "--logging.level.root=WARN",
+                "--logging.level.com.volcanoisland.reservationsapi=WARN"));
+        Arrays.stream(properties).forEach(property -> arguments.add("--" + property));
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(ReservationsApiApplication.class)
+                .web(webApplicationType)
+                .run(arguments.toArray(new String[0]));
+        load(context.getBean(JdbcTemplate.class), reservations);
+        context.getBean(OccupancyIndex.class).initialize();
+        return context;
+    }
+
+    private static void load(JdbcTemplate jdbcTemplate, int reservations) {
+        LocalDate today = LocalDate.now();
+        LocalDate firstDay = today.minusDays(HISTORY_DAYS);
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        Random random = new Random(42);
+
+        List<Object[]> rows = new ArrayList<>(BATCH_SIZE);
+        List<Object[]> nights = new ArrayList<>();
+        LocalDate activeArrival = firstDay;
+        for (int i = 0; i < reservations; i++) {
+            LocalDate arrivalDate;
+            LocalDate departureDate;
+            Integer status;
+            if (activeArrival.isBefore(today.plusDays(UPCOMING_DAYS))) {
+                arrivalDate = activeArrival;
+                departureDate = arrivalDate.plusDays(2);
+                status = ReservationStatusEnum.ACTIVE.getId();
+                activeArrival = activeArrival.plusDays(3);
+                if (!departureDate.isBefore(today)) {
+                    arrivalDate.datesUntil(departureDate).forEach(night ->
+                            nights.add(new Object[]{Date.valueOf(night), Date.valueOf(arrivalDate)}));
+                }
+            } else {
+                arrivalDate = firstDay.plusDays(random.nextInt(HISTORY_DAYS + UPCOMING_DAYS));
+                departureDate = arrivalDate.plusDays(1 + random.nextInt(3));
+                status = ReservationStatusEnum.CANCELLED.getId();
+            }
+            rows.add(new Object[]{Date.valueOf(arrivalDate), Date.valueOf(departureDate), "guest" + i + "@volcano.com",
+                    "Guest " + i, status, now, now});
+            if (rows.size() == BATCH_SIZE) {
+                jdbcTemplate.batchUpdate(INSERT_RESERVATION, rows);
+                rows.clear();
+            }
+        }
+        if (!rows.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_RESERVATION, rows);
+        }
+        jdbcTemplate.batchUpdate(INSERT_NIGHT, nights);
+    }
+}
@@ -0,0 +1,107 @@
+package com.volcanoisland.reservationsapi.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.LocalDate;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Compares serving requests on the Tomcat thread pool against serving them on virtual threads, replaying the
+ * scenarios of the concurrency tests over HTTP: many clients booking the same few nights, and many clients
+ * polling availability.
+ *
+ * Virtual threads need Java 21 or later, on older versions both modes run on the Tomcat thread pool.
+ * The Tomcat pool size can be changed with -p maxThreads=...
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class RequestThreadingBenchmark {
+
+    private static final int CONTENDED_NIGHTS = 8;
+    private static final int CLIENTS = 64;
+    private static final Pattern RESERVATION_ID = Pattern.compile("\"id\":(\\d+)");
+
+    @Param({"false", "true"})
+    private boolean virtualThreads;
+
+    @Param({"20"})
+    private int maxThreads;
+
+    private ConfigurableApplicationContext context;
+    private HttpClient httpClient;
+    private String baseUrl;
+    private LocalDate contendedFirstNight;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        this.context = BenchmarkDatabase.startServer(10000,
+                "reservations.virtual-threads.enabled=" + this.virtualThreads,
+                "server.tomcat.max-threads=" + this.maxThreads);
+        this.baseUrl = "http://localhost:" + ((ServletWebServerApplicationContext) this.context).getWebServer().getPort();
+        this.httpClient = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        this.contendedFirstNight = LocalDate.now().plusDays(20);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        this.context.close();
+    }
+
+    /**
+     * Books and cancels a night out of a few ones all clients compete for, so that most attempts conflict.
+     */
+    @Benchmark
+    @Threads(CLIENTS)
+    public int createContended() throws IOException, InterruptedException {
+        LocalDate night = this.contendedFirstNight.plusDays(ThreadLocalRandom.current().nextInt(CONTENDED_NIGHTS));
+        String body = "{\"guestEmail\":\"guest@volcano.com\",\"guestFullName\":\"Guest\","
+                + "\"arrivalDate\":\"" + night + "\",\"departureDate\":\"" + night.plusDays(1) + "\"}";
+        HttpResponse<String> response = this.httpClient.send(HttpRequest.newBuilder(URI.create(this.baseUrl + "/reservations"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body)).build(), HttpResponse.BodyHandlers.ofString());
+        Matcher id = RESERVATION_ID.matcher(response.body());
+        if (response.statusCode() == 201 && id.find()) {
+            this.send(HttpRequest.newBuilder(URI.create(this.baseUrl + "/reservations/" + id.group(1))).DELETE());
+        }
+        return response.statusCode();
+    }
+
+    @Benchmark
+    @Threads(CLIENTS)
+    public int findAvailableDaysContended() throws IOException, InterruptedException {
+        LocalDate from = LocalDate.now().plusDays(1);
+        return this.send(HttpRequest.newBuilder(URI.create(this.baseUrl + "/availability?from=" + from
+                + "&to=" + from.plusDays(30))).GET());
+    }
+
+    private int send(HttpRequest.Builder request) throws IOException, InterruptedException {
+        return this.httpClient.send(request.build(), HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+}
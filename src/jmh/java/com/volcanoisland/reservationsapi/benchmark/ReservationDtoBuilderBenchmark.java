@@ -0,0 +1,65 @@
+package com.volcanoisland.reservationsapi.benchmark;
+
+import com.volcanoisland.reservationsapi.dto.ReservationDto;
+import com.volcanoisland.reservationsapi.dto.ReservationDtoBuilder;
+import com.volcanoisland.reservationsapi.model.Reservation;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Benchmarks mapping a page of reservations to DTOs, as done when listing reservations.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReservationDtoBuilderBenchmark {
+
+    @Param({"50", "200"})
+    private int pageSize;
+
+    private List<Reservation> page;
+
+    @Setup
+    public void setup() {
+        this.page = new ArrayList<>(this.pageSize);
+        for (long i = 0; i < this.pageSize; i++) {
+            Reservation reservation = new Reservation("guest" + i + "@volcano.com", "Guest " + i,
+                    LocalDate.now().plusDays(i), LocalDate.now().plusDays(i + 2));
+            reservation.setId(i);
+            reservation.setVersion(0L);
+            this.page.add(reservation);
+        }
+    }
+
+    @Benchmark
+    public List<ReservationDto> mapPage() {
+        return this.page.stream()
+                .map(reservation -> ReservationDtoBuilder.aReservationDto().fromReservation(reservation).build())
+                .collect(Collectors.toList());
+    }
+
+    @Benchmark
+    @Threads(8)
+    public List<ReservationDto> mapPageContended() {
+        return this.mapPage();
+    }
+}
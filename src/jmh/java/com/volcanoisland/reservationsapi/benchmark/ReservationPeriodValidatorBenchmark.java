@@ -0,0 +1,73 @@
+package com.volcanoisland.reservationsapi.benchmark;
+
+import com.volcanoisland.reservationsapi.controller.request.CreateReservationRequest;
+import com.volcanoisland.reservationsapi.validation.ReservationPeriodValidator;
+import com.volcanoisland.reservationsapi.validation.ValidReservationPeriod;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.validation.ConstraintViolation;
+import javax.validation.Validation;
+import javax.validation.Validator;
+import javax.validation.ValidatorFactory;
+import java.time.LocalDate;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the reservation period validation, on its own and as part of the whole request validation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReservationPeriodValidatorBenchmark {
+
+    private ReservationPeriodValidator periodValidator;
+    private ValidatorFactory validatorFactory;
+    private Validator validator;
+    private CreateReservationRequest request;
+
+    @Setup
+    public void setup() {
+        this.periodValidator = new ReservationPeriodValidator();
+        this.periodValidator.initialize(CreateReservationRequest.class.getAnnotation(ValidReservationPeriod.class));
+        this.validatorFactory = Validation.buildDefaultValidatorFactory();
+        this.validator = this.validatorFactory.getValidator();
+        this.request = new CreateReservationRequest("john@lennon.com", "John Lennon",
+                LocalDate.now().plusDays(5), LocalDate.now().plusDays(8));
+    }
+
+    @TearDown
+    public void tearDown() {
+        this.validatorFactory.close();
+    }
+
+    @Benchmark
+    public boolean isValid() {
+        return this.periodValidator.isValid(this.request, null);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public boolean isValidContended() {
+        return this.isValid();
+    }
+
+    @Benchmark
+    public Set<ConstraintViolation<CreateReservationRequest>> validateRequest() {
+        return this.validator.validate(this.request);
+    }
+}
@@ -0,0 +1,106 @@
+package com.volcanoisland.reservationsapi.benchmark;
+
+import com.volcanoisland.reservationsapi.controller.request.CreateReservationRequest;
+import com.volcanoisland.reservationsapi.exception.UnavailableDatesException;
+import com.volcanoisland.reservationsapi.model.Reservation;
+import com.volcanoisland.reservationsapi.service.ReservationService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Benchmarks the booking and availability paths of the ReservationService, on a single thread and with
+ * several threads competing for the same nights.
+ *
+ * The database size and the availability source can be changed with -p reservations=... -p occupancyIndex=...
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class ReservationServiceBenchmark {
+
+    private static final int CONTENDED_NIGHTS = 8;
+
+    @Param({"10000", "1000000"})
+    private int reservations;
+
+    @Param({"true", "false"})
+    private boolean occupancyIndex;
+
+    private ConfigurableApplicationContext context;
+    private ReservationService reservationService;
+    private final AtomicLong nextFreeNight = new AtomicLong();
+    private LocalDate contendedFirstNight;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        this.context = BenchmarkDatabase.start(this.reservations, this.occupancyIndex);
+        this.reservationService = this.context.getBean(ReservationService.class);
+        this.nextFreeNight.set(LocalDate.now().plusYears(1).toEpochDay());
+        this.contendedFirstNight = LocalDate.now().plusMonths(6);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        this.context.close();
+    }
+
+    @Benchmark
+    public List<LocalDate> findAvailableDays() {
+        return this.reservationService.findAvailableDays(LocalDate.now().plusDays(1), LocalDate.now().plusDays(30));
+    }
+
+    @Benchmark
+    @Threads(8)
+    public List<LocalDate> findAvailableDaysContended() {
+        return this.findAvailableDays();
+    }
+
+    /**
+     * Books a night nobody else is booking.
+     */
+    @Benchmark
+    public Reservation create() {
+        LocalDate night = LocalDate.ofEpochDay(this.nextFreeNight.getAndIncrement());
+        return this.reservationService.create(new CreateReservationRequest("guest@volcano.com", "Guest",
+                night, night.plusDays(1)));
+    }
+
+    /**
+     * Books and cancels a night out of a few ones all threads compete for, so that most attempts conflict.
+     */
+    @Benchmark
+    @Threads(8)
+    public boolean createContended() {
+        LocalDate night = this.contendedFirstNight.plusDays(ThreadLocalRandom.current().nextInt(CONTENDED_NIGHTS));
+        try {
+            Reservation reservation = this.reservationService.create(
+                    new CreateReservationRequest("guest@volcano.com", "Guest", night, night.plusDays(1)));
+            this.reservationService.cancel(reservation.getId());
+            return true;
+        } catch (UnavailableDatesException e) {
+            return false;
+        }
+    }
+}
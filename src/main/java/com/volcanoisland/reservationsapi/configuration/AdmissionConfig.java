@@ -0,0 +1,31 @@
+package com.volcanoisland.reservationsapi.configuration;
+
+import com.volcanoisland.reservationsapi.controller.AdmissionInterceptor;
+import com.volcanoisland.reservationsapi.service.AdmissionControl;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Applies the admission control to the reservation write endpoints, when enabled.
+ * Lookups by ids are sent as POST but only read, so they are left out.
+ */
+@Configuration
+public class AdmissionConfig implements WebMvcConfigurer {
+
+    @Autowired
+    private AdmissionControl admissionControl;
+
+    @Autowired
+    private AdmissionInterceptor admissionInterceptor;
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        if (admissionControl.isEnabled()) {
+            registry.addInterceptor(admissionInterceptor)
+                    .addPathPatterns("/reservations", "/reservations/**")
+                    .excludePathPatterns("/reservations/lookup");
+        }
+    }
+}
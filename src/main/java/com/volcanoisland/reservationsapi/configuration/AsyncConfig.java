@@ -0,0 +1,22 @@
+package com.volcanoisland.reservationsapi.configuration;
+
+import com.volcanoisland.reservationsapi.controller.AsyncTimeoutInterceptor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Lets handlers set the async timeout of their own response instead of changing it for every endpoint.
+ */
+@Configuration
+public class AsyncConfig implements WebMvcConfigurer {
+
+    @Autowired
+    private AsyncTimeoutInterceptor asyncTimeoutInterceptor;
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.registerCallableInterceptors(asyncTimeoutInterceptor);
+    }
+}
@@ -0,0 +1,63 @@
+package com.volcanoisland.reservationsapi.configuration;
+
+import org.apache.coyote.AbstractProtocol;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.tomcat.TomcatServletWebServerFactory;
+import org.springframework.boot.web.server.WebServerFactoryCustomizer;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Serves requests on virtual threads, one per request, instead of the Tomcat thread pool.
+ *
+ * Virtual threads are looked up reflectively so that the application still builds and runs on Java 11. When the
+ * running JVM does not provide them the Tomcat thread pool is kept and a warning is logged. The number of concurrent
+ * database operations is then bounded by the connection pool rather than by server.tomcat.max-threads.
+ */
+@Configuration
+@ConditionalOnProperty("reservations.virtual-threads.enabled")
+public class VirtualThreadsConfig implements WebServerFactoryCustomizer<TomcatServletWebServerFactory>, DisposableBean {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(VirtualThreadsConfig.class);
+
+    private ExecutorService executor;
+
+    @Override
+    public void customize(TomcatServletWebServerFactory factory) {
+        this.executor = newVirtualThreadPerTaskExecutor();
+        if (this.executor == null) {
+            LOGGER.warn("Virtual threads are not supported by Java {}, serving requests on the Tomcat thread pool",
+                    System.getProperty("java.version"));
+            return;
+        }
+        factory.addConnectorCustomizers(connector -> {
+            if (connector.getProtocolHandler() instanceof AbstractProtocol) {
+                ((AbstractProtocol<?>) connector.getProtocolHandler()).setExecutor(this.executor);
+            }
+        });
+        LOGGER.info("Serving requests on virtual threads");
+    }
+
+    @Override
+    public void destroy() {
+        if (this.executor != null) {
+            this.executor.shutdown();
+        }
+    }
+
+    /**
+     * @return An executor starting a virtual thread per task, or null if the running JVM does not support them
+     */
+    static ExecutorService newVirtualThreadPerTaskExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.volcanoisland.reservationsapi.controller;
+
+import com.volcanoisland.reservationsapi.service.AdmissionControl;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpMethod;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Admits the write requests before their body is read, releasing their slot once completed.
+ * The client address is the remote address of the request, see server.use-forward-headers when behind a proxy.
+ */
+@Component
+public class AdmissionInterceptor implements HandlerInterceptor {
+
+    private static final String PERMIT_ATTRIBUTE = AdmissionInterceptor.class.getName() + ".permit";
+
+    @Autowired
+    private AdmissionControl admissionControl;
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (isWrite(request) && request.getAttribute(PERMIT_ATTRIBUTE) == null) {
+            request.setAttribute(PERMIT_ATTRIBUTE, admissionControl.enter(request.getRemoteAddr()));
+        }
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+                                Exception ex) {
+        Object permit = request.getAttribute(PERMIT_ATTRIBUTE);
+        if (permit != null) {
+            ((AdmissionControl.Permit) permit).close();
+            request.removeAttribute(PERMIT_ATTRIBUTE);
+        }
+    }
+
+    private static boolean isWrite(HttpServletRequest request) {
+        String method = request.getMethod();
+        return !HttpMethod.GET.matches(method) && !HttpMethod.HEAD.matches(method)
+                && !HttpMethod.OPTIONS.matches(method);
+    }
+}
@@ -0,0 +1,53 @@
+package com.volcanoisland.reservationsapi.controller;
+
+import com.volcanoisland.reservationsapi.dto.AvailabilityDto;
+import com.volcanoisland.reservationsapi.dto.PeriodDto;
+import com.volcanoisland.reservationsapi.service.AvailabilityETag;
+import com.volcanoisland.reservationsapi.service.AvailabilityLookupService;
+import org.apache.commons.lang3.ObjectUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import javax.validation.constraints.Future;
+import java.time.LocalDate;
+import java.util.concurrent.CompletableFuture;
+
+@RestController
+@RequestMapping(value = "/availability/async", produces = MediaType.APPLICATION_JSON_VALUE)
+@Validated
+public class AsyncAvailabilityController {
+
+    @Autowired
+    private AvailabilityLookupService availabilityLookupService;
+
+    /**
+     * Looks up availability of the campsite on the given date range, as GET /availability, but releasing the
+     * request thread while availability is looked up on the database.
+     * The If-None-Match header is checked against the ETag once the availability is known, when the returned
+     * ResponseEntity is written, answering 304 without a body when it matches.
+     * @param from
+     * @param to
+     * @return CompletableFuture<ResponseEntity<AvailabilityDto>>
+     */
+    @GetMapping()
+    public CompletableFuture<ResponseEntity<AvailabilityDto>> getAvailability(@RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) @Future LocalDate from,
+                                                                              @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) @Future LocalDate to) {
+        LocalDate periodStart = ObjectUtils.defaultIfNull(from, LocalDate.now().plusDays(1));
+        LocalDate periodEnd = ObjectUtils.defaultIfNull(to, periodStart.plusMonths(1));
+
+        return availabilityLookupService.findAvailableDays(periodStart, periodEnd)
+                .thenApply(availableDays -> ResponseEntity.ok()
+                        .eTag(AvailabilityETag.of(periodStart, periodEnd, availableDays))
+                        .cacheControl(CacheControl.noCache())
+                        .body(new AvailabilityDto(new PeriodDto(periodStart, periodEnd), availableDays)));
+    }
+
+}
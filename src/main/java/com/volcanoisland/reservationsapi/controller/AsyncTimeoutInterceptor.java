@@ -0,0 +1,40 @@
+package com.volcanoisland.reservationsapi.controller;
+
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.async.AsyncWebRequest;
+import org.springframework.web.context.request.async.CallableProcessingInterceptor;
+
+import javax.servlet.http.HttpServletRequest;
+import java.time.Duration;
+import java.util.concurrent.Callable;
+
+/**
+ * Applies the async timeout chosen by a handler to the concurrent processing of its return value.
+ *
+ * Streamed responses like StreamingResponseBody are written on another thread after the handler returns, and
+ * always get the default async timeout. Handlers needing another one for their own response set it with
+ * {@link #setTimeout(HttpServletRequest, Duration)}, leaving every other endpoint on the default.
+ */
+@Component
+public class AsyncTimeoutInterceptor implements CallableProcessingInterceptor {
+
+    private static final String TIMEOUT_ATTRIBUTE = AsyncTimeoutInterceptor.class.getName() + ".timeout";
+
+    /**
+     * Sets the async timeout of the response to the given request.
+     * @param request
+     * @param timeout
+     */
+    public static void setTimeout(HttpServletRequest request, Duration timeout) {
+        request.setAttribute(TIMEOUT_ATTRIBUTE, timeout);
+    }
+
+    @Override
+    public <T> void beforeConcurrentHandling(NativeWebRequest request, Callable<T> task) {
+        Object timeout = request.getAttribute(TIMEOUT_ATTRIBUTE, NativeWebRequest.SCOPE_REQUEST);
+        if (timeout != null && request instanceof AsyncWebRequest) {
+            ((AsyncWebRequest) request).setTimeout(((Duration) timeout).toMillis());
+        }
+    }
+}
@@ -2,17 +2,27 @@ package com.volcanoisland.reservationsapi.controller;
 
 import com.volcanoisland.reservationsapi.dto.AvailabilityDto;
 import com.volcanoisland.reservationsapi.dto.PeriodDto;
+import com.volcanoisland.reservationsapi.exception.BadRequestException;
+import com.volcanoisland.reservationsapi.exception.ServiceUnavailableException;
+import com.volcanoisland.reservationsapi.service.AvailabilityETag;
+import com.volcanoisland.reservationsapi.service.AvailabilityStreamService;
 import com.volcanoisland.reservationsapi.service.ReservationService;
 import org.apache.commons.lang3.ObjectUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import javax.validation.constraints.Future;
 import java.time.LocalDate;
@@ -25,23 +35,60 @@ public class AvailabilityController {
 
     @Autowired
     private ReservationService reservationService;
+    @Autowired
+    private AvailabilityStreamService availabilityStreamService;
 
     /**
      * Looks up availability of the campsite on the given date range.
+     * The response carries an ETag derived from the available days, requests sending it back as If-None-Match
+     * get a 304 response without the availability being sent again while it does not change.
      * @param from
      * @param to
+     * @param webRequest
      * @return ResponseEntity<AvailabilityDto>
      */
     @GetMapping()
     public ResponseEntity<AvailabilityDto> getAvailability(@RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) @Future LocalDate from,
-                                                             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) @Future LocalDate to) {
+                                                             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) @Future LocalDate to,
+                                                             WebRequest webRequest) {
         from = ObjectUtils.defaultIfNull(from, LocalDate.now().plusDays(1));
         to = ObjectUtils.defaultIfNull(to, from.plusMonths(1));
 
         List<LocalDate> availableDays = reservationService.findAvailableDays(from, to);
 
-        return ResponseEntity.ok().body(new AvailabilityDto(new PeriodDto(from, to), availableDays));
+        String eTag = AvailabilityETag.of(from, to, availableDays);
+        if (webRequest.checkNotModified(eTag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).cacheControl(CacheControl.noCache()).build();
+        }
+        return ResponseEntity.ok().eTag(eTag).cacheControl(CacheControl.noCache())
+                .body(new AvailabilityDto(new PeriodDto(from, to), availableDays));
     }
 
-}
+    /**
+     * Streams the nights taken and freed as reservations change, as Server-Sent Events.
+     * Each event carries a sequence number as ID. Clients reconnecting with a Last-Event-ID header get the changes
+     * they missed, or a reset event when those are no longer available, after which availability should be
+     * looked up again. When too many streams are open responds 503 with a Retry-After header.
+     * Only the changes committed on the instance serving the stream are sent.
+     * @param lastEventId
+     * @return ResponseEntity<SseEmitter>
+     */
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamAvailability(@RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+        Long lastSequence = null;
+        if (lastEventId != null) {
+            try {
+                lastSequence = Long.valueOf(lastEventId.trim());
+            } catch (NumberFormatException e) {
+                throw new BadRequestException("Invalid Last-Event-ID header supplied");
+            }
+        }
+        try {
+            return ResponseEntity.ok(availabilityStreamService.subscribe(lastSequence));
+        } catch (ServiceUnavailableException e) {
+            // Answered without a body, as errors can not be written as an event stream
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "1").build();
+        }
+    }
 
+}
@@ -0,0 +1,59 @@
+package com.volcanoisland.reservationsapi.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.volcanoisland.reservationsapi.dto.ReservationDto;
+import com.volcanoisland.reservationsapi.exception.BadRequestException;
+import com.volcanoisland.reservationsapi.service.ReservationExportService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import javax.servlet.http.HttpServletRequest;
+import java.time.Duration;
+
+@RestController
+@RequestMapping(value = "/reservations/export")
+public class ReservationExportController {
+
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+    private static final MediaType CSV = MediaType.parseMediaType("text/csv");
+
+    @Autowired
+    private ReservationExportService reservationExportService;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Value("${reservations.export.timeout:PT10M}")
+    private Duration exportTimeout;
+
+    /**
+     * Export all reservations, streaming them as they are read from the database.
+     * The export may take longer than other async requests, so it gets its own timeout.
+     * @param format Either ndjson (newline delimited JSON) or csv
+     * @param request
+     * @return ResponseEntity<StreamingResponseBody>
+     */
+    @GetMapping()
+    public ResponseEntity<StreamingResponseBody> exportReservations(@RequestParam(defaultValue = "ndjson") String format,
+                                                                    HttpServletRequest request) {
+        AsyncTimeoutInterceptor.setTimeout(request, exportTimeout);
+        switch (format.toLowerCase()) {
+            case "ndjson":
+                return ResponseEntity.ok().contentType(NDJSON)
+                        .body(outputStream -> reservationExportService.exportNdjson(outputStream,
+                                objectMapper.writerFor(ReservationDto.class)));
+            case "csv":
+                return ResponseEntity.ok().contentType(CSV)
+                        .header("Content-Disposition", "attachment; filename=\"reservations.csv\"")
+                        .body(outputStream -> reservationExportService.exportCsv(outputStream));
+            default:
+                throw new BadRequestException("Invalid export format supplied, expected ndjson or csv");
+        }
+    }
+
+}
@@ -1,44 +1,135 @@
 package com.volcanoisland.reservationsapi.controller;
 
+import com.volcanoisland.reservationsapi.controller.request.BatchCreateReservationRequest;
+import com.volcanoisland.reservationsapi.controller.request.BatchModeEnum;
 import com.volcanoisland.reservationsapi.controller.request.CreateReservationRequest;
+import com.volcanoisland.reservationsapi.controller.request.ReservationLookupRequest;
 import com.volcanoisland.reservationsapi.controller.request.UpdateReservationRequest;
+import com.volcanoisland.reservationsapi.dto.BatchItemResultDto;
+import com.volcanoisland.reservationsapi.dto.BatchItemStatusEnum;
+import com.volcanoisland.reservationsapi.dto.BatchReservationResultDto;
+import com.volcanoisland.reservationsapi.dto.BookingCommandDto;
+import com.volcanoisland.reservationsapi.dto.BookingCommandStatusEnum;
 import com.volcanoisland.reservationsapi.dto.ReservationDto;
 import com.volcanoisland.reservationsapi.dto.ReservationDtoBuilder;
+import com.volcanoisland.reservationsapi.dto.ReservationLookupDto;
+import com.volcanoisland.reservationsapi.dto.ReservationLookupResultDto;
+import com.volcanoisland.reservationsapi.dto.ReservationPageDto;
+import com.volcanoisland.reservationsapi.exception.BadRequestException;
+import com.volcanoisland.reservationsapi.exception.NotFoundException;
+import com.volcanoisland.reservationsapi.exception.ServiceUnavailableException;
 import com.volcanoisland.reservationsapi.model.Reservation;
+import com.volcanoisland.reservationsapi.model.ReservationStatusEnum;
+import com.volcanoisland.reservationsapi.service.BatchItemResult;
+import com.volcanoisland.reservationsapi.service.BookingCommand;
+import com.volcanoisland.reservationsapi.service.AdmissionControl;
+import com.volcanoisland.reservationsapi.service.BookingSequencer;
+import com.volcanoisland.reservationsapi.service.IdempotencyStore;
 import com.volcanoisland.reservationsapi.service.ReservationService;
+import com.volcanoisland.reservationsapi.service.WaitingRoom;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Slice;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 
 import javax.validation.Valid;
+import javax.validation.constraints.Max;
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotEmpty;
+import javax.validation.constraints.Size;
+import java.net.URI;
+import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping(value = "/reservations", produces = MediaType.APPLICATION_JSON_VALUE)
+@Validated
 public class ReservationsController {
 
+    private static final int MAX_PAGE_SIZE = 200;
+    private static final String RESPOND_ASYNC = "respond-async";
+    private static final String IDEMPOTENCY_KEY = "Idempotency-Key";
+    private static final String IDEMPOTENT_REPLAYED = "Idempotent-Replayed";
+
     @Autowired
     private ReservationService reservationService;
 
+    @Autowired
+    private BookingSequencer bookingSequencer;
+
+    @Autowired
+    private IdempotencyStore idempotencyStore;
+
+    @Autowired
+    private AdmissionControl admissionControl;
+
+    @Autowired
+    private WaitingRoom waitingRoom;
+
+    @Value("${reservations.sequencer.wait-timeout-ms:5000}")
+    private long sequencerWaitTimeoutMillis;
+
     /**
-     * Fetch all reservations.
-     * @return ResponseEntity<List<ReservationDto>>
+     * Fetch a page of reservations, ordered by ID.
+     * The next page is requested by sending back the returned next cursor, absent on the last page.
+     * @param status
+     * @param from
+     * @param to
+     * @param cursor
+     * @param limit
+     * @return ResponseEntity<ReservationPageDto>
      */
     @GetMapping()
-    public ResponseEntity<List<ReservationDto>> getReservations() {
-        List<Reservation> reservations = reservationService.findAll();
+    public ResponseEntity<ReservationPageDto> getReservations(@RequestParam(required = false) ReservationStatusEnum status,
+                                                              @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                                              @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+                                                              @RequestParam(required = false) Long cursor,
+                                                              @RequestParam(defaultValue = "50") @Min(1) @Max(MAX_PAGE_SIZE) int limit) {
+        Slice<Reservation> page = reservationService.findPage(cursor, status, from, to, limit);
+
+        List<ReservationDto> reservations = page.getContent().stream()
+                .map(k -> ReservationDtoBuilder.aReservationDto().fromReservation(k).build())
+                .collect(Collectors.toList());
+        String next = page.hasNext() ? String.valueOf(reservations.get(reservations.size() - 1).getId()) : null;
 
-        return ResponseEntity.ok().body(
-                reservations.stream().map(k -> ReservationDtoBuilder.aReservationDto().fromReservation(k).build())
-                        .collect(Collectors.toList())
-        );
+        return ResponseEntity.ok().body(new ReservationPageDto(reservations, next));
+    }
+
+    /**
+     * Fetch the reservations with the given IDs, in the same order, marking the ones not found.
+     * @param ids
+     * @return ResponseEntity<ReservationLookupDto>
+     */
+    @GetMapping(params = "ids")
+    public ResponseEntity<ReservationLookupDto> getReservationsByIds(@RequestParam @NotEmpty @Size(max = ReservationLookupRequest.MAX_IDS) List<Long> ids) {
+        return ResponseEntity.ok().body(lookup(ids));
+    }
+
+    /**
+     * Fetch the reservations with the given IDs, as GET /reservations?ids= but taking them from the request body.
+     * @param request
+     * @return ResponseEntity<ReservationLookupDto>
+     */
+    @PostMapping(value = "/lookup", consumes = MediaType.APPLICATION_JSON_UTF8_VALUE)
+    public ResponseEntity<ReservationLookupDto> lookupReservations(@RequestBody @Valid ReservationLookupRequest request) {
+        return ResponseEntity.ok().body(lookup(request.getIds()));
     }
 
     /**
      * Fetch a single reservation by it's ID.
+     * The reservation version is returned as ETag, to be sent back as If-Match when updating it.
      * @param id
      * @return ResponseEntity<ReservationDto>
      */
@@ -46,33 +137,66 @@ public class ReservationsController {
     public ResponseEntity<ReservationDto> getReservation(@PathVariable("id") Long id) {
         Reservation reservation = reservationService.findOne(id);
 
-        return ResponseEntity.ok().body(ReservationDtoBuilder.aReservationDto().fromReservation(reservation).build());
+        return ResponseEntity.ok().eTag(String.valueOf(reservation.getVersion()))
+                .body(ReservationDtoBuilder.aReservationDto().fromReservation(reservation).build());
     }
 
     /**
      * Partially update an existing reservation by ID.
+     * When an If-Match header is provided the update only succeeds if the reservation version still matches it.
+     * When the booking sequencer is enabled the update may be answered 202, see createReservation.
      * @param request
      * @param id
+     * @param ifMatch
+     * @param prefer
      * @return ResponseEntity<ReservationDto>
      */
     @PatchMapping(value = "/{id}", consumes = MediaType.APPLICATION_JSON_UTF8_VALUE)
-    public ResponseEntity<ReservationDto> updateReservation(@RequestBody @Valid UpdateReservationRequest request, @PathVariable("id") Long id) {
+    public ResponseEntity<ReservationDto> updateReservation(@RequestBody @Valid UpdateReservationRequest request, @PathVariable("id") Long id,
+                                                            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+                                                            @RequestHeader(value = "Prefer", required = false) String prefer) {
+        admissionControl.checkGuest(request.getGuestEmail());
         request.setId(id);
-        Reservation updatedReservation = reservationService.update(request);
+        if (ifMatch != null && !"*".equals(ifMatch.trim())) {
+            request.setVersion(parseVersion(ifMatch));
+        }
+        Reservation updatedReservation;
+        if (bookingSequencer.isEnabled()) {
+            BookingCommand command = bookingSequencer.submitUpdate(request);
+            updatedReservation = await(command.getResult(), prefer);
+            if (updatedReservation == null) {
+                return accepted(command.getId());
+            }
+        } else {
+            updatedReservation = reservationService.update(request);
+        }
 
-        return ResponseEntity.ok().body(ReservationDtoBuilder.aReservationDto()
+        return ResponseEntity.ok().eTag(String.valueOf(updatedReservation.getVersion()))
+                .body(ReservationDtoBuilder.aReservationDto()
                 .fromReservation(updatedReservation)
                 .build());
     }
 
     /**
      * Cancel a reservation by ID.
+     * When the booking sequencer is enabled the cancellation may be answered 202, see createReservation.
      * @param id
+     * @param prefer
      * @return ResponseEntity<ReservationDto>
      */
     @DeleteMapping(value = "/{id}")
-    public ResponseEntity<ReservationDto> cancelReservation(@PathVariable("id") Long id) {
-        Reservation updatedReservation = reservationService.cancel(id);
+    public ResponseEntity<ReservationDto> cancelReservation(@PathVariable("id") Long id,
+                                                            @RequestHeader(value = "Prefer", required = false) String prefer) {
+        Reservation updatedReservation;
+        if (bookingSequencer.isEnabled()) {
+            BookingCommand command = bookingSequencer.submitCancel(id);
+            updatedReservation = await(command.getResult(), prefer);
+            if (updatedReservation == null) {
+                return accepted(command.getId());
+            }
+        } else {
+            updatedReservation = reservationService.cancel(id);
+        }
 
         return ResponseEntity.ok().body(ReservationDtoBuilder.aReservationDto()
                 .fromReservation(updatedReservation)
@@ -81,16 +205,303 @@ public class ReservationsController {
 
     /**
      * Create a new reservation with the provided details.
+     * When the booking sequencer is enabled the reservation is queued, and the request answered 202 with the command
+     * status URL as Location if the client sent "Prefer: respond-async" or the command is not applied in time.
+     * Requests sent with an Idempotency-Key get the outcome of the first request sent with the same key, if any,
+     * instead of booking again.
+     * When the waiting room is open, an admitted Waiting-Room-Token is required, see WaitingRoomController. Requests
+     * rejected by the waiting room are not remembered under their Idempotency-Key.
      * @param request
+     * @param prefer
+     * @param idempotencyKey
+     * @param waitingRoomToken
      * @return ResponseEntity<ReservationDto>
      */
     @PostMapping(consumes = MediaType.APPLICATION_JSON_UTF8_VALUE)
-    public ResponseEntity<ReservationDto> createReservation(@RequestBody @Valid CreateReservationRequest request) {
-        Reservation newReservation = reservationService.create(request);
+    public ResponseEntity<ReservationDto> createReservation(@RequestBody @Valid CreateReservationRequest request,
+                                                            @RequestHeader(value = "Prefer", required = false) String prefer,
+                                                            @RequestHeader(value = IDEMPOTENCY_KEY, required = false) String idempotencyKey,
+                                                            @RequestHeader(value = WaitingRoomController.WAITING_ROOM_TOKEN, required = false) String waitingRoomToken) {
+        admissionControl.checkGuest(request.getGuestEmail());
+        IdempotencyStore.IdempotentOutcome outcome = null;
+        if (idempotencyKey != null) {
+            outcome = new IdempotencyStore.IdempotentOutcome();
+            IdempotencyStore.IdempotentOutcome previous = idempotencyStore.putIfAbsent(idempotencyKey,
+                    request.toString(), outcome);
+            if (previous != null) {
+                return replay(previous, prefer);
+            }
+        }
+
+        WaitingRoom.Place waitingRoomPlace;
+        try {
+            waitingRoomPlace = claimWaitingRoomPlace(waitingRoomToken);
+        } catch (RuntimeException e) {
+            // Not attempted, so that the request can be sent again with an admitted token
+            if (outcome != null) {
+                idempotencyStore.forget(idempotencyKey, outcome, e);
+            }
+            throw e;
+        }
+
+        Reservation newReservation;
+        try {
+            if (bookingSequencer.isEnabled()) {
+                BookingCommand command = bookingSequencer.submitCreate(request);
+                if (outcome != null) {
+                    final IdempotencyStore.IdempotentOutcome commandOutcome = outcome;
+                    commandOutcome.setCommandId(command.getId());
+                    command.getResult().whenComplete((reservation, failure) ->
+                            idempotencyStore.complete(idempotencyKey, commandOutcome, reservation, failure));
+                }
+                newReservation = await(command.getResult(), prefer);
+                if (newReservation == null) {
+                    return accepted(command.getId());
+                }
+            } else {
+                newReservation = reservationService.create(request);
+                if (outcome != null) {
+                    idempotencyStore.complete(idempotencyKey, outcome, newReservation, null);
+                }
+            }
+        } catch (RuntimeException e) {
+            releaseWaitingRoomPlace(waitingRoomPlace);
+            if (outcome != null && !outcome.getResult().isDone()) {
+                idempotencyStore.complete(idempotencyKey, outcome, null, e);
+            }
+            throw e;
+        }
 
         return ResponseEntity.status(HttpStatus.CREATED).body(ReservationDtoBuilder.aReservationDto()
                 .withId(newReservation.getId()).build());
     }
 
-}
+    /**
+     * Hold the nights of a new reservation while the guest checks out. The held reservation takes its nights as a
+     * reservation does, and is released unless confirmed before its expiresAt.
+     * When the waiting room is open, an admitted Waiting-Room-Token is required, see createReservation.
+     * @param request
+     * @param waitingRoomToken
+     * @return ResponseEntity<ReservationDto>
+     */
+    @PostMapping(value = "/holds", consumes = MediaType.APPLICATION_JSON_UTF8_VALUE)
+    public ResponseEntity<ReservationDto> holdReservation(@RequestBody @Valid CreateReservationRequest request,
+                                                          @RequestHeader(value = WaitingRoomController.WAITING_ROOM_TOKEN, required = false) String waitingRoomToken) {
+        admissionControl.checkGuest(request.getGuestEmail());
+        WaitingRoom.Place waitingRoomPlace = claimWaitingRoomPlace(waitingRoomToken);
+        Reservation heldReservation;
+        try {
+            heldReservation = reservationService.hold(request);
+        } catch (RuntimeException e) {
+            releaseWaitingRoomPlace(waitingRoomPlace);
+            throw e;
+        }
+
+        return ResponseEntity.status(HttpStatus.CREATED).body(ReservationDtoBuilder.aReservationDto()
+                .withId(heldReservation.getId())
+                .withStatus(ReservationStatusEnum.HELD)
+                .withExpiresAt(heldReservation.getExpiresAt())
+                .build());
+    }
+
+    /**
+     * Confirm a held reservation by ID, turning it into an active one.
+     * @param id
+     * @return ResponseEntity<ReservationDto>
+     */
+    @PostMapping(value = "/{id}/confirm")
+    public ResponseEntity<ReservationDto> confirmReservation(@PathVariable("id") Long id) {
+        Reservation confirmedReservation = reservationService.confirm(id);
+
+        return ResponseEntity.ok().eTag(String.valueOf(confirmedReservation.getVersion()))
+                .body(ReservationDtoBuilder.aReservationDto()
+                .fromReservation(confirmedReservation)
+                .build());
+    }
+
+    /**
+     * Create a batch of reservations in a single transaction.
+     * Responds 201 when every reservation was created, otherwise 200 in PARTIAL mode. In ALL_OR_NOTHING mode responds
+     * 409 when any reservation conflicted, or 400 when they were only rejected as invalid. Always with the result of
+     * each reservation.
+     * When the waiting room is open, an admitted Waiting-Room-Token is required for the whole batch, and is used
+     * once any reservation is created.
+     * @param request
+     * @param waitingRoomToken
+     * @return ResponseEntity<BatchReservationResultDto>
+     */
+    @PostMapping(value = "/batch", consumes = MediaType.APPLICATION_JSON_UTF8_VALUE)
+    public ResponseEntity<BatchReservationResultDto> createReservations(@RequestBody @Valid BatchCreateReservationRequest request,
+                                                                        @RequestHeader(value = WaitingRoomController.WAITING_ROOM_TOKEN, required = false) String waitingRoomToken) {
+        request.getReservations().stream().map(CreateReservationRequest::getGuestEmail).distinct()
+                .forEach(admissionControl::checkGuest);
+        WaitingRoom.Place waitingRoomPlace = claimWaitingRoomPlace(waitingRoomToken);
+        List<BatchItemResult> results;
+        try {
+            results = reservationService.createBatch(request.getReservations(), request.getMode());
+        } catch (RuntimeException e) {
+            releaseWaitingRoomPlace(waitingRoomPlace);
+            throw e;
+        }
+
+        List<BatchItemResultDto> resultDtos = new ArrayList<>(results.size());
+        for (int i = 0; i < results.size(); i++) {
+            BatchItemResult result = results.get(i);
+            resultDtos.add(new BatchItemResultDto(i, result.getStatus(),
+                    result.getReservation() != null ? result.getReservation().getId() : null,
+                    result.getErrors().isEmpty() ? null : result.getErrors()));
+        }
+        int created = (int) results.stream().filter(r -> r.getStatus() == BatchItemStatusEnum.CREATED).count();
+        if (created == 0) {
+            releaseWaitingRoomPlace(waitingRoomPlace);
+        }
+        boolean conflicted = results.stream().anyMatch(r -> r.getStatus() == BatchItemStatusEnum.CONFLICT);
+        HttpStatus status = created == results.size() ? HttpStatus.CREATED
+                : request.getMode() == BatchModeEnum.PARTIAL ? HttpStatus.OK
+                : conflicted ? HttpStatus.CONFLICT : HttpStatus.BAD_REQUEST;
+
+        return ResponseEntity.status(status).body(new BatchReservationResultDto(request.getMode(), created, resultDtos));
+    }
+
+    /**
+     * Check whether a reservation with the provided details could be created, without creating it.
+     * Responds 204 when the dates are available, or 409 listing the nights already taken.
+     * @param request
+     * @return ResponseEntity<Void>
+     */
+    @PostMapping(value = "/validate", consumes = MediaType.APPLICATION_JSON_UTF8_VALUE)
+    public ResponseEntity<Void> validateReservation(@RequestBody @Valid CreateReservationRequest request) {
+        reservationService.validate(request);
+
+        return ResponseEntity.noContent().build();
+    }
+
+    /**
+     * Fetch the status of a booking command queued on the booking sequencer.
+     * Commands are retained for a limited time after being submitted.
+     * @param id
+     * @return ResponseEntity<BookingCommandDto>
+     */
+    @GetMapping("/commands/{id}")
+    public ResponseEntity<BookingCommandDto> getBookingCommand(@PathVariable("id") String id) {
+        BookingCommand command = bookingSequencer.findCommand(id).orElseThrow(NotFoundException::new);
+
+        BookingCommandStatusEnum status = !command.getResult().isDone() ? BookingCommandStatusEnum.PENDING
+                : command.getResult().isCompletedExceptionally() ? BookingCommandStatusEnum.FAILED
+                : BookingCommandStatusEnum.COMPLETED;
+        Long reservationId = status == BookingCommandStatusEnum.COMPLETED
+                ? command.getResult().join().getId() : command.getReservationId();
+        String error = null;
+        if (status == BookingCommandStatusEnum.FAILED) {
+            try {
+                command.getResult().join();
+            } catch (RuntimeException e) {
+                error = e.getCause() != null ? e.getCause().getMessage() : e.getMessage();
+            }
+        }
+        return ResponseEntity.ok().body(new BookingCommandDto(command.getId(), command.getType(), status, reservationId, error));
+    }
+
+    /**
+     * Claims the place of an admitted waiting room token, when the waiting room is open.
+     * @param waitingRoomToken
+     * @return The claimed place, to be released if no reservation is created, or null if the room is not open
+     */
+    private WaitingRoom.Place claimWaitingRoomPlace(String waitingRoomToken) {
+        return waitingRoom.isEnabled() ? waitingRoom.claim(waitingRoomToken, System.currentTimeMillis()) : null;
+    }
+
+    private void releaseWaitingRoomPlace(WaitingRoom.Place waitingRoomPlace) {
+        if (waitingRoomPlace != null) {
+            waitingRoom.release(waitingRoomPlace);
+        }
+    }
 
+    /**
+     * Waits for the outcome of a booking operation, rethrowing its failure.
+     * @param result
+     * @param prefer
+     * @return The resulting reservation, or null if the client prefers not to wait or it was not applied in time
+     * @throws ServiceUnavailableException If interrupted while waiting
+     */
+    private Reservation await(CompletableFuture<Reservation> result, String prefer) {
+        if (prefer != null && prefer.toLowerCase().contains(RESPOND_ASYNC)) {
+            return null;
+        }
+        try {
+            return result.get(sequencerWaitTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            return null;
+        } catch (InterruptedException e) {
+            // The command may still be applied or not, so it can not be answered as accepted
+            Thread.currentThread().interrupt();
+            throw new ServiceUnavailableException("Interrupted while waiting for the booking outcome", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private static <T> ResponseEntity<T> accepted(String commandId) {
+        return ResponseEntity.accepted().location(URI.create("/reservations/commands/" + commandId)).build();
+    }
+
+    /**
+     * Fetches the reservations with the given IDs and maps them to lookup results, in the same order.
+     * @param ids
+     * @return ReservationLookupDto
+     */
+    private ReservationLookupDto lookup(List<Long> ids) {
+        if (ids.contains(null)) {
+            throw new BadRequestException("Invalid ids supplied");
+        }
+        List<Reservation> reservations = reservationService.findMany(ids);
+
+        List<ReservationLookupResultDto> results = new ArrayList<>(ids.size());
+        for (int i = 0; i < ids.size(); i++) {
+            Reservation reservation = reservations.get(i);
+            results.add(new ReservationLookupResultDto(ids.get(i), reservation == null ? null
+                    : ReservationDtoBuilder.aReservationDto().fromReservation(reservation).build()));
+        }
+        return new ReservationLookupDto(results);
+    }
+
+    /**
+     * Answers a request with the outcome of the previous request sent with the same Idempotency-Key,
+     * waiting for it if still in progress.
+     * @param previous
+     * @param prefer
+     * @return ResponseEntity<ReservationDto>
+     */
+    private ResponseEntity<ReservationDto> replay(IdempotencyStore.IdempotentOutcome previous, String prefer) {
+        Reservation reservation = await(previous.getResult(), previous.getCommandId() != null ? prefer : null);
+        if (reservation == null) {
+            if (previous.getCommandId() != null) {
+                return accepted(previous.getCommandId());
+            }
+            throw new ServiceUnavailableException("A request with the same Idempotency-Key is still in progress");
+        }
+        return ResponseEntity.status(HttpStatus.CREATED).header(IDEMPOTENT_REPLAYED, "true")
+                .body(ReservationDtoBuilder.aReservationDto().withId(reservation.getId()).build());
+    }
+
+    /**
+     * Parses a reservation version from an entity tag, as returned by this controller.
+     * @param eTag
+     * @return Long
+     */
+    private static Long parseVersion(String eTag) {
+        String value = eTag.trim();
+        if (value.startsWith("W/")) {
+            value = value.substring(2);
+        }
+        try {
+            return Long.valueOf(value.replace("\"", ""));
+        } catch (NumberFormatException e) {
+            throw new BadRequestException("Invalid If-Match header supplied");
+        }
+    }
+
+}
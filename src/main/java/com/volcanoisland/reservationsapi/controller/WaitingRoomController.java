@@ -0,0 +1,68 @@
+package com.volcanoisland.reservationsapi.controller;
+
+import com.volcanoisland.reservationsapi.dto.WaitingRoomPlaceDto;
+import com.volcanoisland.reservationsapi.exception.NotFoundException;
+import com.volcanoisland.reservationsapi.service.WaitingRoom;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+@RestController
+@RequestMapping(value = "/waiting-room", produces = MediaType.APPLICATION_JSON_VALUE)
+public class WaitingRoomController {
+
+    public static final String WAITING_ROOM_TOKEN = "Waiting-Room-Token";
+
+    @Autowired
+    private WaitingRoom waitingRoom;
+
+    /**
+     * Take a place in the waiting room. The returned token is to be sent on the Waiting-Room-Token header to poll the
+     * position and, once admitted, to create the reservation.
+     * @return ResponseEntity<WaitingRoomPlaceDto>
+     */
+    @PostMapping("/places")
+    public ResponseEntity<WaitingRoomPlaceDto> enterWaitingRoom() {
+        checkEnabled();
+        return response(HttpStatus.CREATED, waitingRoom.enter(System.currentTimeMillis()));
+    }
+
+    /**
+     * Fetch the position of a place in the waiting room. Clients are expected to poll no sooner than Retry-After.
+     * @param token
+     * @return ResponseEntity<WaitingRoomPlaceDto>
+     */
+    @GetMapping("/places/current")
+    public ResponseEntity<WaitingRoomPlaceDto> getWaitingRoomPlace(@RequestHeader(WAITING_ROOM_TOKEN) String token) {
+        checkEnabled();
+        return response(HttpStatus.OK, waitingRoom.find(token, System.currentTimeMillis()));
+    }
+
+    private void checkEnabled() {
+        if (!waitingRoom.isEnabled()) {
+            throw new NotFoundException("The waiting room is not open");
+        }
+    }
+
+    private static ResponseEntity<WaitingRoomPlaceDto> response(HttpStatus status, WaitingRoom.Place place) {
+        ResponseEntity.BodyBuilder builder = ResponseEntity.status(status).cacheControl(CacheControl.noStore());
+        if (!place.isAdmitted()) {
+            builder.header(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(1, Math.min(place.getEstimatedWaitSeconds(), 10))));
+        }
+        return builder.body(new WaitingRoomPlaceDto(place.getToken(), place.getPosition(),
+                place.getEstimatedWaitSeconds(), place.isAdmitted(),
+                LocalDateTime.ofInstant(Instant.ofEpochMilli(place.getExpiresAt()), ZoneId.systemDefault())));
+    }
+}
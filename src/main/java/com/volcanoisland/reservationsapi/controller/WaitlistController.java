@@ -0,0 +1,57 @@
+package com.volcanoisland.reservationsapi.controller;
+
+import com.volcanoisland.reservationsapi.controller.request.CreateWaitlistEntryRequest;
+import com.volcanoisland.reservationsapi.dto.WaitlistEntryDto;
+import com.volcanoisland.reservationsapi.service.WaitlistService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import javax.validation.Valid;
+
+@RestController
+@RequestMapping(value = "/waitlist", produces = MediaType.APPLICATION_JSON_VALUE)
+public class WaitlistController {
+
+    @Autowired
+    private WaitlistService waitlistService;
+
+    /**
+     * Wait for the nights of a period to free up. Once they all are, the entry is marked as notified and, if a
+     * callbackUrl was provided, the entry is posted to it.
+     * @param request
+     * @return ResponseEntity<WaitlistEntryDto>
+     */
+    @PostMapping(consumes = MediaType.APPLICATION_JSON_UTF8_VALUE)
+    public ResponseEntity<WaitlistEntryDto> createWaitlistEntry(@RequestBody @Valid CreateWaitlistEntryRequest request) {
+        return ResponseEntity.status(HttpStatus.CREATED).body(new WaitlistEntryDto(waitlistService.create(request)));
+    }
+
+    /**
+     * Fetch a waitlist entry by ID.
+     * @param id
+     * @return ResponseEntity<WaitlistEntryDto>
+     */
+    @GetMapping("/{id}")
+    public ResponseEntity<WaitlistEntryDto> getWaitlistEntry(@PathVariable("id") Long id) {
+        return ResponseEntity.ok().body(new WaitlistEntryDto(waitlistService.findOne(id)));
+    }
+
+    /**
+     * Leave the waitlist.
+     * @param id
+     * @return ResponseEntity<WaitlistEntryDto>
+     */
+    @DeleteMapping("/{id}")
+    public ResponseEntity<WaitlistEntryDto> cancelWaitlistEntry(@PathVariable("id") Long id) {
+        return ResponseEntity.ok().body(new WaitlistEntryDto(waitlistService.cancel(id)));
+    }
+}
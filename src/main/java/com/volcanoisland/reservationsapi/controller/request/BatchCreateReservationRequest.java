@@ -0,0 +1,51 @@
+package com.volcanoisland.reservationsapi.controller.request;
+
+import javax.validation.constraints.NotEmpty;
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Size;
+import java.util.List;
+
+public class BatchCreateReservationRequest {
+
+    public static final int MAX_BATCH_SIZE = 100;
+
+    @NotNull
+    private BatchModeEnum mode = BatchModeEnum.ALL_OR_NOTHING;
+
+    // Each reservation is validated on its own, so that the invalid ones can be reported individually
+    @NotEmpty
+    @Size(max = MAX_BATCH_SIZE)
+    private List<@NotNull CreateReservationRequest> reservations;
+
+    public BatchCreateReservationRequest() {
+    }
+
+    public BatchCreateReservationRequest(BatchModeEnum mode, List<CreateReservationRequest> reservations) {
+        this.mode = mode;
+        this.reservations = reservations;
+    }
+
+    public BatchModeEnum getMode() {
+        return mode;
+    }
+
+    public void setMode(BatchModeEnum mode) {
+        this.mode = mode;
+    }
+
+    public List<CreateReservationRequest> getReservations() {
+        return reservations;
+    }
+
+    public void setReservations(List<CreateReservationRequest> reservations) {
+        this.reservations = reservations;
+    }
+
+    @Override
+    public String toString() {
+        return "BatchCreateReservationRequest{" +
+                "mode=" + mode +
+                ", reservations=" + reservations +
+                '}';
+    }
+}
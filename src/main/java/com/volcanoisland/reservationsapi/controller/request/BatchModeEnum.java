@@ -0,0 +1,12 @@
+package com.volcanoisland.reservationsapi.controller.request;
+
+public enum BatchModeEnum {
+    /**
+     * Nothing is created unless every reservation of the batch can be created.
+     */
+    ALL_OR_NOTHING,
+    /**
+     * Every reservation that can be created is created, the rest are reported.
+     */
+    PARTIAL
+}
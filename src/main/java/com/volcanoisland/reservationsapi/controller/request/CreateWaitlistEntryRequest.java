@@ -0,0 +1,88 @@
+package com.volcanoisland.reservationsapi.controller.request;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.volcanoisland.reservationsapi.validation.ValidReservationPeriod;
+
+import javax.validation.constraints.Email;
+import javax.validation.constraints.Future;
+import javax.validation.constraints.NotBlank;
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Size;
+import java.time.LocalDate;
+
+@ValidReservationPeriod(
+        arrivalField = "arrivalDate",
+        departureField = "departureDate"
+)
+public class CreateWaitlistEntryRequest {
+
+    @Email
+    @NotBlank
+    private String guestEmail;
+
+    @NotNull
+    @Future
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd")
+    private LocalDate arrivalDate;
+
+    @NotNull
+    @Future
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd")
+    private LocalDate departureDate;
+
+    @Size(max = 255)
+    private String callbackUrl;
+
+    public CreateWaitlistEntryRequest() {
+    }
+
+    public CreateWaitlistEntryRequest(@Email @NotBlank String guestEmail, @NotNull @Future LocalDate arrivalDate,
+                                      @NotNull @Future LocalDate departureDate, String callbackUrl) {
+        this.guestEmail = guestEmail;
+        this.arrivalDate = arrivalDate;
+        this.departureDate = departureDate;
+        this.callbackUrl = callbackUrl;
+    }
+
+    public String getGuestEmail() {
+        return guestEmail;
+    }
+
+    public void setGuestEmail(String guestEmail) {
+        this.guestEmail = guestEmail;
+    }
+
+    public LocalDate getArrivalDate() {
+        return arrivalDate;
+    }
+
+    public void setArrivalDate(LocalDate arrivalDate) {
+        this.arrivalDate = arrivalDate;
+    }
+
+    public LocalDate getDepartureDate() {
+        return departureDate;
+    }
+
+    public void setDepartureDate(LocalDate departureDate) {
+        this.departureDate = departureDate;
+    }
+
+    public String getCallbackUrl() {
+        return callbackUrl;
+    }
+
+    public void setCallbackUrl(String callbackUrl) {
+        this.callbackUrl = callbackUrl;
+    }
+
+    @Override
+    public String toString() {
+        return "CreateWaitlistEntryRequest{" +
+                "guestEmail='" + guestEmail + '\'' +
+                ", arrivalDate=" + arrivalDate +
+                ", departureDate=" + departureDate +
+                ", callbackUrl='" + callbackUrl + '\'' +
+                '}';
+    }
+}
@@ -0,0 +1,37 @@
+package com.volcanoisland.reservationsapi.controller.request;
+
+import javax.validation.constraints.NotEmpty;
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Size;
+import java.util.List;
+
+public class ReservationLookupRequest {
+
+    public static final int MAX_IDS = 200;
+
+    @NotEmpty
+    @Size(max = MAX_IDS)
+    private List<@NotNull Long> ids;
+
+    public ReservationLookupRequest() {
+    }
+
+    public ReservationLookupRequest(List<Long> ids) {
+        this.ids = ids;
+    }
+
+    public List<Long> getIds() {
+        return ids;
+    }
+
+    public void setIds(List<Long> ids) {
+        this.ids = ids;
+    }
+
+    @Override
+    public String toString() {
+        return "ReservationLookupRequest{" +
+                "ids=" + ids +
+                '}';
+    }
+}
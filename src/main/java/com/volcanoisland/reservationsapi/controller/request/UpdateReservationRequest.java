@@ -16,6 +16,7 @@ public class UpdateReservationRequest {
     @Future
     @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd")
     private LocalDate departureDate;
+    private Long version;
 
     public UpdateReservationRequest() {
     }
@@ -72,6 +73,14 @@ public class UpdateReservationRequest {
         this.departureDate = departureDate;
     }
 
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     @Override
     public String toString() {
         return "UpdateReservationRequest{" +
@@ -80,6 +89,7 @@ public class UpdateReservationRequest {
                 ", guestFullName='" + guestFullName + '\'' +
                 ", arrivalDate=" + arrivalDate +
                 ", departureDate=" + departureDate +
+                ", version=" + version +
                 '}';
     }
 }
@@ -0,0 +1,44 @@
+package com.volcanoisland.reservationsapi.dto;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public class AvailabilityChangeDto {
+
+    private long sequence;
+    private List<LocalDate> occupiedNights;
+    private List<LocalDate> releasedNights;
+
+    public AvailabilityChangeDto() {
+    }
+
+    public AvailabilityChangeDto(long sequence, List<LocalDate> occupiedNights, List<LocalDate> releasedNights) {
+        this.sequence = sequence;
+        this.occupiedNights = occupiedNights;
+        this.releasedNights = releasedNights;
+    }
+
+    public long getSequence() {
+        return sequence;
+    }
+
+    public void setSequence(long sequence) {
+        this.sequence = sequence;
+    }
+
+    public List<LocalDate> getOccupiedNights() {
+        return occupiedNights;
+    }
+
+    public void setOccupiedNights(List<LocalDate> occupiedNights) {
+        this.occupiedNights = occupiedNights;
+    }
+
+    public List<LocalDate> getReleasedNights() {
+        return releasedNights;
+    }
+
+    public void setReleasedNights(List<LocalDate> releasedNights) {
+        this.releasedNights = releasedNights;
+    }
+}
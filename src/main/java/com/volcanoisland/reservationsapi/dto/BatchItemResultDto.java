@@ -0,0 +1,53 @@
+package com.volcanoisland.reservationsapi.dto;
+
+import java.util.List;
+
+public class BatchItemResultDto {
+
+    private int index;
+    private BatchItemStatusEnum status;
+    private Long id;
+    private List<String> errors;
+
+    public BatchItemResultDto() {
+    }
+
+    public BatchItemResultDto(int index, BatchItemStatusEnum status, Long id, List<String> errors) {
+        this.index = index;
+        this.status = status;
+        this.id = id;
+        this.errors = errors;
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public void setIndex(int index) {
+        this.index = index;
+    }
+
+    public BatchItemStatusEnum getStatus() {
+        return status;
+    }
+
+    public void setStatus(BatchItemStatusEnum status) {
+        this.status = status;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public List<String> getErrors() {
+        return errors;
+    }
+
+    public void setErrors(List<String> errors) {
+        this.errors = errors;
+    }
+}
@@ -0,0 +1,11 @@
+package com.volcanoisland.reservationsapi.dto;
+
+public enum BatchItemStatusEnum {
+    CREATED,
+    CONFLICT,
+    INVALID,
+    /**
+     * Could have been created, but was not because another reservation of an all-or-nothing batch failed.
+     */
+    NOT_CREATED
+}
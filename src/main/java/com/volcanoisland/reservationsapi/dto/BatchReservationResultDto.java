@@ -0,0 +1,45 @@
+package com.volcanoisland.reservationsapi.dto;
+
+import com.volcanoisland.reservationsapi.controller.request.BatchModeEnum;
+
+import java.util.List;
+
+public class BatchReservationResultDto {
+
+    private BatchModeEnum mode;
+    private int created;
+    private List<BatchItemResultDto> results;
+
+    public BatchReservationResultDto() {
+    }
+
+    public BatchReservationResultDto(BatchModeEnum mode, int created, List<BatchItemResultDto> results) {
+        this.mode = mode;
+        this.created = created;
+        this.results = results;
+    }
+
+    public BatchModeEnum getMode() {
+        return mode;
+    }
+
+    public void setMode(BatchModeEnum mode) {
+        this.mode = mode;
+    }
+
+    public int getCreated() {
+        return created;
+    }
+
+    public void setCreated(int created) {
+        this.created = created;
+    }
+
+    public List<BatchItemResultDto> getResults() {
+        return results;
+    }
+
+    public void setResults(List<BatchItemResultDto> results) {
+        this.results = results;
+    }
+}
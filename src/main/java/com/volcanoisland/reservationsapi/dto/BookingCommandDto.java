@@ -0,0 +1,64 @@
+package com.volcanoisland.reservationsapi.dto;
+
+import com.volcanoisland.reservationsapi.service.BookingCommand;
+
+public class BookingCommandDto {
+
+    private String id;
+    private BookingCommand.Type type;
+    private BookingCommandStatusEnum status;
+    private Long reservationId;
+    private String error;
+
+    public BookingCommandDto() {
+    }
+
+    public BookingCommandDto(String id, BookingCommand.Type type, BookingCommandStatusEnum status, Long reservationId,
+                             String error) {
+        this.id = id;
+        this.type = type;
+        this.status = status;
+        this.reservationId = reservationId;
+        this.error = error;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public BookingCommand.Type getType() {
+        return type;
+    }
+
+    public void setType(BookingCommand.Type type) {
+        this.type = type;
+    }
+
+    public BookingCommandStatusEnum getStatus() {
+        return status;
+    }
+
+    public void setStatus(BookingCommandStatusEnum status) {
+        this.status = status;
+    }
+
+    public Long getReservationId() {
+        return reservationId;
+    }
+
+    public void setReservationId(Long reservationId) {
+        this.reservationId = reservationId;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+}
@@ -0,0 +1,7 @@
+package com.volcanoisland.reservationsapi.dto;
+
+public enum BookingCommandStatusEnum {
+    PENDING,
+    COMPLETED,
+    FAILED
+}
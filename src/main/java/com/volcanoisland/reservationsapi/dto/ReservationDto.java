@@ -15,8 +15,10 @@ public class ReservationDto {
     private LocalDate arrivalDate;
     private LocalDate departureDate;
     private ReservationStatusEnum status;
+    private LocalDateTime expiresAt;
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
+    private Long version;
 
     public Long getId() {
         return id;
@@ -66,6 +68,14 @@ public class ReservationDto {
         this.status = status;
     }
 
+    public LocalDateTime getExpiresAt() {
+        return expiresAt;
+    }
+
+    public void setExpiresAt(LocalDateTime expiresAt) {
+        this.expiresAt = expiresAt;
+    }
+
     public LocalDateTime getCreatedAt() {
         return createdAt;
     }
@@ -81,4 +91,12 @@ public class ReservationDto {
     public void setUpdatedAt(LocalDateTime updatedAt) {
         this.updatedAt = updatedAt;
     }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
 }
@@ -13,8 +13,10 @@ public final class ReservationDtoBuilder {
     private LocalDate arrivalDate;
     private LocalDate departureDate;
     private ReservationStatusEnum status;
+    private LocalDateTime expiresAt;
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
+    private Long version;
 
     private ReservationDtoBuilder() {
     }
@@ -53,6 +55,11 @@ public final class ReservationDtoBuilder {
         return this;
     }
 
+    public ReservationDtoBuilder withExpiresAt(LocalDateTime expiresAt) {
+        this.expiresAt = expiresAt;
+        return this;
+    }
+
     public ReservationDtoBuilder withCreatedAt(LocalDateTime createdAt) {
         this.createdAt = createdAt;
         return this;
@@ -63,6 +70,11 @@ public final class ReservationDtoBuilder {
         return this;
     }
 
+    public ReservationDtoBuilder withVersion(Long version) {
+        this.version = version;
+        return this;
+    }
+
     public ReservationDtoBuilder fromReservation(Reservation reservation) {
         this.id = reservation.getId();
         this.guestEmail = reservation.getGuestEmail();
@@ -70,8 +82,10 @@ public final class ReservationDtoBuilder {
         this.arrivalDate = reservation.getArrivalDate();
         this.departureDate = reservation.getDepartureDate();
         this.status = ReservationStatusEnum.getById(reservation.getStatus());
+        this.expiresAt = reservation.getExpiresAt();
         this.updatedAt = reservation.getUpdatedAt();
         this.createdAt = reservation.getCreatedAt();
+        this.version = reservation.getVersion();
         return this;
     }
 
@@ -83,8 +97,10 @@ public final class ReservationDtoBuilder {
         reservationDto.setArrivalDate(arrivalDate);
         reservationDto.setDepartureDate(departureDate);
         reservationDto.setStatus(status);
+        reservationDto.setExpiresAt(expiresAt);
         reservationDto.setCreatedAt(createdAt);
         reservationDto.setUpdatedAt(updatedAt);
+        reservationDto.setVersion(version);
         return reservationDto;
     }
 }
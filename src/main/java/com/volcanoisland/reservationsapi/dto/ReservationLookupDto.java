@@ -0,0 +1,23 @@
+package com.volcanoisland.reservationsapi.dto;
+
+import java.util.List;
+
+public class ReservationLookupDto {
+
+    private List<ReservationLookupResultDto> results;
+
+    public ReservationLookupDto() {
+    }
+
+    public ReservationLookupDto(List<ReservationLookupResultDto> results) {
+        this.results = results;
+    }
+
+    public List<ReservationLookupResultDto> getResults() {
+        return results;
+    }
+
+    public void setResults(List<ReservationLookupResultDto> results) {
+        this.results = results;
+    }
+}
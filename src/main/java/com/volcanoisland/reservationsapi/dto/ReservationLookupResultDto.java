@@ -0,0 +1,41 @@
+package com.volcanoisland.reservationsapi.dto;
+
+public class ReservationLookupResultDto {
+
+    private Long id;
+    private boolean found;
+    private ReservationDto reservation;
+
+    public ReservationLookupResultDto() {
+    }
+
+    public ReservationLookupResultDto(Long id, ReservationDto reservation) {
+        this.id = id;
+        this.found = reservation != null;
+        this.reservation = reservation;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public boolean isFound() {
+        return found;
+    }
+
+    public void setFound(boolean found) {
+        this.found = found;
+    }
+
+    public ReservationDto getReservation() {
+        return reservation;
+    }
+
+    public void setReservation(ReservationDto reservation) {
+        this.reservation = reservation;
+    }
+}
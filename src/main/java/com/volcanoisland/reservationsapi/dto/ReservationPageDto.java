@@ -0,0 +1,33 @@
+package com.volcanoisland.reservationsapi.dto;
+
+import java.util.List;
+
+public class ReservationPageDto {
+
+    private List<ReservationDto> reservations;
+    private String next;
+
+    public ReservationPageDto() {
+    }
+
+    public ReservationPageDto(List<ReservationDto> reservations, String next) {
+        this.reservations = reservations;
+        this.next = next;
+    }
+
+    public List<ReservationDto> getReservations() {
+        return reservations;
+    }
+
+    public void setReservations(List<ReservationDto> reservations) {
+        this.reservations = reservations;
+    }
+
+    public String getNext() {
+        return next;
+    }
+
+    public void setNext(String next) {
+        this.next = next;
+    }
+}
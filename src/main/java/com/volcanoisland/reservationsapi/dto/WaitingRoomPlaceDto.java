@@ -0,0 +1,64 @@
+package com.volcanoisland.reservationsapi.dto;
+
+import java.time.LocalDateTime;
+
+public class WaitingRoomPlaceDto {
+
+    private String token;
+    private long position;
+    private long estimatedWaitSeconds;
+    private boolean admitted;
+    private LocalDateTime expiresAt;
+
+    public WaitingRoomPlaceDto() {
+    }
+
+    public WaitingRoomPlaceDto(String token, long position, long estimatedWaitSeconds, boolean admitted,
+                               LocalDateTime expiresAt) {
+        this.token = token;
+        this.position = position;
+        this.estimatedWaitSeconds = estimatedWaitSeconds;
+        this.admitted = admitted;
+        this.expiresAt = expiresAt;
+    }
+
+    public String getToken() {
+        return token;
+    }
+
+    public void setToken(String token) {
+        this.token = token;
+    }
+
+    public long getPosition() {
+        return position;
+    }
+
+    public void setPosition(long position) {
+        this.position = position;
+    }
+
+    public long getEstimatedWaitSeconds() {
+        return estimatedWaitSeconds;
+    }
+
+    public void setEstimatedWaitSeconds(long estimatedWaitSeconds) {
+        this.estimatedWaitSeconds = estimatedWaitSeconds;
+    }
+
+    public boolean isAdmitted() {
+        return admitted;
+    }
+
+    public void setAdmitted(boolean admitted) {
+        this.admitted = admitted;
+    }
+
+    public LocalDateTime getExpiresAt() {
+        return expiresAt;
+    }
+
+    public void setExpiresAt(LocalDateTime expiresAt) {
+        this.expiresAt = expiresAt;
+    }
+}
@@ -0,0 +1,87 @@
+package com.volcanoisland.reservationsapi.dto;
+
+import com.volcanoisland.reservationsapi.model.WaitlistEntry;
+import com.volcanoisland.reservationsapi.model.WaitlistStatusEnum;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+public class WaitlistEntryDto {
+
+    private Long id;
+    private String guestEmail;
+    private LocalDate arrivalDate;
+    private LocalDate departureDate;
+    private String callbackUrl;
+    private WaitlistStatusEnum status;
+    private LocalDateTime notifiedAt;
+
+    public WaitlistEntryDto() {
+    }
+
+    public WaitlistEntryDto(WaitlistEntry entry) {
+        this.id = entry.getId();
+        this.guestEmail = entry.getGuestEmail();
+        this.arrivalDate = entry.getArrivalDate();
+        this.departureDate = entry.getDepartureDate();
+        this.callbackUrl = entry.getCallbackUrl();
+        this.status = WaitlistStatusEnum.getById(entry.getStatus());
+        this.notifiedAt = entry.getNotifiedAt();
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getGuestEmail() {
+        return guestEmail;
+    }
+
+    public void setGuestEmail(String guestEmail) {
+        this.guestEmail = guestEmail;
+    }
+
+    public LocalDate getArrivalDate() {
+        return arrivalDate;
+    }
+
+    public void setArrivalDate(LocalDate arrivalDate) {
+        this.arrivalDate = arrivalDate;
+    }
+
+    public LocalDate getDepartureDate() {
+        return departureDate;
+    }
+
+    public void setDepartureDate(LocalDate departureDate) {
+        this.departureDate = departureDate;
+    }
+
+    public String getCallbackUrl() {
+        return callbackUrl;
+    }
+
+    public void setCallbackUrl(String callbackUrl) {
+        this.callbackUrl = callbackUrl;
+    }
+
+    public WaitlistStatusEnum getStatus() {
+        return status;
+    }
+
+    public void setStatus(WaitlistStatusEnum status) {
+        this.status = status;
+    }
+
+    public LocalDateTime getNotifiedAt() {
+        return notifiedAt;
+    }
+
+    public void setNotifiedAt(LocalDateTime notifiedAt) {
+        this.notifiedAt = notifiedAt;
+    }
+}
@@ -0,0 +1,67 @@
+package com.volcanoisland.reservationsapi.event;
+
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Published by the ReservationService when nights are taken or freed. Listeners are notified once the
+ * transaction making the change commits.
+ */
+public class CalendarChangedEvent {
+
+    private final List<LocalDate> occupiedNights;
+    private final List<LocalDate> releasedNights;
+
+    public CalendarChangedEvent(List<LocalDate> occupiedNights, List<LocalDate> releasedNights) {
+        this.occupiedNights = occupiedNights;
+        this.releasedNights = releasedNights;
+    }
+
+    /**
+     * Event for the nights between arrival (inclusive) and departure (exclusive) being taken.
+     * @param arrivalDate
+     * @param departureDate
+     * @return CalendarChangedEvent
+     */
+    public static CalendarChangedEvent occupied(LocalDate arrivalDate, LocalDate departureDate) {
+        return new CalendarChangedEvent(nightsBetween(arrivalDate, departureDate), Collections.emptyList());
+    }
+
+    /**
+     * Event for the nights between arrival (inclusive) and departure (exclusive) being freed.
+     * @param arrivalDate
+     * @param departureDate
+     * @return CalendarChangedEvent
+     */
+    public static CalendarChangedEvent released(LocalDate arrivalDate, LocalDate departureDate) {
+        return new CalendarChangedEvent(Collections.emptyList(), nightsBetween(arrivalDate, departureDate));
+    }
+
+    /**
+     * Event for a reservation moving from one period to another.
+     * @param previousArrivalDate
+     * @param previousDepartureDate
+     * @param arrivalDate
+     * @param departureDate
+     * @return CalendarChangedEvent
+     */
+    public static CalendarChangedEvent moved(LocalDate previousArrivalDate, LocalDate previousDepartureDate,
+                                             LocalDate arrivalDate, LocalDate departureDate) {
+        return new CalendarChangedEvent(nightsBetween(arrivalDate, departureDate),
+                nightsBetween(previousArrivalDate, previousDepartureDate));
+    }
+
+    private static List<LocalDate> nightsBetween(LocalDate arrivalDate, LocalDate departureDate) {
+        return arrivalDate.datesUntil(departureDate).collect(Collectors.toList());
+    }
+
+    public List<LocalDate> getOccupiedNights() {
+        return occupiedNights;
+    }
+
+    public List<LocalDate> getReleasedNights() {
+        return releasedNights;
+    }
+}
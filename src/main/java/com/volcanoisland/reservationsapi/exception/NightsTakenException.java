@@ -0,0 +1,24 @@
+package com.volcanoisland.reservationsapi.exception;
+
+/**
+ * Thrown when the database rejects the nights of a booking because another reservation took them after the
+ * availability check, as opposed to the check itself finding them taken.
+ */
+public class NightsTakenException extends UnavailableDatesException {
+
+    public NightsTakenException() {
+        super();
+    }
+
+    public NightsTakenException(Throwable cause) {
+        super(cause);
+    }
+
+    public NightsTakenException(String message) {
+        super(message);
+    }
+
+    public NightsTakenException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,23 @@
+package com.volcanoisland.reservationsapi.exception;
+
+import org.springframework.http.HttpStatus;
+
+public class PreconditionFailedException extends RuntimeException {
+
+
+    public PreconditionFailedException() {
+        super(HttpStatus.PRECONDITION_FAILED.getReasonPhrase());
+    }
+
+    public PreconditionFailedException(Throwable cause) {
+        super(HttpStatus.PRECONDITION_FAILED.getReasonPhrase(), cause);
+    }
+
+    public PreconditionFailedException(String message) {
+        super(message);
+    }
+
+    public PreconditionFailedException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -1,5 +1,6 @@
 package com.volcanoisland.reservationsapi.exception;
 
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -17,8 +18,10 @@ import org.springframework.web.servlet.mvc.method.annotation.ResponseEntityExcep
 
 import javax.validation.ConstraintViolation;
 import javax.validation.ConstraintViolationException;
+import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.stream.Collectors;
 
 @ControllerAdvice
 public class RestExceptionHandler extends ResponseEntityExceptionHandler {
@@ -64,6 +67,7 @@ public class RestExceptionHandler extends ResponseEntityExceptionHandler {
 
     /**
      * Handles UnavailableDatesException, thrown when an attempt to reserve already taken days is made.
+     * When the taken nights are known they are listed as errors.
      *
      * @param ex A UnavailableDatesException instance.
      * @return A ResponseEntity with HTTP status code 409 (Conflict).
@@ -71,10 +75,68 @@ public class RestExceptionHandler extends ResponseEntityExceptionHandler {
     @ExceptionHandler(UnavailableDatesException.class)
     public ResponseEntity<Object> handleUnavailableDatesException(UnavailableDatesException ex, WebRequest request) {
         logger.info("UnavailableDatesException: " + ex.getMessage());
-        ErrorDto errorDto = new ErrorDto(HttpStatus.CONFLICT, "Reservation failed", ex.getMessage());
+        ErrorDto errorDto = ex.getUnavailableNights().isEmpty()
+                ? new ErrorDto(HttpStatus.CONFLICT, "Reservation failed", ex.getMessage())
+                : new ErrorDto(HttpStatus.CONFLICT, ex.getMessage(), ex.getUnavailableNights().stream()
+                        .map(LocalDate::toString).collect(Collectors.toList()));
         return handleExceptionInternal(ex, errorDto, new HttpHeaders(), errorDto.getStatus(), request);
     }
 
+    /**
+     * Handles PreconditionFailedException, thrown when updating a reservation modified since the expected version.
+     *
+     * @param ex A PreconditionFailedException instance.
+     * @return A ResponseEntity with HTTP status code 412.
+     */
+    @ExceptionHandler(PreconditionFailedException.class)
+    public ResponseEntity<Object> handlePreconditionFailedException(PreconditionFailedException ex, WebRequest request) {
+        logger.info("PreconditionFailedException: " + ex.getMessage());
+        ErrorDto errorDto = new ErrorDto(HttpStatus.PRECONDITION_FAILED, ex.getMessage());
+        return handleExceptionInternal(ex, errorDto, new HttpHeaders(), errorDto.getStatus(), request);
+    }
+
+    /**
+     * Handles ServiceUnavailableException, thrown when too many booking operations are pending.
+     *
+     * @param ex A ServiceUnavailableException instance.
+     * @return A ResponseEntity with HTTP status code 503 and a Retry-After header.
+     */
+    @ExceptionHandler(ServiceUnavailableException.class)
+    public ResponseEntity<Object> handleServiceUnavailableException(ServiceUnavailableException ex, WebRequest request) {
+        logger.warn("ServiceUnavailableException: " + ex.getMessage());
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.RETRY_AFTER, "1");
+        ErrorDto errorDto = new ErrorDto(HttpStatus.SERVICE_UNAVAILABLE, ex.getMessage());
+        return handleExceptionInternal(ex, errorDto, headers, errorDto.getStatus(), request);
+    }
+
+    /**
+     * Handles TooManyRequestsException, thrown when a client is over its rate or too many writes are in progress.
+     *
+     * @param ex A TooManyRequestsException instance.
+     * @return A ResponseEntity with HTTP status code 429 and a Retry-After header.
+     */
+    @ExceptionHandler(TooManyRequestsException.class)
+    public ResponseEntity<Object> handleTooManyRequestsException(TooManyRequestsException ex, WebRequest request) {
+        logger.info("TooManyRequestsException: " + ex.getMessage());
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()));
+        ErrorDto errorDto = new ErrorDto(HttpStatus.TOO_MANY_REQUESTS, ex.getMessage());
+        return handleExceptionInternal(ex, errorDto, headers, errorDto.getStatus(), request);
+    }
+
+    /**
+     * Handles DataIntegrityViolationException. Nights already taken by another reservation are raised by the service
+     * as NightsTakenException, so any violation reaching here is a bug.
+     *
+     * @param ex A DataIntegrityViolationException instance.
+     * @return A ResponseEntity with HTTP status code 500.
+     */
+    @ExceptionHandler(DataIntegrityViolationException.class)
+    public ResponseEntity<Object> handleDataIntegrityViolationException(DataIntegrityViolationException ex,
+                                                                        WebRequest request) {
+        return handleGenericException(ex, request);
+    }
 
     /**
      * Handles ConstraintViolationException.
@@ -0,0 +1,22 @@
+package com.volcanoisland.reservationsapi.exception;
+
+import org.springframework.http.HttpStatus;
+
+public class ServiceUnavailableException extends RuntimeException {
+
+    public ServiceUnavailableException() {
+        super(HttpStatus.SERVICE_UNAVAILABLE.getReasonPhrase());
+    }
+
+    public ServiceUnavailableException(Throwable cause) {
+        super(HttpStatus.SERVICE_UNAVAILABLE.getReasonPhrase(), cause);
+    }
+
+    public ServiceUnavailableException(String message) {
+        super(message);
+    }
+
+    public ServiceUnavailableException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,42 @@
+package com.volcanoisland.reservationsapi.exception;
+
+import org.springframework.http.HttpStatus;
+
+public class TooManyRequestsException extends RuntimeException {
+
+    private static final long DEFAULT_RETRY_AFTER_SECONDS = 1;
+
+    private final long retryAfterSeconds;
+
+    public TooManyRequestsException() {
+        super(HttpStatus.TOO_MANY_REQUESTS.getReasonPhrase());
+        this.retryAfterSeconds = DEFAULT_RETRY_AFTER_SECONDS;
+    }
+
+    public TooManyRequestsException(Throwable cause) {
+        super(HttpStatus.TOO_MANY_REQUESTS.getReasonPhrase(), cause);
+        this.retryAfterSeconds = DEFAULT_RETRY_AFTER_SECONDS;
+    }
+
+    public TooManyRequestsException(String message) {
+        super(message);
+        this.retryAfterSeconds = DEFAULT_RETRY_AFTER_SECONDS;
+    }
+
+    public TooManyRequestsException(String message, Throwable cause) {
+        super(message, cause);
+        this.retryAfterSeconds = DEFAULT_RETRY_AFTER_SECONDS;
+    }
+
+    public TooManyRequestsException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    /**
+     * @return Seconds the client should wait before retrying
+     */
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
@@ -1,22 +1,44 @@
 package com.volcanoisland.reservationsapi.exception;
 
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.List;
+
 public class UnavailableDatesException extends RuntimeException {
 
     private static final String UNAVAILABLE_DATE_MESSAGE = "At least one of the requested days is not available";
 
+    private final List<LocalDate> unavailableNights;
+
     public UnavailableDatesException() {
         super(UNAVAILABLE_DATE_MESSAGE);
+        this.unavailableNights = Collections.emptyList();
     }
 
     public UnavailableDatesException(Throwable cause) {
         super(UNAVAILABLE_DATE_MESSAGE, cause);
+        this.unavailableNights = Collections.emptyList();
     }
 
     public UnavailableDatesException(String message) {
         super(message);
+        this.unavailableNights = Collections.emptyList();
     }
 
     public UnavailableDatesException(String message, Throwable cause) {
         super(message, cause);
+        this.unavailableNights = Collections.emptyList();
+    }
+
+    public UnavailableDatesException(List<LocalDate> unavailableNights) {
+        super(UNAVAILABLE_DATE_MESSAGE);
+        this.unavailableNights = unavailableNights;
+    }
+
+    /**
+     * @return The requested nights already taken, when known
+     */
+    public List<LocalDate> getUnavailableNights() {
+        return unavailableNights;
     }
 }
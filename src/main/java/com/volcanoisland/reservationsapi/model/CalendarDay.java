@@ -1,49 +1,43 @@
 package com.volcanoisland.reservationsapi.model;
 
-import org.hibernate.annotations.Type;
-
+import javax.persistence.Column;
 import javax.persistence.Entity;
-import javax.persistence.GeneratedValue;
-import javax.persistence.GenerationType;
 import javax.persistence.Id;
 import javax.validation.constraints.NotNull;
 import java.time.LocalDate;
-import java.util.UUID;
 
 /**
  * Entity used for obtaining days in the availability check query.
+ * Keyed by the epoch day, so that rows can be written in batches without generating ids.
  */
 @Entity
 public class CalendarDay {
 
     @Id
-    @GeneratedValue
-    @Type(type="org.hibernate.type.UUIDCharType")
-    private UUID id;
+    private Long epochDay;
 
     @NotNull
+    @Column(nullable = false, unique = true)
     private LocalDate day;
 
     public CalendarDay() {
     }
 
     public CalendarDay(@NotNull LocalDate day) {
+        this.epochDay = day.toEpochDay();
         this.day = day;
     }
 
+    public Long getEpochDay() {
+        return epochDay;
+    }
+
     public LocalDate getDay() {
         return day;
     }
 
     public void setDay(LocalDate day) {
+        this.epochDay = day.toEpochDay();
         this.day = day;
     }
-
-    public UUID getId() {
-        return id;
-    }
-
-    public void setId(UUID id) {
-        this.id = id;
-    }
 }
@@ -0,0 +1,142 @@
+package com.volcanoisland.reservationsapi.model;
+
+import org.hibernate.annotations.CreationTimestamp;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.Table;
+import javax.validation.constraints.NotBlank;
+import javax.validation.constraints.NotNull;
+import java.time.LocalDateTime;
+
+/**
+ * A notification saved in the same transaction as the change it reports, delivered afterwards by the
+ * OutboxDispatcher, so that no committed change goes unreported.
+ */
+@Entity
+@Table(indexes = @Index(name = "idx_outbox_status_next_attempt", columnList = "status, nextAttemptAt"))
+public class OutboxMessage {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @NotBlank
+    private String topic;
+
+    @NotNull
+    private Long aggregateId;
+
+    // URL the message is posted to, if any
+    private String destination;
+
+    @NotNull
+    @Column(length = 4000)
+    private String payload;
+
+    @NotNull
+    private Integer status;
+
+    private int attempts;
+
+    @NotNull
+    private LocalDateTime nextAttemptAt;
+
+    private LocalDateTime sentAt;
+
+    @CreationTimestamp
+    private LocalDateTime createdAt;
+
+    public OutboxMessage() {
+    }
+
+    public OutboxMessage(@NotNull String topic, @NotNull Long aggregateId, String destination,
+                         @NotNull String payload, @NotNull LocalDateTime nextAttemptAt) {
+        this.topic = topic;
+        this.aggregateId = aggregateId;
+        this.destination = destination;
+        this.payload = payload;
+        this.nextAttemptAt = nextAttemptAt;
+        this.status = OutboxStatusEnum.PENDING.getId();
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getTopic() {
+        return topic;
+    }
+
+    public void setTopic(String topic) {
+        this.topic = topic;
+    }
+
+    public Long getAggregateId() {
+        return aggregateId;
+    }
+
+    public void setAggregateId(Long aggregateId) {
+        this.aggregateId = aggregateId;
+    }
+
+    public String getDestination() {
+        return destination;
+    }
+
+    public void setDestination(String destination) {
+        this.destination = destination;
+    }
+
+    public String getPayload() {
+        return payload;
+    }
+
+    public void setPayload(String payload) {
+        this.payload = payload;
+    }
+
+    public Integer getStatus() {
+        return status;
+    }
+
+    public void setStatus(Integer status) {
+        this.status = status;
+    }
+
+    public int getAttempts() {
+        return attempts;
+    }
+
+    public void setAttempts(int attempts) {
+        this.attempts = attempts;
+    }
+
+    public LocalDateTime getNextAttemptAt() {
+        return nextAttemptAt;
+    }
+
+    public void setNextAttemptAt(LocalDateTime nextAttemptAt) {
+        this.nextAttemptAt = nextAttemptAt;
+    }
+
+    public LocalDateTime getSentAt() {
+        return sentAt;
+    }
+
+    public void setSentAt(LocalDateTime sentAt) {
+        this.sentAt = sentAt;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+}
@@ -0,0 +1,34 @@
+package com.volcanoisland.reservationsapi.model;
+
+public enum OutboxStatusEnum {
+    PENDING(0),
+    SENT(1),
+    FAILED(2);
+
+    Integer id;
+
+    OutboxStatusEnum(Integer id) {
+        this.id = id;
+    }
+
+    /**
+     * Get enum value by it's id.
+     * @param id
+     * @return OutboxStatusEnum
+     */
+    public static OutboxStatusEnum getById(Integer id) {
+        if (id != null) {
+            for (OutboxStatusEnum status : OutboxStatusEnum.values()) {
+                if (status.getId().equals(id)) {
+                    return status;
+                }
+            }
+        }
+
+        return null;
+    }
+
+    public Integer getId() {
+        return id;
+    }
+}
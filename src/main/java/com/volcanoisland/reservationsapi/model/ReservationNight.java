@@ -0,0 +1,74 @@
+package com.volcanoisland.reservationsapi.model;
+
+import org.springframework.data.domain.Persistable;
+
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.PostLoad;
+import javax.persistence.PostPersist;
+import javax.persistence.Table;
+import javax.persistence.Transient;
+import javax.validation.constraints.NotNull;
+import java.time.LocalDate;
+
+/**
+ * A night taken by an active reservation.
+ *
+ * The night is the primary key, so the database itself rejects two reservations taking the same night,
+ * regardless of how many application instances are writing.
+ */
+@Entity
+@Table(indexes = @Index(name = "idx_reservation_night_reservation", columnList = "reservationId"))
+public class ReservationNight implements Persistable<LocalDate> {
+
+    @Id
+    private LocalDate night;
+
+    @NotNull
+    private Long reservationId;
+
+    // Nights are always inserted, never merged over the night of another reservation
+    @Transient
+    private boolean isNew = true;
+
+    public ReservationNight() {
+    }
+
+    public ReservationNight(@NotNull LocalDate night, @NotNull Long reservationId) {
+        this.night = night;
+        this.reservationId = reservationId;
+    }
+
+    @Override
+    public LocalDate getId() {
+        return night;
+    }
+
+    @Override
+    public boolean isNew() {
+        return isNew;
+    }
+
+    @PostLoad
+    @PostPersist
+    void markNotNew() {
+        this.isNew = false;
+    }
+
+    public LocalDate getNight() {
+        return night;
+    }
+
+    public void setNight(LocalDate night) {
+        this.night = night;
+    }
+
+    public Long getReservationId() {
+        return reservationId;
+    }
+
+    public void setReservationId(Long reservationId) {
+        this.reservationId = reservationId;
+    }
+}
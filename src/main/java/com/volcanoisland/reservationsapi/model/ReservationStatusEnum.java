@@ -2,7 +2,9 @@ package com.volcanoisland.reservationsapi.model;
 
 public enum ReservationStatusEnum {
     ACTIVE(0),
-    CANCELLED(1);
+    CANCELLED(1),
+    HELD(2),
+    EXPIRED(3);
 
     Integer id;
 
@@ -30,4 +32,12 @@ public enum ReservationStatusEnum {
     public Integer getId() {
         return id;
     }
+
+    /**
+     * Whether reservations on this status take their nights, making them unavailable to others.
+     * @return boolean
+     */
+    public boolean takesNights() {
+        return this == ACTIVE || this == HELD;
+    }
 }
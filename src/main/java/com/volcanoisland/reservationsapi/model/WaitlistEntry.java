@@ -0,0 +1,120 @@
+package com.volcanoisland.reservationsapi.model;
+
+import org.hibernate.annotations.CreationTimestamp;
+
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.Table;
+import javax.validation.constraints.Email;
+import javax.validation.constraints.NotBlank;
+import javax.validation.constraints.NotNull;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * A guest waiting for the nights of a period to free up, to be notified once they all are.
+ */
+@Entity
+@Table(indexes = @Index(name = "idx_waitlist_status_period", columnList = "status, arrivalDate, departureDate"))
+public class WaitlistEntry {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Email
+    @NotBlank
+    private String guestEmail;
+
+    @NotNull
+    private LocalDate arrivalDate;
+
+    @NotNull
+    private LocalDate departureDate;
+
+    // Optional URL the notification is posted to
+    private String callbackUrl;
+
+    @NotNull
+    private Integer status;
+
+    private LocalDateTime notifiedAt;
+
+    @CreationTimestamp
+    private LocalDateTime createdAt;
+
+    public WaitlistEntry() {
+    }
+
+    public WaitlistEntry(@NotNull String guestEmail, @NotNull LocalDate arrivalDate, @NotNull LocalDate departureDate,
+                         String callbackUrl) {
+        this.guestEmail = guestEmail;
+        this.arrivalDate = arrivalDate;
+        this.departureDate = departureDate;
+        this.callbackUrl = callbackUrl;
+        this.status = WaitlistStatusEnum.WAITING.getId();
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getGuestEmail() {
+        return guestEmail;
+    }
+
+    public void setGuestEmail(String guestEmail) {
+        this.guestEmail = guestEmail;
+    }
+
+    public LocalDate getArrivalDate() {
+        return arrivalDate;
+    }
+
+    public void setArrivalDate(LocalDate arrivalDate) {
+        this.arrivalDate = arrivalDate;
+    }
+
+    public LocalDate getDepartureDate() {
+        return departureDate;
+    }
+
+    public void setDepartureDate(LocalDate departureDate) {
+        this.departureDate = departureDate;
+    }
+
+    public String getCallbackUrl() {
+        return callbackUrl;
+    }
+
+    public void setCallbackUrl(String callbackUrl) {
+        this.callbackUrl = callbackUrl;
+    }
+
+    public Integer getStatus() {
+        return status;
+    }
+
+    public void setStatus(Integer status) {
+        this.status = status;
+    }
+
+    public LocalDateTime getNotifiedAt() {
+        return notifiedAt;
+    }
+
+    public void setNotifiedAt(LocalDateTime notifiedAt) {
+        this.notifiedAt = notifiedAt;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+}
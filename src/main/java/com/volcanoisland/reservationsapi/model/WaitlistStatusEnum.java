@@ -0,0 +1,34 @@
+package com.volcanoisland.reservationsapi.model;
+
+public enum WaitlistStatusEnum {
+    WAITING(0),
+    NOTIFIED(1),
+    CANCELLED(2);
+
+    Integer id;
+
+    WaitlistStatusEnum(Integer id) {
+        this.id = id;
+    }
+
+    /**
+     * Get enum value by it's id.
+     * @param id
+     * @return WaitlistStatusEnum
+     */
+    public static WaitlistStatusEnum getById(Integer id) {
+        if (id != null) {
+            for (WaitlistStatusEnum status : WaitlistStatusEnum.values()) {
+                if (status.getId().equals(id)) {
+                    return status;
+                }
+            }
+        }
+
+        return null;
+    }
+
+    public Integer getId() {
+        return id;
+    }
+}
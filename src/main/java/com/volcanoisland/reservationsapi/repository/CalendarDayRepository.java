@@ -2,9 +2,30 @@ package com.volcanoisland.reservationsapi.repository;
 
 import com.volcanoisland.reservationsapi.model.CalendarDay;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 
 @Repository
 public interface CalendarDayRepository extends JpaRepository<CalendarDay, Long> {
+
+    /**
+     * Find the latest epoch day present on the calendar.
+     * @return The latest epoch day, or null when the calendar is empty
+     */
+    @Query("SELECT MAX(c.epochDay) FROM CalendarDay c")
+    Long findLastEpochDay();
+
+    /**
+     * Delete the calendar days before the given epoch day.
+     * @param epochDay
+     * @return The number of deleted days
+     */
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM CalendarDay c WHERE c.epochDay < :epochDay")
+    int deleteBefore(@Param("epochDay") Long epochDay);
 }
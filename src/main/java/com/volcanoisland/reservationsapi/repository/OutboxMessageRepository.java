@@ -0,0 +1,40 @@
+package com.volcanoisland.reservationsapi.repository;
+
+import com.volcanoisland.reservationsapi.model.OutboxMessage;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface OutboxMessageRepository extends JpaRepository<OutboxMessage, Long> {
+
+    /**
+     * Finds the pending messages due for delivery, oldest first.
+     * @param now
+     * @param pageable
+     * @return The due messages
+     */
+    @Query("SELECT m FROM OutboxMessage m WHERE m.status = 0 AND m.nextAttemptAt <= :now ORDER BY m.nextAttemptAt ASC")
+    List<OutboxMessage> findDue(@Param("now") LocalDateTime now, Pageable pageable);
+
+    /**
+     * Claims a pending message for delivery, unless claimed by another dispatcher since it was found due, postponing
+     * its next attempt until the claim expires.
+     * @param id
+     * @param now
+     * @param claimedUntil
+     * @return 1 if claimed, 0 otherwise
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE OutboxMessage m SET m.nextAttemptAt = :claimedUntil " +
+            "WHERE m.id = :id AND m.status = 0 AND m.nextAttemptAt <= :now")
+    int claim(@Param("id") Long id, @Param("now") LocalDateTime now, @Param("claimedUntil") LocalDateTime claimedUntil);
+}
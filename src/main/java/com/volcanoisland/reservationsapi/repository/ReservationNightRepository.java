@@ -0,0 +1,38 @@
+package com.volcanoisland.reservationsapi.repository;
+
+import com.volcanoisland.reservationsapi.model.ReservationNight;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+
+@Repository
+public interface ReservationNightRepository extends JpaRepository<ReservationNight, LocalDate> {
+
+    List<ReservationNight> findAllByNightBetween(LocalDate periodStart, LocalDate periodEnd);
+
+    List<ReservationNight> findAllByNightGreaterThanEqual(LocalDate night);
+
+    /**
+     * Releases the nights taken by the given reservation.
+     * @param reservationId
+     * @return The number of released nights
+     */
+    @Modifying
+    @Query("DELETE FROM ReservationNight n WHERE n.reservationId = :reservationId")
+    int deleteByReservationId(@Param("reservationId") Long reservationId);
+
+    /**
+     * Releases the nights taken by the given reservations.
+     * @param reservationIds
+     * @return The number of released nights
+     */
+    @Modifying
+    @Query("DELETE FROM ReservationNight n WHERE n.reservationId IN :reservationIds")
+    int deleteByReservationIdIn(@Param("reservationIds") List<Long> reservationIds);
+}
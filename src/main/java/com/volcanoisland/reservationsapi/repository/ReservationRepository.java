@@ -2,60 +2,198 @@ package com.volcanoisland.reservationsapi.repository;
 
 import com.volcanoisland.reservationsapi.model.CalendarDay;
 import com.volcanoisland.reservationsapi.model.Reservation;
+import com.volcanoisland.reservationsapi.model.ReservationStatusEnum;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.QueryHint;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
 import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.QueryHints.HINT_READONLY;
 
 
 @Repository
 public interface ReservationRepository  extends JpaRepository<Reservation, Long> {
 
+    // Active and held reservations, the ones taking their nights. Bound as a parameter on every query filtering by them
+    List<Integer> NIGHT_TAKING_STATUSES = Arrays.stream(ReservationStatusEnum.values())
+            .filter(ReservationStatusEnum::takesNights)
+            .map(ReservationStatusEnum::getId)
+            .collect(Collectors.toList());
+
     Reservation findByid(Long id);
 
     List<Reservation> findAllByGuestEmail(String email);
 
     /**
-     * Find active reservations that overlap with the given date range.
+     * Find the reservations following the given id, in ascending id order, optionally filtered by status and
+     * by overlap with a date range. Only the requested page size plus one row are fetched.
+     * @param afterId
+     * @param status
+     * @param periodStart
+     * @param periodEnd
+     * @param pageable
+     * @return The reservations slice
+     */
+    @Query("SELECT r FROM Reservation r " +
+            "WHERE r.id > :afterId " +
+            "AND (:status IS NULL OR r.status = :status) " +
+            "AND (:periodStart IS NULL OR r.departureDate > :periodStart) " +
+            "AND (:periodEnd IS NULL OR r.arrivalDate < :periodEnd) " +
+            "ORDER BY r.id ASC")
+    Slice<Reservation> findPageAfter(@Param("afterId") Long afterId,
+                                     @Param("status") Integer status,
+                                     @Param("periodStart") LocalDate periodStart,
+                                     @Param("periodEnd") LocalDate periodEnd,
+                                     Pageable pageable);
+
+    /**
+     * Stream all reservations in ascending id order, fetching them from the database in chunks.
+     * Must be consumed within a transaction.
+     * @return The reservations stream
+     */
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "500"), @QueryHint(name = HINT_READONLY, value = "true")})
+    @Query("SELECT r FROM Reservation r ORDER BY r.id ASC")
+    Stream<Reservation> streamAll();
+
+    /**
+     * Find active and held reservations having at least one night on or after the given date.
+     * @param date
+     * @return The active and held reservations
+     */
+    default List<Reservation> findActiveDepartingAfter(LocalDate date) {
+        return this.findDepartingAfter(NIGHT_TAKING_STATUSES, date);
+    }
+
+    @Query("SELECT r FROM Reservation r WHERE r.status IN :statuses AND r.departureDate > :date")
+    List<Reservation> findDepartingAfter(@Param("statuses") List<Integer> statuses, @Param("date") LocalDate date);
+
+    /**
+     * Find active and held reservations that overlap with the given date range, sorted by arrival date.
      * @param periodStart
      * @param periodEnd
-     * @return The overlapping active reservations
+     * @return The overlapping active and held reservations
      */
+    default List<Reservation> findInPeriod(LocalDate periodStart, LocalDate periodEnd) {
+        return this.findInPeriod(NIGHT_TAKING_STATUSES, periodStart, periodEnd);
+    }
+
     @Query("SELECT r FROM Reservation r " +
-            "WHERE r.status = 0 AND :periodEnd > r.arrivalDate AND r.departureDate > :periodStart")
-    List<Reservation> findInPeriod(@Param("periodStart") LocalDate periodStart,
+            "WHERE r.status IN :statuses AND :periodEnd > r.arrivalDate AND r.departureDate > :periodStart " +
+            "ORDER BY r.arrivalDate ASC")
+    List<Reservation> findInPeriod(@Param("statuses") List<Integer> statuses,
+                                   @Param("periodStart") LocalDate periodStart,
                                    @Param("periodEnd") LocalDate periodEnd);
 
 
     /**
-     * Find active reservations that overlap with the given date range excluding that of the provided Id.
+     * Return whether any active or held reservation overlaps with the given date range, fetching at most one row.
+     * @param periodStart
+     * @param periodEnd
+     * @return boolean
+     */
+    default boolean existsInPeriod(LocalDate periodStart, LocalDate periodEnd) {
+        return this.existsByStatusInAndArrivalDateBeforeAndDepartureDateAfter(NIGHT_TAKING_STATUSES, periodEnd, periodStart);
+    }
+
+    /**
+     * Return whether any active or held reservation other than that of the provided Id overlaps with the given
+     * date range, fetching at most one row.
+     * @param periodStart
+     * @param periodEnd
+     * @param excludeId
+     * @return boolean
+     */
+    default boolean existsInPeriodExcluding(LocalDate periodStart, LocalDate periodEnd, Long excludeId) {
+        return this.existsByStatusInAndArrivalDateBeforeAndDepartureDateAfterAndIdNot(NIGHT_TAKING_STATUSES,
+                periodEnd, periodStart, excludeId);
+    }
+
+    boolean existsByStatusInAndArrivalDateBeforeAndDepartureDateAfter(List<Integer> statuses, LocalDate arrivalBefore,
+                                                                      LocalDate departureAfter);
+
+    boolean existsByStatusInAndArrivalDateBeforeAndDepartureDateAfterAndIdNot(List<Integer> statuses, LocalDate arrivalBefore,
+                                                                              LocalDate departureAfter, Long id);
+
+    /**
+     * Find active and held reservations that overlap with the given date range excluding that of the provided Id.
      * @param periodStart
      * @param periodEnd
      * @param excludeId
-     * @return The overlapping active reservations
+     * @return The overlapping active and held reservations
      */
+    default List<Reservation> findInPeriodExcluding(LocalDate periodStart, LocalDate periodEnd, Long excludeId) {
+        return this.findInPeriodExcluding(NIGHT_TAKING_STATUSES, periodStart, periodEnd, excludeId);
+    }
+
     @Query("SELECT r FROM Reservation r " +
-            "WHERE r.status = 0 AND :periodEnd > r.arrivalDate AND r.departureDate > :periodStart AND r.id <> :excludeId")
-    List<Reservation> findInPeriodExcluding(@Param("periodStart") LocalDate periodStart,
+            "WHERE r.status IN :statuses AND :periodEnd > r.arrivalDate AND r.departureDate > :periodStart AND r.id <> :excludeId")
+    List<Reservation> findInPeriodExcluding(@Param("statuses") List<Integer> statuses,
+                                          @Param("periodStart") LocalDate periodStart,
                                           @Param("periodEnd") LocalDate periodEnd,
                                           @Param("excludeId") Long excludeId);
 
     /**
-     * Find days not having an active reservation on the given date range.
+     * Find held reservations expired before the given time, oldest first.
+     * @param now
+     * @param pageable
+     * @return The expired holds
+     */
+    default List<Reservation> findExpiredHolds(LocalDateTime now, Pageable pageable) {
+        return this.findExpiredHolds(ReservationStatusEnum.HELD.getId(), now, pageable);
+    }
+
+    @Query("SELECT r FROM Reservation r WHERE r.status = :held AND r.expiresAt < :now ORDER BY r.expiresAt ASC")
+    List<Reservation> findExpiredHolds(@Param("held") Integer held, @Param("now") LocalDateTime now, Pageable pageable);
+
+    /**
+     * Marks the given held reservations as expired, unless confirmed or cancelled in the meantime.
+     * @param ids
+     * @param now
+     * @return The number of expired holds
+     */
+    default int expireHolds(List<Long> ids, LocalDateTime now) {
+        return this.expireHolds(ReservationStatusEnum.HELD.getId(), ReservationStatusEnum.EXPIRED.getId(), ids, now);
+    }
+
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE Reservation r SET r.status = :expired, r.version = r.version + 1, r.updatedAt = :now " +
+            "WHERE r.id IN :ids AND r.status = :held AND r.expiresAt < :now")
+    int expireHolds(@Param("held") Integer held, @Param("expired") Integer expired, @Param("ids") List<Long> ids,
+                    @Param("now") LocalDateTime now);
+
+    /**
+     * Find days not having an active or held reservation on the given date range, joining against the CalendarDay table.
+     * Only used when the calendar table is enabled, availability is otherwise computed from the reservations.
      * @param periodStart
      * @param periodEnd
      * @return The available days
      */
+    default List<CalendarDay> findAvailableDays(LocalDate periodStart, LocalDate periodEnd) {
+        return this.findAvailableDays(NIGHT_TAKING_STATUSES, periodStart, periodEnd);
+    }
+
     @Query("SELECT c FROM CalendarDay c " +
-            "LEFT JOIN Reservation r ON c.day >= r.arrivalDate " +
+            "LEFT JOIN Reservation r ON r.status IN :statuses " +
+            "                      AND c.day >= r.arrivalDate " +
             "                      AND c.day < r.departureDate " +
             "WHERE c.day <= :periodEnd AND c.day >= :periodStart " +
-            "AND (r.id IS NULL OR r.status = 1) " +
+            "AND r.id IS NULL " +
             "ORDER BY c.day ASC")
-    List<CalendarDay> findAvailableDays(@Param("periodStart") LocalDate periodStart,
+    List<CalendarDay> findAvailableDays(@Param("statuses") List<Integer> statuses,
+                                        @Param("periodStart") LocalDate periodStart,
                                         @Param("periodEnd") LocalDate periodEnd);
 
 
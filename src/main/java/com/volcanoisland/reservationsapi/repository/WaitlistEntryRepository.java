@@ -0,0 +1,36 @@
+package com.volcanoisland.reservationsapi.repository;
+
+import com.volcanoisland.reservationsapi.model.WaitlistEntry;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface WaitlistEntryRepository extends JpaRepository<WaitlistEntry, Long> {
+
+    /**
+     * Finds the waiting entries overlapping the given period following the given id, in ascending id order.
+     * Waitlisted periods are short, so only arrivals from earliestArrival are scanned on the status and period index.
+     * @param afterId
+     * @param earliestArrival Earliest arrival of an entry overlapping the period
+     * @param periodStart
+     * @param periodEnd
+     * @param pageable
+     * @return The entries, first come first
+     */
+    @Query("SELECT w FROM WaitlistEntry w " +
+            "WHERE w.status = 0 AND w.id > :afterId " +
+            "AND w.arrivalDate >= :earliestArrival AND w.arrivalDate < :periodEnd " +
+            "AND w.departureDate > :periodStart " +
+            "ORDER BY w.id ASC")
+    List<WaitlistEntry> findWaitingOverlapping(@Param("afterId") Long afterId,
+                                               @Param("earliestArrival") LocalDate earliestArrival,
+                                               @Param("periodStart") LocalDate periodStart,
+                                               @Param("periodEnd") LocalDate periodEnd,
+                                               Pageable pageable);
+}
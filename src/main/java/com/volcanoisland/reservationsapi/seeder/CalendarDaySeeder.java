@@ -1,45 +1,75 @@
 package com.volcanoisland.reservationsapi.seeder;
 
-import com.volcanoisland.reservationsapi.model.CalendarDay;
 import com.volcanoisland.reservationsapi.repository.CalendarDayRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.boot.context.event.ApplicationReadyEvent;
-import org.springframework.context.event.EventListener;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
+import java.sql.Date;
 import java.time.LocalDate;
 import java.util.List;
 import java.util.stream.Collectors;
 
 @Component
+@ConditionalOnProperty("reservations.availability.calendar-table.enabled")
 public class CalendarDaySeeder {
 
+    private static final String INSERT_DAY = "INSERT INTO CalendarDay (epochDay, day) VALUES (?, ?)";
+    private static final int BATCH_SIZE = 500;
+
     @Autowired
     private CalendarDayRepository calendarDayRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Value("${reservations.availability.calendar-table.horizon-years:5}")
+    private int horizonYears;
     private static final Logger LOGGER = LoggerFactory.getLogger(CalendarDaySeeder.class);
 
     /**
-     * Initializes the CalendarDay table with future dates so that
-     * it can be used to build availability data.
-     * @param event
+     * Keeps the CalendarDay table covering from today up to the configured horizon.
+     * Runs on the scheduler thread right after startup and periodically afterwards, so that
+     * the horizon rolls forward without blocking the application startup.
      */
-    @EventListener(ApplicationReadyEvent.class)
-    public void seedCalendarTable(ApplicationReadyEvent event) {
-        if (this.calendarDayRepository.count() > 0) {
-            return;
-        }
+    @Scheduled(fixedDelayString = "${reservations.availability.calendar-table.refresh-interval:PT1H}")
+    public void refreshCalendarTable() {
+        this.refreshCalendarTable(LocalDate.now());
+    }
 
-        LOGGER.info("Seeding calendar table with future dates");
+    /**
+     * Deletes the days before the given date and adds the days missing up to the horizon.
+     * Only the days after the latest existing one are written, usually just one.
+     * @param today
+     */
+    public void refreshCalendarTable(LocalDate today) {
+        int pruned = this.calendarDayRepository.deleteBefore(today.toEpochDay());
 
-        LocalDate startDate = LocalDate.now();
-        LocalDate endDate = LocalDate.now().plusYears(5);
+        Long lastEpochDay = this.calendarDayRepository.findLastEpochDay();
+        LocalDate startDate = lastEpochDay == null || lastEpochDay < today.toEpochDay()
+                ? today : LocalDate.ofEpochDay(lastEpochDay + 1);
+        LocalDate endDate = today.plusYears(this.horizonYears);
+        if (!startDate.isBefore(endDate)) {
+            return;
+        }
 
-        List<CalendarDay> calendarDays = startDate.datesUntil(endDate).map(d -> new CalendarDay(d))
+        List<Object[]> days = startDate.datesUntil(endDate)
+                .map(day -> new Object[]{day.toEpochDay(), Date.valueOf(day)})
                 .collect(Collectors.toList());
-
-        this.calendarDayRepository.saveAll(calendarDays);
-        LOGGER.info("Seeding finished. Added {} days starting from today", calendarDays.size());
+        try {
+            for (int i = 0; i < days.size(); i += BATCH_SIZE) {
+                this.jdbcTemplate.batchUpdate(INSERT_DAY, days.subList(i, Math.min(i + BATCH_SIZE, days.size())));
+            }
+        } catch (DuplicateKeyException e) {
+            // Another instance extended the calendar at the same time
+            LOGGER.debug("Calendar table already extended up to {}", endDate);
+            return;
+        }
+        LOGGER.info("Calendar table refreshed. Added {} days starting from {}, removed {} past days",
+                days.size(), startDate, pruned);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,82 @@
+package com.volcanoisland.reservationsapi.seeder;
+
+import com.volcanoisland.reservationsapi.model.Reservation;
+import com.volcanoisland.reservationsapi.model.ReservationNight;
+import com.volcanoisland.reservationsapi.repository.ReservationNightRepository;
+import com.volcanoisland.reservationsapi.repository.ReservationRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+@Component
+public class ReservationNightSeeder {
+
+    @Autowired
+    private ReservationRepository reservationRepository;
+    @Autowired
+    private ReservationNightRepository reservationNightRepository;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    private static final Logger LOGGER = LoggerFactory.getLogger(ReservationNightSeeder.class);
+
+    /**
+     * Adds the missing nights of the upcoming active reservations, created before
+     * the ReservationNight table existed.
+     * The nights are inserted one reservation per transaction, skipping the reservations whose nights were inserted
+     * in the meantime, so that instances starting at the same time do not fail on each other's nights.
+     * @param event
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void seedReservationNightTable(ApplicationReadyEvent event) {
+        LocalDate today = LocalDate.now();
+        List<Reservation> reservations = this.reservationRepository.findActiveDepartingAfter(today);
+        if (reservations.isEmpty()) {
+            return;
+        }
+
+        LocalDate lastNight = reservations.stream().map(Reservation::getDepartureDate)
+                .max(LocalDate::compareTo).get().minusDays(1);
+        Set<LocalDate> takenNights = this.reservationNightRepository.findAllByNightBetween(today, lastNight)
+                .stream().map(ReservationNight::getNight)
+                .collect(Collectors.toSet());
+
+        Map<Long, List<ReservationNight>> missingNights = new LinkedHashMap<>();
+        for (Reservation reservation : reservations) {
+            reservation.getArrivalDate().datesUntil(reservation.getDepartureDate())
+                    .filter(night -> !night.isBefore(today) && takenNights.add(night))
+                    .forEach(night -> missingNights.computeIfAbsent(reservation.getId(), id -> new ArrayList<>())
+                            .add(new ReservationNight(night, reservation.getId())));
+        }
+        if (missingNights.isEmpty()) {
+            return;
+        }
+
+        LOGGER.info("Seeding reservation night table with the nights of {} existing reservations", missingNights.size());
+        TransactionTemplate transactionTemplate = new TransactionTemplate(this.transactionManager);
+        missingNights.forEach((reservationId, nights) -> {
+            try {
+                transactionTemplate.execute(status -> {
+                    this.reservationNightRepository.saveAll(nights);
+                    this.reservationNightRepository.flush();
+                    return null;
+                });
+            } catch (DataIntegrityViolationException e) {
+                LOGGER.info("Nights of reservation {} already seeded", reservationId);
+            }
+        });
+    }
+}
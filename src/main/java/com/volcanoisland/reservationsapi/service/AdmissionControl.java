@@ -0,0 +1,148 @@
+package com.volcanoisland.reservationsapi.service;
+
+import com.volcanoisland.reservationsapi.exception.TooManyRequestsException;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Optional admission control for the write endpoints, failing fast with TooManyRequestsException instead of queuing
+ * requests behind the night locks and the connection pool.
+ *
+ * Requests are rate limited with a token bucket per client address and per guest email, and the number of write
+ * requests in progress is bounded. Buckets are kept per application instance, up to max-keys of them, forgetting
+ * the full ones first since a full bucket behaves as a new one.
+ *
+ * Meters:
+ * - reservations.admission.rejected: counter of the rejected requests per reason
+ * - reservations.admission.in-flight: gauge of the write requests in progress
+ */
+@Component
+public class AdmissionControl {
+
+    public static final String CLIENT_RATE = "client_rate";
+    public static final String GUEST_RATE = "guest_rate";
+    public static final String CONCURRENCY = "concurrency";
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${reservations.admission.enabled:false}")
+    private boolean enabled;
+    @Value("${reservations.admission.max-concurrent:20}")
+    private int maxConcurrent;
+    @Value("${reservations.admission.client.burst:20}")
+    private double clientBurst;
+    @Value("${reservations.admission.client.rate:10}")
+    private double clientRate;
+    @Value("${reservations.admission.guest.burst:5}")
+    private double guestBurst;
+    @Value("${reservations.admission.guest.rate:1}")
+    private double guestRate;
+    @Value("${reservations.admission.max-keys:10000}")
+    private int maxKeys;
+
+    private final Map<String, TokenBucket> buckets = new ConcurrentHashMap<>();
+    private Semaphore inFlight;
+
+    @PostConstruct
+    public void start() {
+        this.inFlight = new Semaphore(this.maxConcurrent);
+        this.meterRegistry.gauge("reservations.admission.in-flight", this,
+                admission -> admission.maxConcurrent - admission.inFlight.availablePermits());
+    }
+
+    public boolean isEnabled() {
+        return this.enabled;
+    }
+
+    /**
+     * Admits a write request from a client, taking one of the in progress slots.
+     * @param clientAddress
+     * @return The permit of the admitted request, to be released by closing it
+     * @throws TooManyRequestsException if the client is over its rate or no slot is free
+     */
+    public Permit enter(String clientAddress) {
+        this.consume("client:" + clientAddress, this.clientBurst, this.clientRate, CLIENT_RATE);
+        if (!this.inFlight.tryAcquire()) {
+            this.reject(CONCURRENCY);
+            throw new TooManyRequestsException("Too many booking operations in progress, please retry later");
+        }
+        return new Permit(this.inFlight);
+    }
+
+    /**
+     * Checks the rate of the write requests made on behalf of a guest.
+     * @param guestEmail
+     * @throws TooManyRequestsException if the guest is over its rate
+     */
+    public void checkGuest(String guestEmail) {
+        if (this.enabled && guestEmail != null) {
+            this.consume("guest:" + guestEmail.trim().toLowerCase(Locale.ROOT), this.guestBurst, this.guestRate,
+                    GUEST_RATE);
+        }
+    }
+
+    private void consume(String key, double burst, double rate, String reason) {
+        long now = System.nanoTime();
+        TokenBucket bucket = this.buckets.get(key);
+        if (bucket == null) {
+            if (this.buckets.size() >= this.maxKeys) {
+                this.evict(now);
+            }
+            bucket = this.buckets.computeIfAbsent(key, k -> new TokenBucket(burst, rate, now));
+        }
+        long waitNanos = bucket.tryConsume(now);
+        if (waitNanos > 0) {
+            this.reject(reason);
+            throw new TooManyRequestsException("Too many requests, please retry later",
+                    Math.max(1, (long) Math.ceil(waitNanos / (double) TimeUnit.SECONDS.toNanos(1))));
+        }
+    }
+
+    /**
+     * Forgets the full buckets, then any bucket while still over the maximum.
+     */
+    private void evict(long now) {
+        this.buckets.values().removeIf(bucket -> bucket.isFull(now));
+        Iterator<String> keys = this.buckets.keySet().iterator();
+        while (this.buckets.size() >= this.maxKeys && keys.hasNext()) {
+            keys.next();
+            keys.remove();
+        }
+    }
+
+    private void reject(String reason) {
+        this.meterRegistry.counter("reservations.admission.rejected", "reason", reason).increment();
+    }
+
+    /**
+     * An in progress slot, released when closed.
+     */
+    public static final class Permit implements AutoCloseable {
+
+        private final Semaphore semaphore;
+        private boolean released;
+
+        private Permit(Semaphore semaphore) {
+            this.semaphore = semaphore;
+        }
+
+        @Override
+        public void close() {
+            if (!this.released) {
+                this.released = true;
+                this.semaphore.release();
+            }
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.volcanoisland.reservationsapi.service;
+
+import com.volcanoisland.reservationsapi.model.Reservation;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Computes available days from the intervals of the active reservations, without a calendar table.
+ */
+public final class AvailabilityCalculator {
+
+    private AvailabilityCalculator() {
+    }
+
+    /**
+     * Returns the days from the given range (both ends inclusive) not taken by any of the reservations.
+     * Reservations are merged in a single pass, so they must be sorted by arrival date.
+     * @param reservations Active reservations overlapping the range, sorted by arrival date
+     * @param periodStart
+     * @param periodEnd
+     * @return List<LocalDate>
+     */
+    public static List<LocalDate> findAvailableDays(List<Reservation> reservations, LocalDate periodStart, LocalDate periodEnd) {
+        List<LocalDate> availableDays = new ArrayList<>();
+        LocalDate day = periodStart;
+        for (Reservation reservation : reservations) {
+            for (; day.isBefore(reservation.getArrivalDate()) && !day.isAfter(periodEnd); day = day.plusDays(1)) {
+                availableDays.add(day);
+            }
+            if (reservation.getDepartureDate().isAfter(day)) {
+                day = reservation.getDepartureDate();
+            }
+        }
+        for (; !day.isAfter(periodEnd); day = day.plusDays(1)) {
+            availableDays.add(day);
+        }
+        return availableDays;
+    }
+}
@@ -0,0 +1,35 @@
+package com.volcanoisland.reservationsapi.service;
+
+import org.springframework.util.DigestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Builds the entity tag of an availability response from its content, so that clients can revalidate cached
+ * availability without it being sent again while it does not change.
+ *
+ * The tag depends only on the range and the available days, so every application instance hands out the same tag
+ * for the same availability and a different one as soon as it changes, whichever instance made the change.
+ */
+public final class AvailabilityETag {
+
+    private AvailabilityETag() {
+    }
+
+    /**
+     * Builds the entity tag identifying the given availability.
+     * @param periodStart
+     * @param periodEnd
+     * @param availableDays
+     * @return String
+     */
+    public static String of(LocalDate periodStart, LocalDate periodEnd, List<LocalDate> availableDays) {
+        StringBuilder content = new StringBuilder().append(periodStart).append('/').append(periodEnd);
+        for (LocalDate day : availableDays) {
+            content.append(',').append(day);
+        }
+        return "\"" + DigestUtils.md5DigestAsHex(content.toString().getBytes(StandardCharsets.UTF_8)) + "\"";
+    }
+}
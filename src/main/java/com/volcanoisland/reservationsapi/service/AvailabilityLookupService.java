@@ -0,0 +1,77 @@
+package com.volcanoisland.reservationsapi.service;
+
+import com.volcanoisland.reservationsapi.exception.ServiceUnavailableException;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Looks up availability without blocking the calling thread on the database.
+ *
+ * Lookups answered by the occupancy index are completed right away, since they never touch the database. The rest
+ * run on a small fixed pool, so that at most that many connections are used for availability however many clients
+ * are polling, and the servlet threads are released while the query runs.
+ */
+@Service
+public class AvailabilityLookupService {
+
+    @Autowired
+    private ReservationService reservationService;
+    @Autowired
+    private OccupancyIndex occupancyIndex;
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${reservations.availability.async.threads:4}")
+    private int threads;
+    @Value("${reservations.availability.async.queue-capacity:1000}")
+    private int queueCapacity;
+
+    private ThreadPoolExecutor executor;
+
+    @PostConstruct
+    public void start() {
+        this.executor = new ThreadPoolExecutor(this.threads, this.threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(this.queueCapacity), new CustomizableThreadFactory("availability-"));
+        this.meterRegistry.gaugeCollectionSize("reservations.availability.queue", Collections.emptyList(),
+                this.executor.getQueue());
+    }
+
+    @PreDestroy
+    public void stop() {
+        this.executor.shutdown();
+    }
+
+    /**
+     * Fetches the days from the given range in which the campsite is available for reservation.
+     * @param periodStart
+     * @param periodEnd
+     * @return A future completed with the available days
+     */
+    public CompletableFuture<List<LocalDate>> findAvailableDays(LocalDate periodStart, LocalDate periodEnd) {
+        // Checked before queuing, so that invalid ranges are rejected right away
+        this.reservationService.validateAvailabilityPeriod(periodStart, periodEnd);
+        if (this.occupancyIndex.covers(periodStart)) {
+            return CompletableFuture.completedFuture(this.reservationService.findAvailableDays(periodStart, periodEnd));
+        }
+        try {
+            return CompletableFuture.supplyAsync(
+                    () -> this.reservationService.findAvailableDays(periodStart, periodEnd), this.executor);
+        } catch (RejectedExecutionException e) {
+            throw new ServiceUnavailableException("Too many pending availability lookups, please retry later", e);
+        }
+    }
+}
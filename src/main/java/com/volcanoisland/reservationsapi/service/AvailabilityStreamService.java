@@ -0,0 +1,308 @@
+package com.volcanoisland.reservationsapi.service;
+
+import com.volcanoisland.reservationsapi.dto.AvailabilityChangeDto;
+import com.volcanoisland.reservationsapi.event.CalendarChangedEvent;
+import com.volcanoisland.reservationsapi.exception.ServiceUnavailableException;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Streams the committed changes to the taken nights as Server-Sent Events.
+ *
+ * Every change gets a sequence number, sent as the event ID, and the latest changes are kept so that clients
+ * reconnecting with a Last-Event-ID get the ones they missed. Clients too far behind, or reconnecting after a restart,
+ * get a reset event and should look up availability again.
+ *
+ * Only the changes committed on this instance are streamed. When running several instances, clients have to look up
+ * availability again on reconnecting to a different one, as sequence numbers are not shared either.
+ *
+ * Each connection has a bounded queue of pending events. Writes to the client block, so each connection with pending
+ * events is sent on its own thread, and a connection whose write takes longer than the send timeout is dropped
+ * rather than holding events for the others. Its thread is released once the container gives up the write, after the
+ * server connection timeout. Connections whose queue fills up are closed rather than buffering without limit, and
+ * are expected to reconnect and resume.
+ *
+ * Every connection holds one of max-connections slots from the moment it is opened until its emitter is done and no
+ * write of it is blocked any more, so dropped connections keep counting while their thread is held. Senders run on a
+ * pool of at most max-connections threads.
+ */
+@Service
+public class AvailabilityStreamService {
+
+    public static final String CHANGE_EVENT = "availability";
+    public static final String RESET_EVENT = "reset";
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(AvailabilityStreamService.class);
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${reservations.availability.stream.max-connections:1000}")
+    private int maxConnections;
+    @Value("${reservations.availability.stream.replay-size:1000}")
+    private int replaySize;
+    @Value("${reservations.availability.stream.queue-size:100}")
+    private int queueSize;
+    @Value("${reservations.availability.stream.send-timeout:PT5S}")
+    private Duration sendTimeout;
+    @Value("${reservations.availability.stream.timeout:PT30M}")
+    private Duration timeout;
+
+    // Starts from the startup time, so that IDs handed out before a restart are not resumed from
+    private final long firstSequence = System.currentTimeMillis();
+    private long lastSequence = firstSequence;
+    private final Deque<AvailabilityChangeDto> replay = new ArrayDeque<>();
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private Semaphore connections;
+    private ThreadPoolExecutor sender;
+
+    @PostConstruct
+    public void start() {
+        this.connections = new Semaphore(this.maxConnections);
+        this.sender = new ThreadPoolExecutor(0, this.maxConnections, 60L, TimeUnit.SECONDS, new SynchronousQueue<>(),
+                new CustomizableThreadFactory("availability-stream-"));
+        this.meterRegistry.gaugeCollectionSize("reservations.availability.stream.connections", Collections.emptyList(),
+                this.subscribers);
+    }
+
+    @PreDestroy
+    public void stop() {
+        this.subscribers.forEach(subscriber -> subscriber.emitter.complete());
+        this.sender.shutdown();
+    }
+
+    /**
+     * Opens a stream of availability changes.
+     * @param lastEventId The last sequence received by the client, to resume after it, or null
+     * @return SseEmitter
+     */
+    public SseEmitter subscribe(Long lastEventId) {
+        if (!this.connections.tryAcquire()) {
+            throw new ServiceUnavailableException("Too many availability streams open, please retry later");
+        }
+        Subscriber subscriber = new Subscriber(new SseEmitter(this.timeout.toMillis()), this.queueSize);
+        subscriber.emitter.onCompletion(() -> this.finish(subscriber));
+        subscriber.emitter.onTimeout(() -> this.finish(subscriber));
+        subscriber.emitter.onError(e -> this.finish(subscriber));
+
+        this.lock.lock();
+        try {
+            if (lastEventId != null) {
+                this.enqueueReplay(subscriber, lastEventId);
+            }
+            this.subscribers.add(subscriber);
+        } finally {
+            this.lock.unlock();
+        }
+        this.schedule(subscriber);
+        return subscriber.emitter;
+    }
+
+    /**
+     * Streams a change once the occupancy index reflects it.
+     * @param event
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    @Order(2)
+    public void onCalendarChanged(CalendarChangedEvent event) {
+        this.lock.lock();
+        try {
+            AvailabilityChangeDto change = new AvailabilityChangeDto(++this.lastSequence,
+                    event.getOccupiedNights(), event.getReleasedNights());
+            this.replay.addLast(change);
+            if (this.replay.size() > this.replaySize) {
+                this.replay.removeFirst();
+            }
+            this.subscribers.forEach(subscriber -> this.enqueue(subscriber, changeEvent(change)));
+        } finally {
+            this.lock.unlock();
+        }
+        this.subscribers.forEach(this::schedule);
+    }
+
+    /**
+     * Sends a comment on every stream, so that connections closed by the client are detected and released.
+     */
+    @Scheduled(fixedDelayString = "${reservations.availability.stream.heartbeat-interval:PT15S}")
+    public void sendHeartbeat() {
+        this.subscribers.forEach(subscriber -> {
+            this.enqueue(subscriber, SseEmitter.event().comment("heartbeat"));
+            this.schedule(subscriber);
+        });
+    }
+
+    /**
+     * Drops the connections whose write has been blocked for longer than the send timeout. Their events are discarded
+     * and the connection is completed once the blocked write returns or fails.
+     */
+    @Scheduled(fixedDelayString = "${reservations.availability.stream.send-timeout:PT5S}")
+    public void dropStalledStreams() {
+        final long now = System.nanoTime();
+        this.subscribers.forEach(subscriber -> {
+            long sendStarted = subscriber.sendStarted;
+            if (sendStarted != 0 && now - sendStarted > this.sendTimeout.toNanos()) {
+                LOGGER.info("Dropping availability stream blocked on a write for more than {}", this.sendTimeout);
+                this.close(subscriber);
+            }
+        });
+    }
+
+    /**
+     * Queues the changes following the given sequence, or a reset event if they are no longer kept.
+     * Must be called holding the lock.
+     */
+    private void enqueueReplay(Subscriber subscriber, long lastEventId) {
+        long oldestKept = this.replay.isEmpty() ? this.lastSequence + 1 : this.replay.getFirst().getSequence();
+        if (lastEventId < this.firstSequence || lastEventId > this.lastSequence || lastEventId < oldestKept - 1
+                || this.lastSequence - lastEventId > this.queueSize) {
+            this.enqueue(subscriber, SseEmitter.event().name(RESET_EVENT).id(String.valueOf(this.lastSequence))
+                    .data(this.lastSequence));
+            return;
+        }
+        this.replay.stream().filter(change -> change.getSequence() > lastEventId)
+                .forEach(change -> this.enqueue(subscriber, changeEvent(change)));
+    }
+
+    private void enqueue(Subscriber subscriber, SseEmitter.SseEventBuilder event) {
+        if (!subscriber.events.offer(event)) {
+            LOGGER.info("Closing availability stream falling behind by more than {} events", this.queueSize);
+            this.close(subscriber);
+            this.schedule(subscriber);
+        }
+    }
+
+    /**
+     * Stops streaming to a subscriber, discarding its pending events. The emitter is completed by its sender.
+     */
+    private void close(Subscriber subscriber) {
+        this.subscribers.remove(subscriber);
+        subscriber.closing = true;
+        subscriber.events.clear();
+    }
+
+    /**
+     * Stops streaming to a subscriber whose emitter completed, timed out or failed. Its slot is released right away
+     * unless a write is in progress, in which case the sender releases it once the write returns.
+     */
+    private void finish(Subscriber subscriber) {
+        this.close(subscriber);
+        subscriber.completed = true;
+        if (!subscriber.sending.get()) {
+            this.release(subscriber);
+        }
+    }
+
+    /**
+     * Gives the slot of a subscriber back, once only.
+     */
+    private void release(Subscriber subscriber) {
+        if (subscriber.released.compareAndSet(false, true)) {
+            this.connections.release();
+        }
+    }
+
+    /**
+     * Sends the queued events of a subscriber on a sender thread of its own, unless already being sent.
+     * Subscribers no sender thread is left for are closed.
+     */
+    private void schedule(Subscriber subscriber) {
+        if (subscriber.completed || !subscriber.sending.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            this.sender.execute(() -> this.send(subscriber));
+        } catch (RejectedExecutionException e) {
+            LOGGER.warn("Closing availability stream, no sender thread available");
+            this.close(subscriber);
+            subscriber.completed = true;
+            subscriber.sending.set(false);
+            subscriber.emitter.complete();
+            this.release(subscriber);
+        }
+    }
+
+    /**
+     * Sends the queued events of a subscriber until none is left, completing its emitter if it is being closed.
+     * Must be called holding the sending flag of the subscriber.
+     */
+    private void send(Subscriber subscriber) {
+        do {
+            try {
+                SseEmitter.SseEventBuilder event;
+                while (!subscriber.closing && (event = subscriber.events.poll()) != null) {
+                    subscriber.sendStarted = System.nanoTime();
+                    subscriber.emitter.send(event);
+                    subscriber.sendStarted = 0;
+                }
+                if (subscriber.closing && !subscriber.completed) {
+                    subscriber.completed = true;
+                    subscriber.emitter.complete();
+                }
+            } catch (IOException | IllegalStateException e) {
+                // The client went away, the container completes the request on its own
+                this.subscribers.remove(subscriber);
+                subscriber.completed = true;
+            } finally {
+                subscriber.sendStarted = 0;
+                subscriber.sending.set(false);
+            }
+            if (subscriber.completed) {
+                // No write of this subscriber is blocked any more
+                this.release(subscriber);
+                return;
+            }
+        } while ((!subscriber.events.isEmpty() || subscriber.closing) && subscriber.sending.compareAndSet(false, true));
+    }
+
+    private static SseEmitter.SseEventBuilder changeEvent(AvailabilityChangeDto change) {
+        return SseEmitter.event().name(CHANGE_EVENT).id(String.valueOf(change.getSequence()))
+                .data(change, MediaType.APPLICATION_JSON);
+    }
+
+    private static class Subscriber {
+
+        private final SseEmitter emitter;
+        private final BlockingQueue<SseEmitter.SseEventBuilder> events;
+        private final AtomicBoolean sending = new AtomicBoolean();
+        private final AtomicBoolean released = new AtomicBoolean();
+        // Start of the write in progress, as System.nanoTime(), or 0 when not writing
+        private volatile long sendStarted;
+        private volatile boolean closing;
+        private volatile boolean completed;
+
+        Subscriber(SseEmitter emitter, int queueSize) {
+            this.emitter = emitter;
+            this.events = new ArrayBlockingQueue<>(queueSize);
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.volcanoisland.reservationsapi.service;
+
+import com.volcanoisland.reservationsapi.dto.BatchItemStatusEnum;
+import com.volcanoisland.reservationsapi.model.Reservation;
+
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Outcome of a single reservation of a batch.
+ */
+public class BatchItemResult {
+
+    private BatchItemStatusEnum status;
+    private Reservation reservation;
+    private List<String> errors;
+
+    private BatchItemResult(BatchItemStatusEnum status, Reservation reservation, List<String> errors) {
+        this.status = status;
+        this.reservation = reservation;
+        this.errors = errors;
+    }
+
+    public static BatchItemResult created(Reservation reservation) {
+        return new BatchItemResult(BatchItemStatusEnum.CREATED, reservation, Collections.emptyList());
+    }
+
+    public static BatchItemResult conflict(List<LocalDate> unavailableNights) {
+        return new BatchItemResult(BatchItemStatusEnum.CONFLICT, null,
+                Collections.singletonList("Unavailable nights: " + unavailableNights));
+    }
+
+    public static BatchItemResult invalid(List<String> errors) {
+        return new BatchItemResult(BatchItemStatusEnum.INVALID, null, errors);
+    }
+
+    public static BatchItemResult notCreated() {
+        return new BatchItemResult(BatchItemStatusEnum.NOT_CREATED, null, Collections.emptyList());
+    }
+
+    public BatchItemStatusEnum getStatus() {
+        return status;
+    }
+
+    public Reservation getReservation() {
+        return reservation;
+    }
+
+    public List<String> getErrors() {
+        return errors;
+    }
+}
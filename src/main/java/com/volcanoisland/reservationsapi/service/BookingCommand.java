@@ -0,0 +1,80 @@
+package com.volcanoisland.reservationsapi.service;
+
+import com.volcanoisland.reservationsapi.model.Reservation;
+
+import java.time.LocalDate;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+/**
+ * A create, update or cancel operation queued on the BookingSequencer, completed once its outcome is committed.
+ */
+public class BookingCommand {
+
+    public enum Type {
+        CREATE,
+        UPDATE,
+        CANCEL
+    }
+
+    private final String id = UUID.randomUUID().toString();
+    private final Type type;
+    private final Long reservationId;
+    private final LocalDate arrivalDate;
+    private final LocalDate departureDate;
+    private final Long expectedVersion;
+    private final Supplier<Reservation> action;
+    private final CompletableFuture<Reservation> result = new CompletableFuture<>();
+
+    BookingCommand(Type type, Long reservationId, LocalDate arrivalDate, LocalDate departureDate,
+                   Long expectedVersion, Supplier<Reservation> action) {
+        this.type = type;
+        this.reservationId = reservationId;
+        this.arrivalDate = arrivalDate;
+        this.departureDate = departureDate;
+        this.expectedVersion = expectedVersion;
+        this.action = action;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    /**
+     * @return The Id of the updated or cancelled reservation, null for creations
+     */
+    public Long getReservationId() {
+        return reservationId;
+    }
+
+    /**
+     * @return The arrival date the command books, null if it does not book any night
+     */
+    public LocalDate getArrivalDate() {
+        return arrivalDate;
+    }
+
+    public LocalDate getDepartureDate() {
+        return departureDate;
+    }
+
+    /**
+     * @return The version the updated reservation is expected to have, null if not checked
+     */
+    public Long getExpectedVersion() {
+        return expectedVersion;
+    }
+
+    public CompletableFuture<Reservation> getResult() {
+        return result;
+    }
+
+    Supplier<Reservation> getAction() {
+        return action;
+    }
+}
@@ -0,0 +1,312 @@
+package com.volcanoisland.reservationsapi.service;
+
+import com.volcanoisland.reservationsapi.controller.request.CreateReservationRequest;
+import com.volcanoisland.reservationsapi.controller.request.UpdateReservationRequest;
+import com.volcanoisland.reservationsapi.exception.MethodNotAllowedException;
+import com.volcanoisland.reservationsapi.exception.PreconditionFailedException;
+import com.volcanoisland.reservationsapi.exception.ServiceUnavailableException;
+import com.volcanoisland.reservationsapi.exception.UnavailableDatesException;
+import com.volcanoisland.reservationsapi.model.Reservation;
+import com.volcanoisland.reservationsapi.model.ReservationStatusEnum;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Optional single writer for the booking operations. When enabled, create, update and cancel commands are queued on
+ * a bounded buffer and applied by a single thread, so that request threads do not hold database connections while
+ * waiting for each other.
+ *
+ * The writer takes the queued commands in batches, rejects the invalid ones and the ones conflicting with the committed
+ * calendar, and applies the rest in a single transaction. Each command claims the nights it books or releases, updates
+ * being merged with the dates they keep, and commands on nights or reservations already claimed in the batch are left
+ * for the next one, so that every command is checked against committed data. If the group commit still fails, the
+ * commands are applied again one transaction each, so that a single failure does not fail the whole batch.
+ */
+@Component
+public class BookingSequencer {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(BookingSequencer.class);
+    private static final int RETAINED_COMMANDS = 10000;
+
+    @Autowired
+    private ReservationService reservationService;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${reservations.sequencer.enabled:false}")
+    private boolean enabled;
+    @Value("${reservations.sequencer.capacity:1024}")
+    private int capacity;
+    @Value("${reservations.sequencer.batch-size:64}")
+    private int batchSize;
+
+    private BlockingQueue<BookingCommand> queue;
+    private final Map<String, BookingCommand> commands = new ConcurrentHashMap<>();
+    private final Queue<String> commandIds = new ConcurrentLinkedQueue<>();
+    private TransactionTemplate transactionTemplate;
+    private Thread writer;
+    private volatile boolean running;
+
+    @PostConstruct
+    public void start() {
+        if (!this.enabled) {
+            return;
+        }
+        this.queue = new ArrayBlockingQueue<>(this.capacity);
+        this.transactionTemplate = new TransactionTemplate(this.transactionManager);
+        this.meterRegistry.gaugeCollectionSize("reservations.sequencer.queue", Collections.emptyList(), this.queue);
+        this.running = true;
+        this.writer = new Thread(this::drain, "booking-sequencer");
+        this.writer.start();
+        LOGGER.info("Booking sequencer started with a capacity of {} commands", this.capacity);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        if (this.writer == null) {
+            return;
+        }
+        this.running = false;
+        this.writer.join(TimeUnit.SECONDS.toMillis(10));
+    }
+
+    public boolean isEnabled() {
+        return this.enabled;
+    }
+
+    /**
+     * Queues the creation of a reservation.
+     * @param request
+     * @return The queued command
+     */
+    public BookingCommand submitCreate(CreateReservationRequest request) {
+        return this.submit(new BookingCommand(BookingCommand.Type.CREATE, null,
+                request.getArrivalDate(), request.getDepartureDate(), null, () -> this.reservationService.create(request)));
+    }
+
+    /**
+     * Queues the update of a reservation.
+     * @param request
+     * @return The queued command
+     */
+    public BookingCommand submitUpdate(UpdateReservationRequest request) {
+        return this.submit(new BookingCommand(BookingCommand.Type.UPDATE, request.getId(),
+                request.getArrivalDate(), request.getDepartureDate(), request.getVersion(),
+                () -> this.reservationService.update(request)));
+    }
+
+    /**
+     * Queues the cancellation of a reservation.
+     * @param id
+     * @return The queued command
+     */
+    public BookingCommand submitCancel(Long id) {
+        return this.submit(new BookingCommand(BookingCommand.Type.CANCEL, id, null, null, null,
+                () -> this.reservationService.cancel(id)));
+    }
+
+    /**
+     * Finds a recently submitted command.
+     * @param id
+     * @return The command, if still retained
+     */
+    public Optional<BookingCommand> findCommand(String id) {
+        return Optional.ofNullable(this.commands.get(id));
+    }
+
+    private BookingCommand submit(BookingCommand command) {
+        if (!this.running) {
+            throw new ServiceUnavailableException("The booking sequencer is not running");
+        }
+        this.commands.put(command.getId(), command);
+        this.commandIds.add(command.getId());
+        while (this.commandIds.size() > RETAINED_COMMANDS) {
+            String evictedId = this.commandIds.poll();
+            if (evictedId != null) {
+                this.commands.remove(evictedId);
+            }
+        }
+        if (!this.queue.offer(command)) {
+            this.commands.remove(command.getId());
+            throw new ServiceUnavailableException("Too many pending booking operations, please retry later");
+        }
+        return command;
+    }
+
+    /**
+     * Writer loop, taking the queued commands in batches until stopped.
+     */
+    private void drain() {
+        List<BookingCommand> batch = new ArrayList<>(this.batchSize);
+        List<BookingCommand> deferred = new ArrayList<>();
+        while (this.running || !this.queue.isEmpty() || !deferred.isEmpty()) {
+            try {
+                batch.addAll(deferred);
+                deferred.clear();
+                if (batch.isEmpty()) {
+                    BookingCommand first = this.queue.poll(100, TimeUnit.MILLISECONDS);
+                    if (first == null) {
+                        continue;
+                    }
+                    batch.add(first);
+                }
+                this.queue.drainTo(batch, this.batchSize - batch.size());
+                this.process(batch, deferred);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                LOGGER.error("Unexpected error applying booking commands", e);
+                // Deferred commands are part of the failed batch, they must not be applied once failed
+                batch.forEach(command -> command.getResult().completeExceptionally(e));
+                deferred.clear();
+            }
+            batch.clear();
+        }
+    }
+
+    /**
+     * Applies a batch of commands, leaving on deferred the ones to be applied on the next batch.
+     * @param batch
+     * @param deferred
+     */
+    private void process(List<BookingCommand> batch, List<BookingCommand> deferred) {
+        Set<LocalDate> claimedNights = new HashSet<>();
+        Set<Long> claimedReservations = new HashSet<>();
+        List<BookingCommand> accepted = new ArrayList<>(batch.size());
+        for (BookingCommand command : batch) {
+            if (command.getResult().isDone()) {
+                continue;
+            }
+            Reservation existing = null;
+            LocalDate arrivalDate = command.getArrivalDate();
+            LocalDate departureDate = command.getDepartureDate();
+            try {
+                if (command.getReservationId() != null) {
+                    existing = this.reservationService.findOne(command.getReservationId());
+                }
+                if (command.getType() == BookingCommand.Type.UPDATE) {
+                    // Expected failures are rejected here, as they would roll back the whole group commit
+                    validateUpdate(command, existing);
+                    if (arrivalDate != null || departureDate != null) {
+                        arrivalDate = arrivalDate != null ? arrivalDate : existing.getArrivalDate();
+                        departureDate = departureDate != null ? departureDate : existing.getDepartureDate();
+                        ReservationService.validateStay(arrivalDate, departureDate);
+                    }
+                }
+            } catch (RuntimeException e) {
+                command.getResult().completeExceptionally(e);
+                continue;
+            }
+            // The booking nights are only visible to the availability check once committed, so the nights booked
+            // in the batch are claimed here. Nights released by updates and cancellations are claimed as well, so
+            // that they are only rebooked once the release is committed
+            List<LocalDate> nights = nights(arrivalDate, departureDate);
+            if (existing != null) {
+                nights.addAll(nights(existing.getArrivalDate(), existing.getDepartureDate()));
+            }
+            if (nights.stream().anyMatch(claimedNights::contains)
+                    || (command.getReservationId() != null && claimedReservations.contains(command.getReservationId()))) {
+                deferred.add(command);
+                continue;
+            }
+            claimedNights.addAll(nights);
+            if (command.getReservationId() != null) {
+                claimedReservations.add(command.getReservationId());
+            }
+            if (!this.isAvailable(arrivalDate, departureDate, existing)) {
+                command.getResult().completeExceptionally(new UnavailableDatesException(
+                        this.reservationService.findUnavailableNights(arrivalDate, departureDate)));
+                continue;
+            }
+            accepted.add(command);
+        }
+        if (accepted.isEmpty()) {
+            return;
+        }
+
+        try {
+            List<Reservation> reservations = this.transactionTemplate.execute(status -> {
+                List<Reservation> results = new ArrayList<>(accepted.size());
+                accepted.forEach(command -> results.add(command.getAction().get()));
+                return results;
+            });
+            for (int i = 0; i < accepted.size(); i++) {
+                accepted.get(i).getResult().complete(reservations.get(i));
+            }
+        } catch (RuntimeException groupFailure) {
+            LOGGER.debug("Group commit of {} booking commands failed, applying them one by one", accepted.size());
+            for (BookingCommand command : accepted) {
+                try {
+                    command.getResult().complete(this.transactionTemplate.execute(status -> command.getAction().get()));
+                } catch (RuntimeException e) {
+                    command.getResult().completeExceptionally(e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Checks an update against the committed reservation, as the ReservationService would when applying it.
+     * @param command
+     * @param existing
+     */
+    private static void validateUpdate(BookingCommand command, Reservation existing) {
+        if (command.getExpectedVersion() != null && !command.getExpectedVersion().equals(existing.getVersion())) {
+            throw new PreconditionFailedException("The reservation has been modified since version "
+                    + command.getExpectedVersion());
+        }
+        if (!ReservationStatusEnum.getById(existing.getStatus()).takesNights()) {
+            throw new MethodNotAllowedException("Cancelled or expired reservations can not be updated");
+        }
+    }
+
+    /**
+     * Checks the nights booked by a command against the committed calendar.
+     * @param arrivalDate
+     * @param departureDate
+     * @param existing The updated reservation, if any
+     * @return Whether the command can be applied
+     */
+    private boolean isAvailable(LocalDate arrivalDate, LocalDate departureDate, Reservation existing) {
+        if (arrivalDate == null || departureDate == null) {
+            return true;
+        }
+        return existing == null
+                ? this.reservationService.isAvailablePeriod(arrivalDate, departureDate)
+                : this.reservationService.isAvailablePeriodExcluding(arrivalDate, departureDate, existing);
+    }
+
+    private static List<LocalDate> nights(LocalDate arrivalDate, LocalDate departureDate) {
+        if (arrivalDate == null || departureDate == null) {
+            return new ArrayList<>();
+        }
+        return arrivalDate.datesUntil(departureDate).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,46 @@
+package com.volcanoisland.reservationsapi.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+
+/**
+ * Periodically releases the nights of the holds past their TTL, in batches, so that requests never have to.
+ * Until swept, an expired hold keeps its nights but can no longer be confirmed.
+ */
+@Component
+public class HoldExpirySweeper {
+
+    @Autowired
+    private ReservationService reservationService;
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${reservations.holds.sweep-batch-size:500}")
+    private int batchSize;
+
+    @Scheduled(fixedDelayString = "${reservations.holds.sweep-interval:PT30S}")
+    public void sweep() {
+        this.sweep(LocalDateTime.now());
+    }
+
+    /**
+     * Expires the holds past their TTL at the given time, one batch per transaction.
+     * @param now
+     * @return The number of expired holds
+     */
+    public int sweep(LocalDateTime now) {
+        int total = 0;
+        int expired;
+        do {
+            expired = this.reservationService.expireHolds(now, this.batchSize);
+            total += expired;
+        } while (expired == this.batchSize);
+        this.meterRegistry.counter("reservations.holds.expired").increment(total);
+        return total;
+    }
+}
@@ -0,0 +1,187 @@
+package com.volcanoisland.reservationsapi.service;
+
+import com.volcanoisland.reservationsapi.exception.BadRequestException;
+import com.volcanoisland.reservationsapi.exception.MethodNotAllowedException;
+import com.volcanoisland.reservationsapi.exception.NotFoundException;
+import com.volcanoisland.reservationsapi.exception.PreconditionFailedException;
+import com.volcanoisland.reservationsapi.exception.UnavailableDatesException;
+import com.volcanoisland.reservationsapi.model.Reservation;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Remembers the outcome of the reservation creations sent with an Idempotency-Key, so that retries get the
+ * original outcome instead of booking again.
+ *
+ * Keys are kept for a TTL and up to a maximum number, evicting the oldest ones first. Outcomes are kept per
+ * application instance, a retry reaching another instance is processed again.
+ */
+@Component
+public class IdempotencyStore {
+
+    public static final int MAX_KEY_LENGTH = 255;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${reservations.idempotency.max-keys:10000}")
+    private int maxKeys;
+    @Value("${reservations.idempotency.ttl:PT24H}")
+    private Duration ttl;
+
+    // In insertion order, so that the eldest entry is both the first to expire and the first to evict
+    private final Map<String, IdempotentOutcome> outcomes = new LinkedHashMap<>();
+    private final ReentrantLock lock = new ReentrantLock();
+
+    @PostConstruct
+    public void registerMetrics() {
+        this.meterRegistry.gauge("reservations.idempotency.keys", this, IdempotencyStore::size);
+    }
+
+    /**
+     * Registers the outcome of a request under a key, unless another request already registered one.
+     * @param key
+     * @param fingerprint Identifies the request contents, a key can not be reused for a different request
+     * @param outcome
+     * @return The outcome previously registered under the key, or null if the given one was registered
+     */
+    public IdempotentOutcome putIfAbsent(String key, String fingerprint, IdempotentOutcome outcome) {
+        if (key.isEmpty() || key.length() > MAX_KEY_LENGTH) {
+            throw new BadRequestException("Invalid Idempotency-Key header supplied");
+        }
+        this.lock.lock();
+        try {
+            this.evict(System.nanoTime());
+            IdempotentOutcome previous = this.outcomes.get(key);
+            if (previous != null) {
+                if (!previous.getFingerprint().equals(fingerprint)) {
+                    throw new BadRequestException("Idempotency-Key already used for a different request");
+                }
+                this.meterRegistry.counter("reservations.idempotency.replays").increment();
+                return previous;
+            }
+            outcome.bind(fingerprint, System.nanoTime() + this.ttl.toNanos());
+            this.outcomes.put(key, outcome);
+            return null;
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * Completes a registered outcome. Failures not caused by the request itself, like an unavailable database,
+     * are handed to the requests waiting for the outcome but then forgotten, so that the request can be retried.
+     * @param key
+     * @param outcome
+     * @param reservation The created reservation, null on failure
+     * @param failure
+     */
+    public void complete(String key, IdempotentOutcome outcome, Reservation reservation, Throwable failure) {
+        if (failure == null) {
+            outcome.result.complete(reservation);
+            return;
+        }
+        Throwable cause = failure instanceof CompletionException && failure.getCause() != null ? failure.getCause() : failure;
+        if (!isRequestFailure(cause)) {
+            this.forget(key, outcome, cause);
+            return;
+        }
+        outcome.result.completeExceptionally(cause);
+    }
+
+    /**
+     * Fails a registered outcome and forgets it, for requests rejected before being attempted, so that they can be
+     * sent again with the same key.
+     * @param key
+     * @param outcome
+     * @param failure
+     */
+    public void forget(String key, IdempotentOutcome outcome, Throwable failure) {
+        this.lock.lock();
+        try {
+            this.outcomes.remove(key, outcome);
+        } finally {
+            this.lock.unlock();
+        }
+        outcome.result.completeExceptionally(failure);
+    }
+
+    public int size() {
+        this.lock.lock();
+        try {
+            return this.outcomes.size();
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    private static boolean isRequestFailure(Throwable failure) {
+        return failure instanceof UnavailableDatesException || failure instanceof BadRequestException
+                || failure instanceof MethodNotAllowedException || failure instanceof NotFoundException
+                || failure instanceof PreconditionFailedException;
+    }
+
+    /**
+     * Removes the expired entries, then the eldest ones over the maximum. Must be called holding the lock.
+     */
+    private void evict(long now) {
+        Iterator<IdempotentOutcome> iterator = this.outcomes.values().iterator();
+        while (iterator.hasNext()) {
+            IdempotentOutcome eldest = iterator.next();
+            if (eldest.getExpiresAt() - now > 0 && this.outcomes.size() < this.maxKeys) {
+                return;
+            }
+            iterator.remove();
+        }
+    }
+
+    /**
+     * The outcome of a request, completed with the created reservation or the failure once known.
+     */
+    public static class IdempotentOutcome {
+
+        private final CompletableFuture<Reservation> result = new CompletableFuture<>();
+        private volatile String commandId;
+        private String fingerprint;
+        private long expiresAt;
+
+        private void bind(String fingerprint, long expiresAt) {
+            this.fingerprint = fingerprint;
+            this.expiresAt = expiresAt;
+        }
+
+        public CompletableFuture<Reservation> getResult() {
+            return result;
+        }
+
+        /**
+         * @return Id of the booking command applying the request if queued on the sequencer, otherwise null
+         */
+        public String getCommandId() {
+            return commandId;
+        }
+
+        public void setCommandId(String commandId) {
+            this.commandId = commandId;
+        }
+
+        String getFingerprint() {
+            return fingerprint;
+        }
+
+        long getExpiresAt() {
+            return expiresAt;
+        }
+    }
+}
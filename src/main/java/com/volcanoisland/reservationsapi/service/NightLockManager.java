@@ -0,0 +1,74 @@
+package com.volcanoisland.reservationsapi.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Provides locks over the nights touched by a booking operation, so that operations on disjoint periods can run
+ * in parallel while operations on overlapping periods run one at a time.
+ *
+ * Nights are mapped to a fixed number of lock stripes. Stripes are always taken in ascending order so that
+ * concurrent operations can not deadlock. A single stripe behaves as a global lock.
+ */
+@Component
+public class NightLockManager {
+
+    private final ReentrantLock[] nightStripes;
+
+    public NightLockManager(@Value("${reservations.locking.stripes:64}") int stripeCount) {
+        if (stripeCount < 1) {
+            throw new IllegalArgumentException("At least one lock stripe is required");
+        }
+        this.nightStripes = new ReentrantLock[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            this.nightStripes[i] = new ReentrantLock();
+        }
+    }
+
+    /**
+     * Locks the nights between arrival (inclusive) and departure (exclusive).
+     * @param arrivalDate
+     * @param departureDate
+     * @return The acquired lock, to be released by closing it
+     */
+    public AcquiredLock lockNights(LocalDate arrivalDate, LocalDate departureDate) {
+        TreeSet<Integer> stripeIndexes = new TreeSet<>();
+        for (LocalDate night = arrivalDate; night.isBefore(departureDate)
+                && stripeIndexes.size() < this.nightStripes.length; night = night.plusDays(1)) {
+            stripeIndexes.add(Math.floorMod(night.toEpochDay(), this.nightStripes.length));
+        }
+
+        List<ReentrantLock> locks = new ArrayList<>(stripeIndexes.size());
+        for (Integer stripeIndex : stripeIndexes) {
+            ReentrantLock lock = this.nightStripes[stripeIndex];
+            lock.lock();
+            locks.add(lock);
+        }
+        return new AcquiredLock(locks);
+    }
+
+    /**
+     * A set of held locks, released in reverse acquisition order when closed.
+     */
+    public static final class AcquiredLock implements AutoCloseable {
+
+        private final List<ReentrantLock> locks;
+
+        private AcquiredLock(List<ReentrantLock> locks) {
+            this.locks = locks;
+        }
+
+        @Override
+        public void close() {
+            for (int i = this.locks.size() - 1; i >= 0; i--) {
+                this.locks.get(i).unlock();
+            }
+        }
+    }
+}
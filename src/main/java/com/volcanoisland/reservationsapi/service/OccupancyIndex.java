@@ -0,0 +1,269 @@
+package com.volcanoisland.reservationsapi.service;
+
+import com.volcanoisland.reservationsapi.event.CalendarChangedEvent;
+import com.volcanoisland.reservationsapi.model.Reservation;
+import com.volcanoisland.reservationsapi.model.ReservationNight;
+import com.volcanoisland.reservationsapi.repository.ReservationNightRepository;
+import com.volcanoisland.reservationsapi.repository.ReservationRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import javax.annotation.PostConstruct;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import static java.time.temporal.ChronoUnit.DAYS;
+
+/**
+ * In-memory index holding one occupancy counter per night, built from the active and held reservations at startup
+ * and kept up to date with the calendar changes committed by the ReservationService.
+ *
+ * It allows answering availability and overlap checks without querying the database. Nights before the
+ * first indexed night are not covered, callers should check {@link #covers(LocalDate)} and fall back to the
+ * database otherwise.
+ *
+ * Only the changes committed on this instance are applied as they happen. The index is rebuilt from the
+ * ReservationNight table every refresh-interval, so that changes made by other instances are reflected after at
+ * most that long. Until then the index may be stale, callers should treat it as a hint and confirm on the database
+ * before rejecting a booking.
+ */
+@Component
+public class OccupancyIndex {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(OccupancyIndex.class);
+    private static final int INITIAL_CAPACITY_DAYS = 366;
+
+    @Autowired
+    private ReservationRepository reservationRepository;
+    @Autowired
+    private ReservationNightRepository reservationNightRepository;
+
+    @Value("${reservations.occupancy-index.enabled:true}")
+    private boolean enabled;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private LocalDate firstNight;
+    private int[] occupancy = new int[0];
+    private volatile boolean loaded = false;
+
+    /**
+     * Loads the active reservations departing from today onwards into the index.
+     */
+    @PostConstruct
+    public void initialize() {
+        if (!this.enabled) {
+            LOGGER.info("Occupancy index disabled, availability will be looked up on the database");
+            return;
+        }
+        LocalDate today = LocalDate.now();
+        List<Reservation> reservations = this.reservationRepository.findActiveDepartingAfter(today);
+        this.load(today, reservations);
+        LOGGER.info("Occupancy index loaded with {} active reservations starting from {}", reservations.size(), today);
+    }
+
+    /**
+     * Rebuilds the index from the nights taken from today onwards, picking up the changes made by other instances.
+     */
+    @Scheduled(fixedDelayString = "${reservations.occupancy-index.refresh-interval:PT30S}",
+            initialDelayString = "${reservations.occupancy-index.refresh-interval:PT30S}")
+    public void refresh() {
+        if (!this.enabled) {
+            return;
+        }
+        LocalDate today = LocalDate.now();
+        List<ReservationNight> nights = this.reservationNightRepository.findAllByNightGreaterThanEqual(today);
+        this.lock.writeLock().lock();
+        try {
+            this.firstNight = today;
+            this.occupancy = new int[INITIAL_CAPACITY_DAYS];
+            nights.forEach(night -> this.add(night.getNight(), night.getNight().plusDays(1), 1));
+            this.loaded = true;
+        } finally {
+            this.lock.writeLock().unlock();
+        }
+        LOGGER.debug("Occupancy index refreshed with {} taken nights starting from {}", nights.size(), today);
+    }
+
+    /**
+     * Replaces the index contents with the nights of the given reservations.
+     * @param firstNight First night covered by the index
+     * @param reservations Active reservations
+     */
+    public void load(LocalDate firstNight, List<Reservation> reservations) {
+        this.lock.writeLock().lock();
+        try {
+            this.firstNight = firstNight;
+            this.occupancy = new int[INITIAL_CAPACITY_DAYS];
+            for (Reservation reservation : reservations) {
+                this.add(reservation.getArrivalDate(), reservation.getDepartureDate(), 1);
+            }
+            this.loaded = true;
+        } finally {
+            this.lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Return whether the index can answer queries starting on the given date.
+     * @param periodStart
+     * @return boolean
+     */
+    public boolean covers(LocalDate periodStart) {
+        if (!this.loaded || periodStart == null) {
+            return false;
+        }
+        this.lock.readLock().lock();
+        try {
+            return !periodStart.isBefore(this.firstNight);
+        } finally {
+            this.lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Return whether no night between arrival (inclusive) and departure (exclusive) is occupied.
+     * @param arrivalDate
+     * @param departureDate
+     * @return boolean
+     */
+    public boolean isFree(LocalDate arrivalDate, LocalDate departureDate) {
+        return this.isFreeExcluding(arrivalDate, departureDate, null);
+    }
+
+    /**
+     * Return whether no night between arrival (inclusive) and departure (exclusive) is occupied,
+     * ignoring the nights taken by the given reservation.
+     * @param arrivalDate
+     * @param departureDate
+     * @param excluded Active reservation whose nights should not be considered, may be null
+     * @return boolean
+     */
+    public boolean isFreeExcluding(LocalDate arrivalDate, LocalDate departureDate, Reservation excluded) {
+        this.lock.readLock().lock();
+        try {
+            for (LocalDate night = arrivalDate; night.isBefore(departureDate); night = night.plusDays(1)) {
+                int count = this.countAt(night);
+                if (excluded != null && !night.isBefore(excluded.getArrivalDate())
+                        && night.isBefore(excluded.getDepartureDate())) {
+                    count--;
+                }
+                if (count > 0) {
+                    return false;
+                }
+            }
+            return true;
+        } finally {
+            this.lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Fetches the nights from the given range (both ends inclusive) that are not occupied.
+     * @param periodStart
+     * @param periodEnd
+     * @return List<LocalDate>
+     */
+    public List<LocalDate> findFreeNights(LocalDate periodStart, LocalDate periodEnd) {
+        List<LocalDate> freeNights = new ArrayList<>();
+        this.lock.readLock().lock();
+        try {
+            for (LocalDate night = periodStart; !night.isAfter(periodEnd); night = night.plusDays(1)) {
+                if (this.countAt(night) == 0) {
+                    freeNights.add(night);
+                }
+            }
+        } finally {
+            this.lock.readLock().unlock();
+        }
+        return freeNights;
+    }
+
+    /**
+     * Marks the nights between arrival (inclusive) and departure (exclusive) as taken by one more reservation.
+     * @param arrivalDate
+     * @param departureDate
+     */
+    public void occupy(LocalDate arrivalDate, LocalDate departureDate) {
+        this.update(arrivalDate, departureDate, 1);
+    }
+
+    /**
+     * Marks the nights between arrival (inclusive) and departure (exclusive) as taken by one less reservation.
+     * @param arrivalDate
+     * @param departureDate
+     */
+    public void release(LocalDate arrivalDate, LocalDate departureDate) {
+        this.update(arrivalDate, departureDate, -1);
+    }
+
+    /**
+     * Applies the nights taken and freed by a committed change. Runs before any other listener, so that
+     * they observe the updated occupancy.
+     * @param event
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    @Order(0)
+    public void onCalendarChanged(CalendarChangedEvent event) {
+        if (!this.loaded) {
+            return;
+        }
+        this.lock.writeLock().lock();
+        try {
+            event.getReleasedNights().forEach(night -> this.add(night, night.plusDays(1), -1));
+            event.getOccupiedNights().forEach(night -> this.add(night, night.plusDays(1), 1));
+        } finally {
+            this.lock.writeLock().unlock();
+        }
+    }
+
+    private void update(LocalDate arrivalDate, LocalDate departureDate, int delta) {
+        if (!this.loaded) {
+            return;
+        }
+        this.lock.writeLock().lock();
+        try {
+            this.add(arrivalDate, departureDate, delta);
+        } finally {
+            this.lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Adds delta to the counters of the given nights. Must be called holding the write lock.
+     */
+    private void add(LocalDate arrivalDate, LocalDate departureDate, int delta) {
+        LocalDate start = arrivalDate.isBefore(this.firstNight) ? this.firstNight : arrivalDate;
+        if (!departureDate.isAfter(start)) {
+            return;
+        }
+        int from = (int) DAYS.between(this.firstNight, start);
+        int to = (int) DAYS.between(this.firstNight, departureDate);
+        if (to > this.occupancy.length) {
+            this.occupancy = Arrays.copyOf(this.occupancy, Math.max(to, this.occupancy.length * 2));
+        }
+        for (int i = from; i < to; i++) {
+            // Reservations written behind the index back could be released without having been added
+            this.occupancy[i] = Math.max(0, this.occupancy[i] + delta);
+        }
+    }
+
+    /**
+     * Returns the occupancy counter of a night. Must be called holding a lock.
+     */
+    private int countAt(LocalDate night) {
+        long offset = DAYS.between(this.firstNight, night);
+        if (offset < 0 || offset >= this.occupancy.length) {
+            return 0;
+        }
+        return this.occupancy[(int) offset];
+    }
+}
@@ -0,0 +1,137 @@
+package com.volcanoisland.reservationsapi.service;
+
+import com.volcanoisland.reservationsapi.model.OutboxMessage;
+import com.volcanoisland.reservationsapi.model.OutboxStatusEnum;
+import com.volcanoisland.reservationsapi.repository.OutboxMessageRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Periodically delivers the pending outbox messages, in batches, posting them as JSON to their destination.
+ * Messages without a destination are only logged, their guests find them notified on the waitlist resource.
+ *
+ * Delivery is at least once: a message may be posted again if the application stops before recording it as sent,
+ * receivers can tell repeated messages by their Message-Id header. Failed deliveries are retried with an exponential
+ * backoff up to max-attempts times.
+ *
+ * Every instance runs a dispatcher. Each message is claimed before being posted, postponing its next attempt by
+ * claim-timeout, so that a message is posted by a single dispatcher at a time. Messages claimed by a dispatcher
+ * stopped before recording them are delivered by another one once their claim expires.
+ */
+@Component
+public class OutboxDispatcher {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(OutboxDispatcher.class);
+
+    @Autowired
+    private OutboxMessageRepository outboxMessageRepository;
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${reservations.outbox.batch-size:100}")
+    private int batchSize;
+    @Value("${reservations.outbox.max-attempts:8}")
+    private int maxAttempts;
+    @Value("${reservations.outbox.retry-delay:PT10S}")
+    private Duration retryDelay;
+    @Value("${reservations.outbox.timeout:PT5S}")
+    private Duration timeout;
+    @Value("${reservations.outbox.claim-timeout:PT1M}")
+    private Duration claimTimeout;
+
+    private final HttpClient httpClient = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+
+    @Scheduled(fixedDelayString = "${reservations.outbox.dispatch-interval:PT5S}")
+    public void dispatch() {
+        this.dispatch(LocalDateTime.now());
+    }
+
+    /**
+     * Delivers the messages due at the given time, one batch at a time, skipping the ones claimed by another
+     * dispatcher. Each message is recorded once posted, while still claimed.
+     * @param now
+     * @return The number of messages delivered
+     */
+    public int dispatch(LocalDateTime now) {
+        int delivered = 0;
+        List<OutboxMessage> batch;
+        do {
+            batch = this.outboxMessageRepository.findDue(now, PageRequest.of(0, this.batchSize));
+            for (OutboxMessage message : batch) {
+                if (this.outboxMessageRepository.claim(message.getId(), now,
+                        LocalDateTime.now().plus(this.claimTimeout)) == 0) {
+                    continue;
+                }
+                if (this.deliver(message)) {
+                    message.setStatus(OutboxStatusEnum.SENT.getId());
+                    message.setSentAt(LocalDateTime.now());
+                    delivered++;
+                } else if (message.getAttempts() >= this.maxAttempts) {
+                    LOGGER.error("Giving up outbox message {} after {} attempts", message.getId(), message.getAttempts());
+                    message.setStatus(OutboxStatusEnum.FAILED.getId());
+                } else {
+                    message.setNextAttemptAt(now.plus(this.retryDelay.multipliedBy(1L << Math.min(message.getAttempts() - 1, 16))));
+                }
+                this.outboxMessageRepository.save(message);
+            }
+        } while (batch.size() == this.batchSize);
+        return delivered;
+    }
+
+    /**
+     * Posts a message to its destination.
+     * @param message
+     * @return Whether the message was delivered
+     */
+    private boolean deliver(OutboxMessage message) {
+        message.setAttempts(message.getAttempts() + 1);
+        if (message.getDestination() == null) {
+            LOGGER.info("Outbox message {} on {}: {}", message.getId(), message.getTopic(), message.getPayload());
+            this.countDelivery(message, "logged");
+            return true;
+        }
+        try {
+            HttpRequest request = HttpRequest.newBuilder(URI.create(message.getDestination()))
+                    .timeout(this.timeout)
+                    .header("Content-Type", "application/json")
+                    .header("Message-Id", String.valueOf(message.getId()))
+                    .header("Message-Topic", message.getTopic())
+                    .POST(HttpRequest.BodyPublishers.ofString(message.getPayload()))
+                    .build();
+            int status = this.httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+            if (status >= 200 && status < 300) {
+                this.countDelivery(message, "sent");
+                return true;
+            }
+            LOGGER.warn("Outbox message {} rejected by {} with status {}", message.getId(), message.getDestination(),
+                    status);
+        } catch (IOException | IllegalArgumentException e) {
+            LOGGER.warn("Outbox message {} could not be posted to {}: {}", message.getId(), message.getDestination(),
+                    e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        this.countDelivery(message, "failed");
+        return false;
+    }
+
+    private void countDelivery(OutboxMessage message, String outcome) {
+        this.meterRegistry.counter("reservations.outbox.deliveries", "topic", message.getTopic(), "outcome", outcome)
+                .increment();
+    }
+}
@@ -0,0 +1,125 @@
+package com.volcanoisland.reservationsapi.service;
+
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.volcanoisland.reservationsapi.dto.ReservationDto;
+import com.volcanoisland.reservationsapi.dto.ReservationDtoBuilder;
+import com.volcanoisland.reservationsapi.model.Reservation;
+import com.volcanoisland.reservationsapi.repository.ReservationRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Objects;
+import java.util.stream.Stream;
+
+/**
+ * Writes all reservations to an output stream, reading them from a database cursor and detaching each one once
+ * written so that memory usage does not depend on the number of reservations.
+ */
+@Service
+public class ReservationExportService {
+
+    private static final String CSV_HEADER = "id,guestEmail,guestFullName,arrivalDate,departureDate,status,createdAt,updatedAt,version";
+    private static final Logger LOGGER = LoggerFactory.getLogger(ReservationExportService.class);
+
+    @Autowired
+    private ReservationRepository reservationRepository;
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final TransactionTemplate transactionTemplate;
+
+    public ReservationExportService(PlatformTransactionManager transactionManager) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+    }
+
+    /**
+     * Writes all reservations as newline delimited JSON, one reservation per line.
+     * @param outputStream
+     * @param writer Writer serializing a ReservationDto as the API does
+     */
+    public void exportNdjson(OutputStream outputStream, ObjectWriter writer) {
+        this.export(outputStream, null, dto -> {
+            try {
+                return writer.writeValueAsString(dto);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    /**
+     * Writes all reservations as CSV, preceded by a header line.
+     * @param outputStream
+     */
+    public void exportCsv(OutputStream outputStream) {
+        this.export(outputStream, CSV_HEADER, dto -> String.join(",",
+                csvValue(dto.getId()), csvValue(dto.getGuestEmail()), csvValue(dto.getGuestFullName()),
+                csvValue(dto.getArrivalDate()), csvValue(dto.getDepartureDate()), csvValue(dto.getStatus()),
+                csvValue(dto.getCreatedAt()), csvValue(dto.getUpdatedAt()), csvValue(dto.getVersion())));
+    }
+
+    private void export(OutputStream outputStream, String header, RowFormatter formatter) {
+        LOGGER.info("Exporting all reservations");
+        BufferedOutputStream output = new BufferedOutputStream(outputStream);
+        long rows = this.transactionTemplate.execute(status -> {
+            long count = 0;
+            try (Stream<Reservation> reservations = this.reservationRepository.streamAll()) {
+                if (header != null) {
+                    writeLine(output, header);
+                }
+                for (Reservation reservation : (Iterable<Reservation>) reservations::iterator) {
+                    writeLine(output, formatter.format(ReservationDtoBuilder.aReservationDto()
+                            .fromReservation(reservation).build()));
+                    this.entityManager.detach(reservation);
+                    count++;
+                }
+            }
+            return count;
+        });
+        try {
+            output.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        LOGGER.info("Exported {} reservations", rows);
+    }
+
+    private static void writeLine(OutputStream output, String line) {
+        try {
+            output.write(line.getBytes(StandardCharsets.UTF_8));
+            output.write('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Formats a value as a CSV field, quoting it when it contains separators, quotes or line breaks.
+     * @param value
+     * @return String
+     */
+    private static String csvValue(Object value) {
+        String text = Objects.toString(value, "");
+        if (text.contains(",") || text.contains("\"") || text.contains("\n") || text.contains("\r")) {
+            return "\"" + text.replace("\"", "\"\"") + "\"";
+        }
+        return text;
+    }
+
+    @FunctionalInterface
+    private interface RowFormatter {
+        String format(ReservationDto reservation);
+    }
+}
@@ -0,0 +1,158 @@
+package com.volcanoisland.reservationsapi.service;
+
+import com.volcanoisland.reservationsapi.exception.MethodNotAllowedException;
+import com.volcanoisland.reservationsapi.exception.NightsTakenException;
+import com.volcanoisland.reservationsapi.exception.NotFoundException;
+import com.volcanoisland.reservationsapi.exception.PreconditionFailedException;
+import com.volcanoisland.reservationsapi.exception.UnavailableDatesException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Records how long the reservation operations take and how they end, splitting the time spent waiting for the
+ * night locks from the time spent on the database.
+ *
+ * Meters:
+ * - reservations.operation: timer per operation and outcome, up to the end of its transaction
+ * - reservations.lock.wait: timer of the night locks acquisition per operation
+ * - reservations.db: timer of the availability checks, writes and commits per operation
+ * - reservations.conflicts: counter of the rejected bookings per operation and reason
+ */
+@Component
+public class ReservationMetrics {
+
+    public static final String CREATE = "create";
+    public static final String UPDATE = "update";
+    public static final String CANCEL = "cancel";
+    public static final String AVAILABILITY = "availability";
+    public static final String BATCH_CREATE = "batch_create";
+    public static final String HOLD = "hold";
+    public static final String CONFIRM = "confirm";
+
+    public static final String CHECK = "check";
+    public static final String WRITE = "write";
+    public static final String COMMIT = "commit";
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    /**
+     * Runs an operation timing it, tagged with its outcome. Conflicts are also counted.
+     * When run within a transaction the operation is recorded once the transaction completes, so that the commit
+     * is included, and the commit is recorded as a database step of its own.
+     * @param operation
+     * @param body
+     * @return The operation result
+     */
+    public <T> T timeOperation(String operation, Supplier<T> body) {
+        long start = System.nanoTime();
+        String outcome = "success";
+        try {
+            return body.get();
+        } catch (UnavailableDatesException e) {
+            outcome = "conflict";
+            this.countConflict(operation, e instanceof NightsTakenException ? "db_constraint" : "availability_check");
+            throw e;
+        } catch (PreconditionFailedException e) {
+            outcome = "precondition_failed";
+            this.countConflict(operation, "version");
+            throw e;
+        } catch (NotFoundException | MethodNotAllowedException e) {
+            outcome = "rejected";
+            throw e;
+        } catch (RuntimeException e) {
+            outcome = "error";
+            throw e;
+        } finally {
+            this.recordOperation(operation, outcome, start);
+        }
+    }
+
+    /**
+     * Counts a rejected booking.
+     * @param operation
+     * @param reason
+     */
+    public void countConflict(String operation, String reason) {
+        this.meterRegistry.counter("reservations.conflicts", "operation", operation, "reason", reason).increment();
+    }
+
+    /**
+     * Runs a database step of an operation, timing it.
+     * @param operation
+     * @param step Either CHECK or WRITE
+     * @param body
+     * @return The step result
+     */
+    public <T> T timeDatabase(String operation, String step, Supplier<T> body) {
+        long start = System.nanoTime();
+        try {
+            return body.get();
+        } finally {
+            this.meterRegistry.timer("reservations.db", "operation", operation, "step", step)
+                    .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Records the operation timer, at the end of the current transaction if any.
+     * @param operation
+     * @param outcome
+     * @param start
+     */
+    private void recordOperation(String operation, String outcome, long start) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            this.operationTimer(operation, outcome).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+
+            private long commitStart;
+            private boolean committing;
+
+            @Override
+            public void beforeCommit(boolean readOnly) {
+                this.commitStart = System.nanoTime();
+                this.committing = true;
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                long end = System.nanoTime();
+                if (this.committing) {
+                    meterRegistry.timer("reservations.db", "operation", operation, "step", COMMIT)
+                            .record(end - this.commitStart, TimeUnit.NANOSECONDS);
+                }
+                // A successful operation whose transaction is rolled back did not take effect
+                String completedOutcome = status != TransactionSynchronization.STATUS_COMMITTED
+                        && "success".equals(outcome) ? "error" : outcome;
+                operationTimer(operation, completedOutcome).record(end - start, TimeUnit.NANOSECONDS);
+            }
+        });
+    }
+
+    private Timer operationTimer(String operation, String outcome) {
+        return Timer.builder("reservations.operation")
+                .tag("operation", operation)
+                .tag("outcome", outcome)
+                .register(this.meterRegistry);
+    }
+
+    /**
+     * Records the time spent waiting for the night locks.
+     * @param operation
+     * @param nanos
+     */
+    public void recordLockWait(String operation, long nanos) {
+        this.meterRegistry.timer("reservations.lock.wait", "operation", operation)
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+}
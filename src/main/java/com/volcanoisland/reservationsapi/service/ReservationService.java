@@ -1,37 +1,92 @@
 package com.volcanoisland.reservationsapi.service;
 
+import com.volcanoisland.reservationsapi.controller.request.BatchModeEnum;
 import com.volcanoisland.reservationsapi.controller.request.CreateReservationRequest;
 import com.volcanoisland.reservationsapi.controller.request.UpdateReservationRequest;
+import com.volcanoisland.reservationsapi.event.CalendarChangedEvent;
 import com.volcanoisland.reservationsapi.exception.BadRequestException;
 import com.volcanoisland.reservationsapi.exception.MethodNotAllowedException;
+import com.volcanoisland.reservationsapi.exception.NightsTakenException;
 import com.volcanoisland.reservationsapi.exception.NotFoundException;
+import com.volcanoisland.reservationsapi.exception.PreconditionFailedException;
 import com.volcanoisland.reservationsapi.exception.UnavailableDatesException;
 import com.volcanoisland.reservationsapi.model.Reservation;
+import com.volcanoisland.reservationsapi.model.ReservationNight;
 import com.volcanoisland.reservationsapi.model.ReservationStatusEnum;
+import com.volcanoisland.reservationsapi.repository.ReservationNightRepository;
 import com.volcanoisland.reservationsapi.repository.ReservationRepository;
+import com.volcanoisland.reservationsapi.validation.ReservationPeriodValidator;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import javax.validation.Validator;
+import java.time.Duration;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
+import static java.time.temporal.ChronoUnit.DAYS;
+
 @Service
 public class ReservationService {
 
     @Autowired
     private ReservationRepository reservationRepository;
+    @Autowired
+    private ReservationNightRepository reservationNightRepository;
+    @Autowired
+    private OccupancyIndex occupancyIndex;
+    @Autowired
+    private NightLockManager nightLockManager;
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+    @Autowired
+    private ReservationMetrics reservationMetrics;
+    @Autowired
+    private Validator validator;
+    @Value("${reservations.availability.calendar-table.enabled:false}")
+    private boolean calendarTableEnabled;
+    @Value("${reservations.availability.calendar-table.horizon-years:5}")
+    private int availabilityHorizonYears;
+    @Value("${reservations.holds.ttl:PT10M}")
+    private Duration holdTtl;
     private static final Logger LOGGER = LoggerFactory.getLogger(ReservationService.class);
 
     /**
-     * Fetch all reservations on the database.
-     * @return List<Reservation>
+     * Fetch a page of reservations following the given id, in ascending id order.
+     * @param afterId Id of the last reservation of the previous page, null for the first page
+     * @param status Optional status filter
+     * @param periodStart Optional start of the date range the reservations should overlap with
+     * @param periodEnd Optional end of the date range the reservations should overlap with
+     * @param limit Maximum number of reservations in the page
+     * @return Slice<Reservation>
      */
-    public List<Reservation> findAll() {
-        LOGGER.info("Fetching all reservations");
-        return this.reservationRepository.findAll();
+    public Slice<Reservation> findPage(Long afterId, ReservationStatusEnum status,
+                                       LocalDate periodStart, LocalDate periodEnd, int limit) {
+        LOGGER.info("Fetching reservations page after Id {}", afterId);
+        if (periodStart != null && periodEnd != null && periodStart.isAfter(periodEnd)) {
+            throw new BadRequestException("Invalid dates range supplied");
+        }
+        return this.reservationRepository.findPageAfter(afterId != null ? afterId : 0L,
+                status != null ? status.getId() : null, periodStart, periodEnd, PageRequest.of(0, limit));
     }
 
     /**
@@ -44,74 +99,262 @@ public class ReservationService {
         return this.reservationRepository.findById(id).orElseThrow(NotFoundException::new);
     }
 
+    /**
+     * Fetches the reservations with the given Ids in a single query.
+     * @param ids
+     * @return The reservations in the order of the given Ids, null for the ones not found
+     */
+    public List<Reservation> findMany(final List<Long> ids) {
+        LOGGER.info("Fetching reservations by Ids {}", ids);
+        Map<Long, Reservation> reservationsById = this.reservationRepository.findAllById(new HashSet<>(ids))
+                .stream().collect(Collectors.toMap(Reservation::getId, Function.identity()));
+        return ids.stream().map(reservationsById::get).collect(Collectors.toList());
+    }
+
     /**
      * Creates a new Reservation entry in the database.
      *
      * Concurrency considerations:
-     * Since a different thread could save an overlapping reservation between the availability check and the actual
-     * creation on this method, we need to avoid concurrent execution thus the synchronized keyword.
-     *
-     * If this application had multiple instances accessing to the same database, then thread synchronization would
-     * not be enough. In such case database locking or preferable database constrains would have to be used
-     * to avoid possible overlapping dates.
+     * The nights of the reservation are inserted on the ReservationNight table in the same transaction, whose
+     * primary key makes the database reject any overlapping reservation, even if saved by another instance
+     * between the availability check and the actual creation.
+     * The nights of the requested period are also locked on this instance while they are checked and inserted, so
+     * that most conflicting requests fail on the availability check instead of reaching the database.
+     * The locks are released when this method returns, before the transaction commits: a request checking the same
+     * nights in between does not see them yet, and it is the primary key that rejects its insert, reported as
+     * unavailable dates like a failed check. The locks only save work, correctness relies on the primary key.
+     * Bookings on disjoint periods do not share any lock and can run in parallel.
      *
      * @param request
      * @return Reservation
      */
-    public synchronized Reservation create(final CreateReservationRequest request) {
+    @Transactional
+    public Reservation create(final CreateReservationRequest request) {
         LOGGER.info("Creating new reservation {}", request);
 
-        if (!this.isAvailablePeriod(request.getArrivalDate(), request.getDepartureDate())) {
-            throw new UnavailableDatesException();
+        return this.book(ReservationMetrics.CREATE, request, () -> new Reservation(request.getGuestEmail(),
+                request.getGuestFullName(), request.getArrivalDate(), request.getDepartureDate()));
+    }
+
+    /**
+     * Creates a held reservation, taking its nights as a reservation does until it is confirmed, cancelled or
+     * expires after the hold TTL. Expired holds are released by the HoldExpirySweeper.
+     * @param request
+     * @return Reservation
+     */
+    @Transactional
+    public Reservation hold(final CreateReservationRequest request) {
+        LOGGER.info("Holding new reservation {}", request);
+
+        return this.book(ReservationMetrics.HOLD, request, () -> {
+            Reservation reservation = new Reservation(request.getGuestEmail(), request.getGuestFullName(),
+                    request.getArrivalDate(), request.getDepartureDate());
+            reservation.setStatus(ReservationStatusEnum.HELD.getId());
+            reservation.setExpiresAt(LocalDateTime.now().plus(this.holdTtl));
+            return reservation;
+        });
+    }
+
+    /**
+     * Turns a held reservation into an active one. The nights are kept, so availability does not change.
+     * Confirming an active reservation has no effect.
+     * @param id
+     * @return Reservation
+     */
+    @Transactional
+    public Reservation confirm(final Long id) {
+        LOGGER.info("Confirming reservation by Id {}", id);
+
+        return this.reservationMetrics.timeOperation(ReservationMetrics.CONFIRM, () -> {
+            Reservation existingEntry = this.reservationRepository.findById(id)
+                    .orElseThrow(NotFoundException::new);
+
+            if (ReservationStatusEnum.ACTIVE.getId().equals(existingEntry.getStatus())) {
+                return existingEntry;
+            }
+            if (!ReservationStatusEnum.HELD.getId().equals(existingEntry.getStatus())
+                    || !existingEntry.getExpiresAt().isAfter(LocalDateTime.now())) {
+                throw new MethodNotAllowedException("Only unexpired holds can be confirmed");
+            }
+            existingEntry.setStatus(ReservationStatusEnum.ACTIVE.getId());
+            existingEntry.setExpiresAt(null);
+            return this.reservationMetrics.timeDatabase(ReservationMetrics.CONFIRM, ReservationMetrics.WRITE,
+                    () -> this.saveVersioned(existingEntry));
+        });
+    }
+
+    /**
+     * Expires the holds past their TTL, releasing their nights in bulk.
+     * @param now
+     * @param limit Maximum number of holds to expire
+     * @return The number of expired holds
+     */
+    @Transactional
+    public int expireHolds(final LocalDateTime now, final int limit) {
+        List<Reservation> expiredHolds = this.reservationRepository.findExpiredHolds(now, PageRequest.of(0, limit));
+        if (expiredHolds.isEmpty()) {
+            return 0;
         }
+        List<Long> ids = expiredHolds.stream().map(Reservation::getId).collect(Collectors.toList());
+        if (this.reservationRepository.expireHolds(ids, now) < ids.size()) {
+            // Some were confirmed or cancelled meanwhile, keep only the ones actually expired
+            ids = this.reservationRepository.findAllById(ids).stream()
+                    .filter(r -> ReservationStatusEnum.EXPIRED.getId().equals(r.getStatus()))
+                    .map(Reservation::getId)
+                    .collect(Collectors.toList());
+            Set<Long> expiredIds = new HashSet<>(ids);
+            expiredHolds = expiredHolds.stream().filter(r -> expiredIds.contains(r.getId())).collect(Collectors.toList());
+        }
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        this.reservationNightRepository.deleteByReservationIdIn(ids);
+        expiredHolds.forEach(hold -> this.eventPublisher.publishEvent(
+                CalendarChangedEvent.released(hold.getArrivalDate(), hold.getDepartureDate())));
+        LOGGER.info("Expired {} holds", ids.size());
+        return ids.size();
+    }
+
+    /**
+     * Creates a batch of reservations in a single transaction.
+     *
+     * Every reservation is validated on its own, then checked for conflicts against the nights already taken and
+     * those taken by the previous reservations of the batch, looking them up once for the whole batch period.
+     * In ALL_OR_NOTHING mode nothing is created unless every reservation can be, in PARTIAL mode every
+     * reservation that can be created is. The nights of the whole batch period are locked while they are checked
+     * and inserted, and as on creation the primary key rejects the whole batch if any of its nights was taken
+     * meanwhile, by this instance before commit or by another one.
+     *
+     * @param requests
+     * @param mode
+     * @return The result of each reservation, in request order
+     */
+    @Transactional
+    public List<BatchItemResult> createBatch(final List<CreateReservationRequest> requests, final BatchModeEnum mode) {
+        LOGGER.info("Creating batch of {} reservations in {} mode", requests.size(), mode);
+
+        return this.reservationMetrics.timeOperation(ReservationMetrics.BATCH_CREATE, () -> {
+            BatchItemResult[] results = new BatchItemResult[requests.size()];
+            List<Integer> validIndexes = new ArrayList<>();
+            for (int i = 0; i < requests.size(); i++) {
+                List<String> errors = this.validator.validate(requests.get(i)).stream()
+                        .map(v -> v.getPropertyPath().toString().isEmpty()
+                                ? v.getMessage() : v.getPropertyPath() + ": " + v.getMessage())
+                        .sorted()
+                        .collect(Collectors.toList());
+                if (errors.isEmpty()) {
+                    validIndexes.add(i);
+                } else {
+                    results[i] = BatchItemResult.invalid(errors);
+                }
+            }
+            if (validIndexes.isEmpty()) {
+                return Arrays.asList(results);
+            }
 
-        return this.reservationRepository.save(
-                new Reservation(request.getGuestEmail(), request.getGuestFullName(),
-                        request.getArrivalDate(), request.getDepartureDate())
-        );
+            LocalDate firstNight = validIndexes.stream().map(i -> requests.get(i).getArrivalDate())
+                    .min(LocalDate::compareTo).get();
+            LocalDate lastDeparture = validIndexes.stream().map(i -> requests.get(i).getDepartureDate())
+                    .max(LocalDate::compareTo).get();
+            try (NightLockManager.AcquiredLock nightsLock =
+                         this.lockNights(ReservationMetrics.BATCH_CREATE, firstNight, lastDeparture)) {
+                Set<LocalDate> takenNights = new HashSet<>(this.reservationMetrics.timeDatabase(
+                        ReservationMetrics.BATCH_CREATE, ReservationMetrics.CHECK,
+                        () -> this.findUnavailableNights(firstNight, lastDeparture)));
+
+                List<Integer> acceptedIndexes = new ArrayList<>();
+                for (Integer i : validIndexes) {
+                    List<LocalDate> nights = requests.get(i).getArrivalDate()
+                            .datesUntil(requests.get(i).getDepartureDate())
+                            .collect(Collectors.toList());
+                    List<LocalDate> unavailableNights = nights.stream().filter(takenNights::contains)
+                            .collect(Collectors.toList());
+                    if (unavailableNights.isEmpty()) {
+                        takenNights.addAll(nights);
+                        acceptedIndexes.add(i);
+                    } else {
+                        this.reservationMetrics.countConflict(ReservationMetrics.BATCH_CREATE, "availability_check");
+                        results[i] = BatchItemResult.conflict(unavailableNights);
+                    }
+                }
+
+                if (mode == BatchModeEnum.ALL_OR_NOTHING && acceptedIndexes.size() < requests.size()) {
+                    acceptedIndexes.forEach(i -> results[i] = BatchItemResult.notCreated());
+                    return Arrays.asList(results);
+                }
+                if (acceptedIndexes.isEmpty()) {
+                    return Arrays.asList(results);
+                }
+
+                List<Reservation> reservations = this.reservationMetrics.timeDatabase(ReservationMetrics.BATCH_CREATE,
+                        ReservationMetrics.WRITE, () -> this.saveBatch(acceptedIndexes.stream()
+                                .map(requests::get)
+                                .collect(Collectors.toList())));
+                for (int j = 0; j < acceptedIndexes.size(); j++) {
+                    Reservation reservation = reservations.get(j);
+                    results[acceptedIndexes.get(j)] = BatchItemResult.created(reservation);
+                    this.eventPublisher.publishEvent(
+                            CalendarChangedEvent.occupied(reservation.getArrivalDate(), reservation.getDepartureDate()));
+                }
+                return Arrays.asList(results);
+            }
+        });
     }
 
     /**
      * Updates an existing Reservation on the database.
      *
      * Concurrency considerations:
-     * Since a different thread could save an overlapping reservation between the availability check and the actual
-     * update on this method, we need to avoid concurrent execution thus the synchronized keyword.
-     *
-     * If this application had multiple instances accessing to the same database, then thread synchronization would
-     * not be enough. In such case database locking or preferable database constrains would have to be used
-     * to avoid possible overlapping dates.
+     * As on creation, the new nights are inserted on the ReservationNight table in the same transaction so that the
+     * database rejects any overlap, and are locked on this instance while they are checked and written, up to
+     * but not including the commit.
+     * Concurrent modifications of the same reservation are detected through its version: the update fails if the
+     * version expected by the request or the one loaded by this method is no longer the current one.
+     * A date left out of the request keeps its current value, and the resulting period is the one validated, locked
+     * and checked.
      *
      * @param request
      * @return Reservation
      */
-    public synchronized Reservation update(final UpdateReservationRequest request) {
+    @Transactional
+    public Reservation update(final UpdateReservationRequest request) {
         LOGGER.info("Updating reservation {}", request);
-        Reservation existingEntry = this.reservationRepository.findById(request.getId())
-                .orElseThrow(NotFoundException::new);
 
-        if (ReservationStatusEnum.CANCELLED.getId().equals(existingEntry.getStatus())) {
-            throw new MethodNotAllowedException("Cancelled reservations can not be updated");
-        }
-        if (!this.isAvailablePeriodExcluding(request.getArrivalDate(), request.getDepartureDate(), request.getId())) {
-            throw new UnavailableDatesException();
-        }
+        return this.reservationMetrics.timeOperation(ReservationMetrics.UPDATE, () -> {
+            Reservation existingEntry = this.reservationRepository.findById(request.getId())
+                    .orElseThrow(NotFoundException::new);
 
-        // Copy non-null properties to entity:
-        if (request.getGuestEmail() != null) {
-            existingEntry.setGuestEmail(request.getGuestEmail());
-        }
-        if (request.getGuestFullName() != null) {
-            existingEntry.setGuestFullName(request.getGuestFullName());
-        }
-        if (request.getArrivalDate() != null) {
-            existingEntry.setArrivalDate(request.getArrivalDate());
-        }
-        if (request.getDepartureDate() != null) {
-            existingEntry.setDepartureDate(request.getDepartureDate());
-        }
+            if (request.getVersion() != null && !request.getVersion().equals(existingEntry.getVersion())) {
+                throw new PreconditionFailedException("The reservation has been modified since version " + request.getVersion());
+            }
+            if (!ReservationStatusEnum.getById(existingEntry.getStatus()).takesNights()) {
+                throw new MethodNotAllowedException("Cancelled or expired reservations can not be updated");
+            }
+            if (request.getArrivalDate() == null && request.getDepartureDate() == null) {
+                // The nights are left as they are, no need to lock or check them
+                return this.reservationMetrics.timeDatabase(ReservationMetrics.UPDATE, ReservationMetrics.WRITE,
+                        () -> this.applyUpdate(existingEntry, request));
+            }
+
+            // Dates not provided keep their current value
+            final LocalDate arrivalDate = request.getArrivalDate() != null
+                    ? request.getArrivalDate() : existingEntry.getArrivalDate();
+            final LocalDate departureDate = request.getDepartureDate() != null
+                    ? request.getDepartureDate() : existingEntry.getDepartureDate();
+            validateStay(arrivalDate, departureDate);
+            request.setArrivalDate(arrivalDate);
+            request.setDepartureDate(departureDate);
 
-        return this.reservationRepository.save(existingEntry);
+            try (NightLockManager.AcquiredLock nightsLock = this.lockNights(ReservationMetrics.UPDATE,
+                    arrivalDate, departureDate)) {
+                if (!this.reservationMetrics.timeDatabase(ReservationMetrics.UPDATE, ReservationMetrics.CHECK,
+                        () -> this.isAvailablePeriodExcluding(arrivalDate, departureDate, existingEntry))) {
+                    throw new UnavailableDatesException();
+                }
+                return this.reservationMetrics.timeDatabase(ReservationMetrics.UPDATE, ReservationMetrics.WRITE,
+                        () -> this.applyUpdate(existingEntry, request));
+            }
+        });
     }
 
     /**
@@ -119,56 +362,292 @@ public class ReservationService {
      * @param id
      * @return Reservation
      */
+    @Transactional
     public Reservation cancel(final Long id) {
         LOGGER.info("Cancelling reservation by Id {}", id);
-        Reservation existingEntry = this.reservationRepository.findById(id)
-                .orElseThrow(NotFoundException::new);
 
-        existingEntry.setStatus(ReservationStatusEnum.CANCELLED.getId());
-        return this.reservationRepository.save(existingEntry);
+        return this.reservationMetrics.timeOperation(ReservationMetrics.CANCEL, () -> {
+            Reservation existingEntry = this.reservationRepository.findById(id)
+                    .orElseThrow(NotFoundException::new);
+
+            final boolean tookNights = ReservationStatusEnum.getById(existingEntry.getStatus()).takesNights();
+            existingEntry.setStatus(ReservationStatusEnum.CANCELLED.getId());
+            Reservation reservation = this.reservationMetrics.timeDatabase(ReservationMetrics.CANCEL,
+                    ReservationMetrics.WRITE, () -> {
+                        Reservation cancelledReservation = this.saveVersioned(existingEntry);
+                        if (tookNights) {
+                            this.reservationNightRepository.deleteByReservationId(cancelledReservation.getId());
+                        }
+                        return cancelledReservation;
+                    });
+            if (tookNights) {
+                this.eventPublisher.publishEvent(
+                        CalendarChangedEvent.released(reservation.getArrivalDate(), reservation.getDepartureDate()));
+            }
+
+            return reservation;
+        });
+    }
+
+    /**
+     * Checks whether a reservation could be created with the given details, without creating it.
+     * Nothing is written and no lock is taken, so the result may be outdated by the time the reservation is created.
+     * @param request
+     */
+    public void validate(final CreateReservationRequest request) {
+        LOGGER.info("Validating reservation {}", request);
+        if (this.isAvailablePeriod(request.getArrivalDate(), request.getDepartureDate())) {
+            return;
+        }
+        throw new UnavailableDatesException(this.findUnavailableNights(request.getArrivalDate(), request.getDepartureDate()));
+    }
+
+    /**
+     * Fetches the nights between arrival (inclusive) and departure (exclusive) already taken by a reservation.
+     * The nights are looked up on the ReservationNight table, as the occupancy index may lag changes made by other
+     * instances.
+     * @param arrivalDate
+     * @param departureDate
+     * @return List<LocalDate>
+     */
+    public List<LocalDate> findUnavailableNights(LocalDate arrivalDate, LocalDate departureDate) {
+        return this.reservationNightRepository.findAllByNightBetween(arrivalDate, departureDate.minusDays(1))
+                .stream().map(ReservationNight::getNight)
+                .sorted()
+                .collect(Collectors.toList());
     }
 
     /**
      * Return whether a given period is available for reservation or not.
      * In order to be available no active reservations have to overlap with the given dates.
+     * A period free on the occupancy index is taken as available, the ReservationNight primary key rejects it anyway
+     * if taken meanwhile by another instance. Otherwise the database is queried, since the index may still hold
+     * nights released by another instance.
      * @param periodStart
      * @param periodEnd
      * @return boolean
      */
     public boolean isAvailablePeriod(LocalDate periodStart, LocalDate periodEnd) {
-        List<Reservation> overlappingReservations = this.reservationRepository.findInPeriod(periodStart, periodEnd);
-        return overlappingReservations.size() == 0;
+        if (this.occupancyIndex.covers(periodStart) && this.occupancyIndex.isFree(periodStart, periodEnd)) {
+            return true;
+        }
+        return !this.reservationRepository.existsInPeriod(periodStart, periodEnd);
     }
 
     /**
      * Return whether a given period is available for reservation or not.
      * In order to be available no active reservations have to overlap with the given dates.
-     * This method also ignores a reservation with the id provided.
+     * This method also ignores the reservation provided. The occupancy index is used as in isAvailablePeriod.
      * @param periodStart
      * @param periodEnd
-     * @param reservationIdToExclude
+     * @param reservationToExclude
      * @return boolean
      */
-    public boolean isAvailablePeriodExcluding(LocalDate periodStart, LocalDate periodEnd, Long reservationIdToExclude) {
-        List<Reservation> overlappingReservations = this.reservationRepository
-                .findInPeriodExcluding(periodStart, periodEnd, reservationIdToExclude);
-        return overlappingReservations.size() == 0;
+    public boolean isAvailablePeriodExcluding(LocalDate periodStart, LocalDate periodEnd, Reservation reservationToExclude) {
+        if (this.occupancyIndex.covers(periodStart)
+                && this.occupancyIndex.isFreeExcluding(periodStart, periodEnd, reservationToExclude)) {
+            return true;
+        }
+        return !this.reservationRepository.existsInPeriodExcluding(periodStart, periodEnd, reservationToExclude.getId());
     }
 
     /**
      * Fetches the days from the given range in which the campsite is available for reservation.
+     * The occupancy index is used when enabled, reflecting the changes made by other instances after at most its
+     * refresh interval. Otherwise availability is computed from the active reservations overlapping the range, or
+     * looked up on the CalendarDay table if configured so.
      * @param periodStart
      * @param periodEnd
      * @return List<LocalDate>
      */
     public List<LocalDate> findAvailableDays(LocalDate periodStart, LocalDate periodEnd) {
+        this.validateAvailabilityPeriod(periodStart, periodEnd);
+        LOGGER.info("Looking up availability between dates {} {}", periodStart, periodEnd);
+        return this.reservationMetrics.timeOperation(ReservationMetrics.AVAILABILITY, () -> {
+            if (this.occupancyIndex.covers(periodStart)) {
+                return this.occupancyIndex.findFreeNights(periodStart, periodEnd);
+            }
+            return this.reservationMetrics.timeDatabase(ReservationMetrics.AVAILABILITY, ReservationMetrics.CHECK, () -> {
+                if (this.calendarTableEnabled) {
+                    return this.reservationRepository.findAvailableDays(periodStart, periodEnd)
+                            .stream().map(d -> d.getDay())
+                            .collect(Collectors.toList());
+                }
+                return AvailabilityCalculator.findAvailableDays(
+                        this.reservationRepository.findInPeriod(periodStart, periodEnd.plusDays(1)), periodStart, periodEnd);
+            });
+        });
+    }
+
+    /**
+     * Checks a date range availability is looked up on. Ranges are limited to the CalendarDay table horizon, so that
+     * a single lookup can not build and send an unbounded number of days.
+     * @param periodStart
+     * @param periodEnd
+     */
+    public void validateAvailabilityPeriod(LocalDate periodStart, LocalDate periodEnd) {
         if (periodStart.isAfter(periodEnd)) {
             throw new BadRequestException("Invalid dates range supplied");
         }
-        LOGGER.info("Looking up availability between dates {} {}", periodStart, periodEnd);
-        return this.reservationRepository.findAvailableDays(periodStart, periodEnd)
-                .stream().map(d -> d.getDay())
+        if (!periodEnd.isBefore(periodStart.plusYears(this.availabilityHorizonYears))) {
+            throw new BadRequestException("The dates range should be shorter than " + this.availabilityHorizonYears
+                    + " years");
+        }
+    }
+
+    /**
+     * Checks the period resulting from an update, which may combine a date of the request with one of the
+     * reservation.
+     * @param arrivalDate
+     * @param departureDate
+     */
+    static void validateStay(LocalDate arrivalDate, LocalDate departureDate) {
+        if (!arrivalDate.isBefore(departureDate)) {
+            throw new BadRequestException("Invalid dates range supplied");
+        }
+        if (DAYS.between(arrivalDate, departureDate) > ReservationPeriodValidator.MAX_STAY_DAYS) {
+            throw new BadRequestException("Reservation length should be between 1 to 3 days");
+        }
+    }
+
+    /**
+     * Copies the non-null properties of the request to the reservation and saves it.
+     * Must be called holding the locks of the requested nights.
+     * @param existingEntry
+     * @param request
+     * @return Reservation
+     */
+    private Reservation applyUpdate(Reservation existingEntry, UpdateReservationRequest request) {
+        final LocalDate previousArrivalDate = existingEntry.getArrivalDate();
+        final LocalDate previousDepartureDate = existingEntry.getDepartureDate();
+
+        if (request.getGuestEmail() != null) {
+            existingEntry.setGuestEmail(request.getGuestEmail());
+        }
+        if (request.getGuestFullName() != null) {
+            existingEntry.setGuestFullName(request.getGuestFullName());
+        }
+        if (request.getArrivalDate() != null) {
+            existingEntry.setArrivalDate(request.getArrivalDate());
+        }
+        if (request.getDepartureDate() != null) {
+            existingEntry.setDepartureDate(request.getDepartureDate());
+        }
+
+        Reservation reservation = this.saveVersioned(existingEntry);
+        if (!previousArrivalDate.equals(reservation.getArrivalDate())
+                || !previousDepartureDate.equals(reservation.getDepartureDate())) {
+            this.reservationNightRepository.deleteByReservationId(reservation.getId());
+            this.saveNights(reservation);
+            this.eventPublisher.publishEvent(CalendarChangedEvent.moved(previousArrivalDate, previousDepartureDate,
+                    reservation.getArrivalDate(), reservation.getDepartureDate()));
+        }
+
+        return reservation;
+    }
+
+    /**
+     * Saves a new reservation and its nights, holding the locks of the nights while checking their availability
+     * and inserting them. The locks are released before the caller's transaction commits.
+     * @param operation
+     * @param request
+     * @param newReservation Builds the reservation to save
+     * @return Reservation
+     */
+    private Reservation book(String operation, CreateReservationRequest request, Supplier<Reservation> newReservation) {
+        return this.reservationMetrics.timeOperation(operation, () -> {
+            try (NightLockManager.AcquiredLock nightsLock = this.lockNights(operation,
+                    request.getArrivalDate(), request.getDepartureDate())) {
+                if (!this.reservationMetrics.timeDatabase(operation, ReservationMetrics.CHECK,
+                        () -> this.isAvailablePeriod(request.getArrivalDate(), request.getDepartureDate()))) {
+                    throw new UnavailableDatesException();
+                }
+
+                Reservation reservation = this.reservationMetrics.timeDatabase(operation,
+                        ReservationMetrics.WRITE, () -> {
+                            Reservation savedReservation = this.reservationRepository.save(newReservation.get());
+                            this.saveNights(savedReservation);
+                            return savedReservation;
+                        });
+                this.eventPublisher.publishEvent(
+                        CalendarChangedEvent.occupied(reservation.getArrivalDate(), reservation.getDepartureDate()));
+
+                return reservation;
+            }
+        });
+    }
+
+    /**
+     * Locks the nights between arrival (inclusive) and departure (exclusive), recording the time waited for them.
+     * @param operation
+     * @param arrivalDate
+     * @param departureDate
+     * @return The acquired lock
+     */
+    private NightLockManager.AcquiredLock lockNights(String operation, LocalDate arrivalDate, LocalDate departureDate) {
+        long start = System.nanoTime();
+        NightLockManager.AcquiredLock lock = this.nightLockManager.lockNights(arrivalDate, departureDate);
+        this.reservationMetrics.recordLockWait(operation, System.nanoTime() - start);
+        return lock;
+    }
+
+    /**
+     * Saves an existing reservation, failing if it was modified by another transaction since it was loaded.
+     * @param reservation
+     * @return Reservation
+     */
+    private Reservation saveVersioned(Reservation reservation) {
+        try {
+            return this.reservationRepository.saveAndFlush(reservation);
+        } catch (ObjectOptimisticLockingFailureException e) {
+            throw new PreconditionFailedException("The reservation has been modified by another request", e);
+        }
+    }
+
+    /**
+     * Inserts the given reservations and all their nights, the latter in JDBC batches.
+     * Fails if any of the nights is already taken.
+     * @param requests
+     * @return The created reservations, in request order
+     */
+    private List<Reservation> saveBatch(List<CreateReservationRequest> requests) {
+        List<Reservation> reservations = this.reservationRepository.saveAll(requests.stream()
+                .map(request -> new Reservation(request.getGuestEmail(), request.getGuestFullName(),
+                        request.getArrivalDate(), request.getDepartureDate()))
+                .collect(Collectors.toList()));
+        List<ReservationNight> nights = reservations.stream()
+                .flatMap(reservation -> reservation.getArrivalDate().datesUntil(reservation.getDepartureDate())
+                        .map(night -> new ReservationNight(night, reservation.getId())))
+                .collect(Collectors.toList());
+        this.insertNights(nights);
+        return reservations;
+    }
+
+    /**
+     * Inserts the nights taken by the reservation, failing if any of them is already taken.
+     * @param reservation
+     */
+    private void saveNights(Reservation reservation) {
+        List<ReservationNight> nights = reservation.getArrivalDate().datesUntil(reservation.getDepartureDate())
+                .map(night -> new ReservationNight(night, reservation.getId()))
                 .collect(Collectors.toList());
+        this.insertNights(nights);
+    }
+
+    /**
+     * Inserts the given nights, failing if any of them is already taken.
+     * The pending changes are flushed first, so that the nights are the only statements flushed afterwards and any
+     * integrity violation can only come from their primary key, whatever the database names it.
+     * @param nights
+     */
+    private void insertNights(List<ReservationNight> nights) {
+        this.reservationRepository.flush();
+        try {
+            this.reservationNightRepository.saveAll(nights);
+            this.reservationNightRepository.flush();
+        } catch (DataIntegrityViolationException | ConcurrencyFailureException e) {
+            throw new NightsTakenException(e);
+        }
     }
 
 }
@@ -0,0 +1,71 @@
+package com.volcanoisland.reservationsapi.service;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A token bucket holding up to burst tokens and refilled at a fixed rate. Each admitted request takes a token.
+ */
+public class TokenBucket {
+
+    private final double burst;
+    private final double tokensPerNano;
+    private final ReentrantLock lock = new ReentrantLock();
+    private double tokens;
+    private long refilledAt;
+
+    /**
+     * @param burst Maximum number of tokens, available at once to an idle client
+     * @param tokensPerSecond Refill rate
+     * @param now Current System.nanoTime()
+     */
+    public TokenBucket(double burst, double tokensPerSecond, long now) {
+        if (burst < 1 || tokensPerSecond <= 0) {
+            throw new IllegalArgumentException("A token bucket requires a burst of at least 1 and a positive rate");
+        }
+        this.burst = burst;
+        this.tokensPerNano = tokensPerSecond / TimeUnit.SECONDS.toNanos(1);
+        this.tokens = burst;
+        this.refilledAt = now;
+    }
+
+    /**
+     * Takes a token if available.
+     * @param now Current System.nanoTime()
+     * @return 0 if a token was taken, otherwise the nanoseconds until one is available
+     */
+    public long tryConsume(long now) {
+        this.lock.lock();
+        try {
+            this.refill(now);
+            if (this.tokens >= 1) {
+                this.tokens--;
+                return 0;
+            }
+            return (long) Math.ceil((1 - this.tokens) / this.tokensPerNano);
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * @param now Current System.nanoTime()
+     * @return Whether the bucket is full, so that forgetting it does not change the outcome of later requests
+     */
+    public boolean isFull(long now) {
+        this.lock.lock();
+        try {
+            this.refill(now);
+            return this.tokens >= this.burst;
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    private void refill(long now) {
+        if (now - this.refilledAt > 0) {
+            this.tokens = Math.min(this.burst, this.tokens + (now - this.refilledAt) * this.tokensPerNano);
+            this.refilledAt = now;
+        }
+    }
+}
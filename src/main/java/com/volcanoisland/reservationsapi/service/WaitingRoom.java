@@ -0,0 +1,266 @@
+package com.volcanoisland.reservationsapi.service;
+
+import com.volcanoisland.reservationsapi.exception.BadRequestException;
+import com.volcanoisland.reservationsapi.exception.TooManyRequestsException;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Optional waiting room in front of the reservation, hold and batch creation, so that the guests arriving at once when a new day
+ * opens for booking are let through at a fixed rate instead of all reaching the database together.
+ *
+ * Guests take a signed token holding their place in the queue, poll their position with it and create their
+ * reservation once admitted. Positions are computed from the token alone, polling does not touch the database.
+ * Places are admitted at rate per second, but never ahead of the issued tokens, so that an idle room does not build
+ * up a burst. A token creates a single reservation and expires after token-ttl.
+ *
+ * The queue and the used places are kept per application instance, tokens issued by a previous run or another
+ * instance are rejected even when they share the secret, which only keeps tokens from being forged. When running
+ * several instances, clients have to be routed to the instance that issued their token for as long as they hold it
+ * (sticky routing).
+ */
+@Component
+public class WaitingRoom {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(WaitingRoom.class);
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final boolean enabled;
+    private final double admissionsPerMilli;
+    private final long tokenTtlMillis;
+    private final SecretKeySpec key;
+    private final long epoch;
+
+    private final AtomicLong issued = new AtomicLong();
+    private final ReentrantLock admissionLock = new ReentrantLock();
+    private double admitted;
+    private long admittedAt;
+    // Used places and when their tokens expire, in place order, which is also expiry order
+    private final ConcurrentSkipListMap<Long, Long> usedPlaces = new ConcurrentSkipListMap<>();
+
+    public WaitingRoom(@Value("${reservations.waiting-room.enabled:false}") boolean enabled,
+                       @Value("${reservations.waiting-room.rate:50}") double rate,
+                       @Value("${reservations.waiting-room.token-ttl:PT30M}") Duration tokenTtl,
+                       @Value("${reservations.waiting-room.secret:}") String secret) {
+        if (rate <= 0) {
+            throw new IllegalArgumentException("The waiting room rate must be positive");
+        }
+        this.enabled = enabled;
+        this.admissionsPerMilli = rate / TimeUnit.SECONDS.toMillis(1);
+        this.tokenTtlMillis = tokenTtl.toMillis();
+        byte[] keyBytes = secret.getBytes(StandardCharsets.UTF_8);
+        if (keyBytes.length == 0) {
+            keyBytes = new byte[32];
+            new SecureRandom().nextBytes(keyBytes);
+        }
+        this.key = new SecretKeySpec(keyBytes, HMAC_ALGORITHM);
+        this.epoch = System.currentTimeMillis();
+        this.admittedAt = this.epoch;
+    }
+
+    @PostConstruct
+    public void registerMetrics() {
+        if (this.enabled) {
+            this.meterRegistry.gauge("reservations.waiting-room.waiting", this,
+                    room -> room.issued.get() - room.admittedPlaces(System.currentTimeMillis()));
+            LOGGER.info("Waiting room admitting {} reservations per second",
+                    this.admissionsPerMilli * TimeUnit.SECONDS.toMillis(1));
+        }
+    }
+
+    public boolean isEnabled() {
+        return this.enabled;
+    }
+
+    /**
+     * Takes the next place in the queue.
+     * @param now Current time in epoch millis
+     * @return The place, holding its signed token
+     */
+    public Place enter(long now) {
+        long place = this.issued.getAndIncrement();
+        String payload = this.epoch + "." + place + "." + now;
+        return this.placeOf(payload + "." + this.sign(payload), place, now, now);
+    }
+
+    /**
+     * Looks up the place held by a token.
+     * @param token
+     * @param now Current time in epoch millis
+     * @return The place
+     * @throws BadRequestException if the token is not valid or expired
+     */
+    public Place find(String token, long now) {
+        if (token == null) {
+            throw new BadRequestException("A waiting room token is required, please request one");
+        }
+        String[] parts = token.split("\\.");
+        long place;
+        long issuedAt;
+        try {
+            if (parts.length != 4) {
+                throw new BadRequestException("Invalid waiting room token, please request a new one");
+            }
+            if (Long.parseLong(parts[0]) != this.epoch) {
+                throw new BadRequestException("Waiting room token issued by another instance, please request a new one");
+            }
+            place = Long.parseLong(parts[1]);
+            issuedAt = Long.parseLong(parts[2]);
+        } catch (NumberFormatException e) {
+            throw new BadRequestException("Invalid waiting room token, please request a new one", e);
+        }
+        String payload = parts[0] + "." + parts[1] + "." + parts[2];
+        if (!MessageDigest.isEqual(this.sign(payload).getBytes(StandardCharsets.US_ASCII),
+                parts[3].getBytes(StandardCharsets.US_ASCII))) {
+            throw new BadRequestException("Invalid waiting room token, please request a new one");
+        }
+        if (now - issuedAt >= this.tokenTtlMillis) {
+            throw new BadRequestException("Expired waiting room token, please request a new one");
+        }
+        return this.placeOf(token, place, issuedAt, now);
+    }
+
+    /**
+     * Claims the place held by a token for a reservation.
+     * @param token
+     * @param now Current time in epoch millis
+     * @return The claimed place, to be released if the reservation is not created
+     * @throws BadRequestException if the token is not valid, expired or already used
+     * @throws TooManyRequestsException if the place is not admitted yet
+     */
+    public Place claim(String token, long now) {
+        Place place = this.find(token, now);
+        if (!place.isAdmitted()) {
+            throw new TooManyRequestsException("Waiting room place not admitted yet, " + place.getPosition()
+                    + " guests ahead", place.getEstimatedWaitSeconds());
+        }
+        this.forgetExpiredPlaces(now);
+        if (this.usedPlaces.putIfAbsent(place.getPlace(), place.getExpiresAt()) != null) {
+            throw new BadRequestException("Waiting room token already used, please request a new one");
+        }
+        return place;
+    }
+
+    /**
+     * Releases a claimed place, so that its token can be used again.
+     * @param place
+     */
+    public void release(Place place) {
+        this.usedPlaces.remove(place.getPlace());
+    }
+
+    private Place placeOf(String token, long place, long issuedAt, long now) {
+        long position = Math.max(0, place + 1 - this.admittedPlaces(now));
+        long waitSeconds = (long) Math.ceil(position / this.admissionsPerMilli / TimeUnit.SECONDS.toMillis(1));
+        return new Place(token, place, position, waitSeconds, issuedAt + this.tokenTtlMillis);
+    }
+
+    /**
+     * @param now Current time in epoch millis
+     * @return Number of places admitted so far
+     */
+    private long admittedPlaces(long now) {
+        this.admissionLock.lock();
+        try {
+            if (now > this.admittedAt) {
+                this.admitted = Math.min(this.issued.get(),
+                        this.admitted + (now - this.admittedAt) * this.admissionsPerMilli);
+                this.admittedAt = now;
+            }
+            return (long) this.admitted;
+        } finally {
+            this.admissionLock.unlock();
+        }
+    }
+
+    private void forgetExpiredPlaces(long now) {
+        Iterator<Map.Entry<Long, Long>> iterator = this.usedPlaces.entrySet().iterator();
+        while (iterator.hasNext() && iterator.next().getValue() <= now) {
+            iterator.remove();
+        }
+    }
+
+    private String sign(String payload) {
+        try {
+            Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+            mac.init(this.key);
+            return Base64.getUrlEncoder().withoutPadding()
+                    .encodeToString(mac.doFinal(payload.getBytes(StandardCharsets.US_ASCII)));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Unable to sign the waiting room token", e);
+        }
+    }
+
+    /**
+     * A place in the waiting room.
+     */
+    public static final class Place {
+
+        private final String token;
+        private final long place;
+        private final long position;
+        private final long estimatedWaitSeconds;
+        private final long expiresAt;
+
+        private Place(String token, long place, long position, long estimatedWaitSeconds, long expiresAt) {
+            this.token = token;
+            this.place = place;
+            this.position = position;
+            this.estimatedWaitSeconds = estimatedWaitSeconds;
+            this.expiresAt = expiresAt;
+        }
+
+        public String getToken() {
+            return token;
+        }
+
+        public long getPlace() {
+            return place;
+        }
+
+        /**
+         * @return Number of places to be admitted before this one, 0 once admitted
+         */
+        public long getPosition() {
+            return position;
+        }
+
+        public long getEstimatedWaitSeconds() {
+            return estimatedWaitSeconds;
+        }
+
+        public boolean isAdmitted() {
+            return position == 0;
+        }
+
+        /**
+         * @return When the token expires, in epoch millis
+         */
+        public long getExpiresAt() {
+            return expiresAt;
+        }
+    }
+}
@@ -0,0 +1,243 @@
+package com.volcanoisland.reservationsapi.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.volcanoisland.reservationsapi.controller.request.CreateWaitlistEntryRequest;
+import com.volcanoisland.reservationsapi.dto.WaitlistEntryDto;
+import com.volcanoisland.reservationsapi.event.CalendarChangedEvent;
+import com.volcanoisland.reservationsapi.exception.BadRequestException;
+import com.volcanoisland.reservationsapi.exception.NotFoundException;
+import com.volcanoisland.reservationsapi.model.OutboxMessage;
+import com.volcanoisland.reservationsapi.model.ReservationNight;
+import com.volcanoisland.reservationsapi.model.WaitlistEntry;
+import com.volcanoisland.reservationsapi.model.WaitlistStatusEnum;
+import com.volcanoisland.reservationsapi.repository.OutboxMessageRepository;
+import com.volcanoisland.reservationsapi.repository.ReservationNightRepository;
+import com.volcanoisland.reservationsapi.repository.WaitlistEntryRepository;
+import com.volcanoisland.reservationsapi.validation.ReservationPeriodValidator;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import javax.annotation.PostConstruct;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Keeps the guests waiting for nights to free up, so that they are notified instead of polling the availability.
+ *
+ * When nights are released, the waiting entries overlapping them are looked up in a single query and the ones whose
+ * whole period is now free are marked as notified, saving their notification on the outbox. This runs within the
+ * transaction releasing the nights, so the notifications are saved if and only if the release commits. Entries are
+ * notified first come first, up to notify-batch-size per release. Entries created on a period already free are
+ * notified right away, as no release would notify them.
+ *
+ * Callbacks are only posted to the configured callback-hosts and callback-ports, and are disabled when no host is
+ * configured.
+ */
+@Service
+public class WaitlistService {
+
+    public static final String NIGHTS_AVAILABLE_TOPIC = "waitlist.nights-available";
+
+    @Autowired
+    private WaitlistEntryRepository waitlistEntryRepository;
+    @Autowired
+    private OutboxMessageRepository outboxMessageRepository;
+    @Autowired
+    private ReservationNightRepository reservationNightRepository;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${reservations.waitlist.notify-batch-size:100}")
+    private int notifyBatchSize;
+    @Value("${reservations.waitlist.callback-hosts:}")
+    private String[] callbackHostList;
+    @Value("${reservations.waitlist.callback-ports:80,443}")
+    private String[] callbackPortList;
+
+    private Set<String> callbackHosts;
+    private Set<Integer> callbackPorts;
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(WaitlistService.class);
+
+    @PostConstruct
+    public void start() {
+        this.callbackHosts = Arrays.stream(this.callbackHostList).map(String::trim).filter(host -> !host.isEmpty())
+                .map(host -> host.toLowerCase(Locale.ROOT)).collect(Collectors.toSet());
+        this.callbackPorts = Arrays.stream(this.callbackPortList).map(String::trim).filter(port -> !port.isEmpty())
+                .map(Integer::valueOf).collect(Collectors.toSet());
+    }
+
+    /**
+     * Fetches a single waitlist entry by Id or fails.
+     * @param id
+     * @return WaitlistEntry
+     */
+    public WaitlistEntry findOne(final Long id) {
+        LOGGER.info("Fetching waitlist entry by Id {}", id);
+        return this.waitlistEntryRepository.findById(id).orElseThrow(NotFoundException::new);
+    }
+
+    /**
+     * Adds a guest to the waitlist of a period. If the whole period is already free the entry is notified right away.
+     * @param request
+     * @return WaitlistEntry
+     */
+    @Transactional
+    public WaitlistEntry create(final CreateWaitlistEntryRequest request) {
+        LOGGER.info("Creating new waitlist entry {}", request);
+        if (request.getCallbackUrl() != null) {
+            this.validateCallbackUrl(request.getCallbackUrl());
+        }
+        WaitlistEntry entry = this.waitlistEntryRepository.save(new WaitlistEntry(request.getGuestEmail(),
+                request.getArrivalDate(), request.getDepartureDate(), request.getCallbackUrl()));
+        if (!this.notifyFree(Collections.singletonList(entry), 1).isEmpty()) {
+            this.meterRegistry.counter("reservations.waitlist.notified").increment();
+        }
+        return entry;
+    }
+
+    /**
+     * Removes a guest from the waitlist.
+     * @param id
+     * @return WaitlistEntry
+     */
+    @Transactional
+    public WaitlistEntry cancel(final Long id) {
+        LOGGER.info("Cancelling waitlist entry by Id {}", id);
+        WaitlistEntry entry = this.findOne(id);
+        entry.setStatus(WaitlistStatusEnum.CANCELLED.getId());
+        return this.waitlistEntryRepository.save(entry);
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT, fallbackExecution = true)
+    public void onCalendarChanged(CalendarChangedEvent event) {
+        if (!event.getReleasedNights().isEmpty()) {
+            this.notifyReleased(event.getReleasedNights());
+        }
+    }
+
+    /**
+     * Notifies the waiting entries whose whole period is free after the given nights were released, looking through
+     * the overlapping entries page by page until notify-batch-size of them are notified.
+     * @param releasedNights
+     * @return The notified entries
+     */
+    private List<WaitlistEntry> notifyReleased(List<LocalDate> releasedNights) {
+        LocalDate firstNight = Collections.min(releasedNights);
+        LocalDate lastNight = Collections.max(releasedNights);
+        List<WaitlistEntry> notified = new ArrayList<>();
+        int candidateCount = 0;
+        List<WaitlistEntry> candidates;
+        long afterId = 0;
+        do {
+            candidates = this.waitlistEntryRepository.findWaitingOverlapping(afterId,
+                    firstNight.minusDays(ReservationPeriodValidator.MAX_STAY_DAYS - 1), firstNight, lastNight.plusDays(1),
+                    PageRequest.of(0, this.notifyBatchSize));
+            if (candidates.isEmpty()) {
+                break;
+            }
+            candidateCount += candidates.size();
+            afterId = candidates.get(candidates.size() - 1).getId();
+            notified.addAll(this.notifyFree(candidates, this.notifyBatchSize - notified.size()));
+        } while (notified.size() < this.notifyBatchSize && candidates.size() == this.notifyBatchSize);
+
+        if (candidateCount > 0) {
+            this.meterRegistry.counter("reservations.waitlist.notified").increment(notified.size());
+            LOGGER.info("Notified {} of {} waitlist entries overlapping the released nights", notified.size(),
+                    candidateCount);
+        }
+        return notified;
+    }
+
+    /**
+     * Notifies the given entries whose whole period is free, first come first, saving their notification on the outbox.
+     * @param candidates
+     * @param limit Maximum number of entries to notify
+     * @return The notified entries
+     */
+    private List<WaitlistEntry> notifyFree(List<WaitlistEntry> candidates, int limit) {
+        // Nights still taken over the period of all the candidates, looked up once
+        LocalDate periodStart = candidates.stream().map(WaitlistEntry::getArrivalDate)
+                .min(Comparator.naturalOrder()).get();
+        LocalDate periodEnd = candidates.stream().map(WaitlistEntry::getDepartureDate)
+                .max(Comparator.naturalOrder()).get();
+        Set<LocalDate> takenNights = this.reservationNightRepository
+                .findAllByNightBetween(periodStart, periodEnd.minusDays(1)).stream()
+                .map(ReservationNight::getNight)
+                .collect(Collectors.toSet());
+
+        LocalDateTime now = LocalDateTime.now();
+        List<WaitlistEntry> notified = new ArrayList<>();
+        List<OutboxMessage> messages = new ArrayList<>();
+        for (WaitlistEntry entry : candidates) {
+            if (notified.size() == limit) {
+                break;
+            }
+            if (entry.getArrivalDate().datesUntil(entry.getDepartureDate()).anyMatch(takenNights::contains)) {
+                continue;
+            }
+            entry.setStatus(WaitlistStatusEnum.NOTIFIED.getId());
+            entry.setNotifiedAt(now);
+            notified.add(entry);
+            messages.add(new OutboxMessage(NIGHTS_AVAILABLE_TOPIC, entry.getId(), entry.getCallbackUrl(),
+                    this.toPayload(entry), now));
+        }
+        this.waitlistEntryRepository.saveAll(notified);
+        this.outboxMessageRepository.saveAll(messages);
+        return notified;
+    }
+
+    private String toPayload(WaitlistEntry entry) {
+        try {
+            return this.objectMapper.writeValueAsString(new WaitlistEntryDto(entry));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Unable to serialize waitlist entry " + entry.getId(), e);
+        }
+    }
+
+    /**
+     * Only http(s) URLs on the configured hosts and ports are accepted, so that the application can not be used to
+     * reach arbitrary hosts or services.
+     * @param callbackUrl
+     */
+    private void validateCallbackUrl(String callbackUrl) {
+        if (this.callbackHosts.isEmpty()) {
+            throw new BadRequestException("Callbacks are not enabled, the entry can be polled instead");
+        }
+        try {
+            URI uri = new URI(callbackUrl);
+            boolean http = "http".equals(uri.getScheme());
+            int port = uri.getPort() != -1 ? uri.getPort() : http ? 80 : 443;
+            if ((http || "https".equals(uri.getScheme())) && uri.getHost() != null
+                    && this.callbackHosts.contains(uri.getHost().toLowerCase(Locale.ROOT))
+                    && this.callbackPorts.contains(port)) {
+                return;
+            }
+        } catch (URISyntaxException e) {
+            throw new BadRequestException("Invalid callbackUrl supplied", e);
+        }
+        throw new BadRequestException("callbackUrl should be an http(s) URL on one of " + this.callbackHosts
+                + " and ports " + this.callbackPorts);
+    }
+}
@@ -12,7 +12,7 @@ public class ReservationPeriodValidator implements ConstraintValidator<ValidRese
 
     private String arrivalField;
     private String departureField;
-    private static final int MAX_STAY_DAYS = 3;
+    public static final int MAX_STAY_DAYS = 3;
     private static final int MIN_STAY_DAYS = 1;
 
     private static final int MAX_ANTICIPATION_MONTHS = 1;
@@ -0,0 +1,194 @@
+package com.volcanoisland.reservationsapi.controller;
+
+import com.volcanoisland.reservationsapi.controller.request.CreateReservationRequest;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+
+@RunWith(SpringRunner.class)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@AutoConfigureTestDatabase
+public class AvailabilityControllerIntegrationTest {
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Before
+    public void setup() {
+        restTemplate.getRestTemplate().setRequestFactory(new HttpComponentsClientHttpRequestFactory());
+    }
+
+    @Test
+    public void testConditionalAvailabilityRequests() {
+        String url = "/availability?from=" + LocalDate.now().plusDays(1) + "&to=" + LocalDate.now().plusDays(10);
+
+        // when looking up availability
+        ResponseEntity<String> response = restTemplate.getForEntity(url, String.class);
+
+        // then receive an ETag and a Cache-Control header requiring revalidation
+        Assert.assertEquals(HttpStatus.OK, response.getStatusCode());
+        String eTag = response.getHeaders().getETag();
+        Assert.assertNotNull(eTag);
+        Assert.assertEquals("no-cache", response.getHeaders().getCacheControl());
+
+        // when looking it up again with the received ETag
+        ResponseEntity<String> notModifiedResponse = getIfNoneMatch(url, eTag);
+
+        // then receive http status code 304 Not Modified
+        Assert.assertEquals(HttpStatus.NOT_MODIFIED, notModifiedResponse.getStatusCode());
+        Assert.assertNull(notModifiedResponse.getBody());
+
+        // when a reservation is created outside the range
+        Assert.assertEquals(HttpStatus.CREATED, restTemplate.postForEntity("/reservations",
+                new CreateReservationRequest("john@deacon.com", "John Deacon",
+                        LocalDate.now().plusDays(16), LocalDate.now().plusDays(17)), String.class).getStatusCode());
+
+        // then the availability of the range is still not modified
+        Assert.assertEquals(HttpStatus.NOT_MODIFIED, getIfNoneMatch(url, eTag).getStatusCode());
+
+        // when a reservation is created within the range
+        ResponseEntity<String> createResponse = restTemplate.postForEntity("/reservations",
+                new CreateReservationRequest("freddie@mercury.com", "Freddie Mercury",
+                        LocalDate.now().plusDays(9), LocalDate.now().plusDays(10)), String.class);
+        Assert.assertEquals(HttpStatus.CREATED, createResponse.getStatusCode());
+        ResponseEntity<String> modifiedResponse = getIfNoneMatch(url, eTag);
+
+        // then the availability is returned again with a new ETag
+        Assert.assertEquals(HttpStatus.OK, modifiedResponse.getStatusCode());
+        Assert.assertNotEquals(eTag, modifiedResponse.getHeaders().getETag());
+        Assert.assertFalse(modifiedResponse.getBody().contains(LocalDate.now().plusDays(9).toString()));
+    }
+
+    @Test
+    public void testAsyncAvailability() {
+        String query = "?from=" + LocalDate.now().plusDays(20) + "&to=" + LocalDate.now().plusDays(40);
+
+        // when looking up availability on both endpoints
+        ResponseEntity<String> response = restTemplate.getForEntity("/availability" + query, String.class);
+        ResponseEntity<String> asyncResponse = restTemplate.getForEntity("/availability/async" + query, String.class);
+
+        // then the same availability is returned
+        Assert.assertEquals(HttpStatus.OK, asyncResponse.getStatusCode());
+        Assert.assertEquals(response.getBody(), asyncResponse.getBody());
+        Assert.assertEquals(response.getHeaders().getETag(), asyncResponse.getHeaders().getETag());
+
+        // and conditional requests are supported as well
+        ResponseEntity<String> notModifiedResponse = getIfNoneMatch("/availability/async" + query,
+                asyncResponse.getHeaders().getETag());
+        Assert.assertEquals(HttpStatus.NOT_MODIFIED, notModifiedResponse.getStatusCode());
+    }
+
+    @Test
+    public void testAvailabilityRangeTooLong() {
+        String query = "?from=" + LocalDate.now().plusDays(1) + "&to=" + LocalDate.now().plusDays(1).plusYears(5);
+
+        // when looking up availability on a range longer than the calendar horizon
+        ResponseEntity<String> response = restTemplate.getForEntity("/availability" + query, String.class);
+        ResponseEntity<String> asyncResponse = restTemplate.getForEntity("/availability/async" + query, String.class);
+
+        // then receive http status code 400 Bad Request
+        Assert.assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        Assert.assertEquals(HttpStatus.BAD_REQUEST, asyncResponse.getStatusCode());
+    }
+
+    @Test
+    public void testAvailabilityStream() throws Exception {
+        LocalDate night = LocalDate.now().plusDays(23);
+
+        // given a client streaming availability changes
+        HttpURLConnection stream = openStream(null);
+        Assert.assertEquals(200, stream.getResponseCode());
+        BufferedReader reader = new BufferedReader(new InputStreamReader(stream.getInputStream(), StandardCharsets.UTF_8));
+
+        // when a reservation is created
+        ResponseEntity<String> createResponse = restTemplate.postForEntity("/reservations",
+                new CreateReservationRequest("brian@may.com", "Brian May", night, night.plusDays(1)), String.class);
+        Assert.assertEquals(HttpStatus.CREATED, createResponse.getStatusCode());
+
+        // then the taken night is pushed with a sequence number
+        List<String> event = readEvent(reader);
+        stream.disconnect();
+        Assert.assertTrue(event.toString(), event.contains("event:availability"));
+        Assert.assertTrue(event.toString(), event.stream().anyMatch(line -> line.startsWith("data:")
+                && line.contains("\"occupiedNights\":[\"" + night + "\"]")));
+        long sequence = Long.parseLong(event.stream().filter(line -> line.startsWith("id:"))
+                .findFirst().get().substring(3));
+
+        // when reconnecting from the previous event
+        HttpURLConnection resumed = openStream(String.valueOf(sequence - 1));
+        List<String> replayedEvent = readEvent(new BufferedReader(
+                new InputStreamReader(resumed.getInputStream(), StandardCharsets.UTF_8)));
+        resumed.disconnect();
+
+        // then the missed event is sent again
+        Assert.assertTrue(replayedEvent.toString(), replayedEvent.contains("id:" + sequence));
+
+        // when reconnecting from an unknown event
+        HttpURLConnection reset = openStream("1");
+        List<String> resetEvent = readEvent(new BufferedReader(
+                new InputStreamReader(reset.getInputStream(), StandardCharsets.UTF_8)));
+        reset.disconnect();
+
+        // then a reset is sent
+        Assert.assertTrue(resetEvent.toString(), resetEvent.contains("event:reset"));
+    }
+
+    private HttpURLConnection openStream(String lastEventId) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL(restTemplate.getRootUri() + "/availability/stream")
+                .openConnection();
+        connection.setRequestProperty(HttpHeaders.ACCEPT, MediaType.TEXT_EVENT_STREAM_VALUE);
+        if (lastEventId != null) {
+            connection.setRequestProperty("Last-Event-ID", lastEventId);
+        }
+        connection.setReadTimeout(10000);
+        return connection;
+    }
+
+    /**
+     * Reads the lines of the next event, skipping comments.
+     */
+    private List<String> readEvent(BufferedReader reader) throws IOException {
+        List<String> lines = new ArrayList<>();
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (line.isEmpty() && !lines.isEmpty()) {
+                return lines;
+            }
+            if (!line.isEmpty() && !line.startsWith(":")) {
+                lines.add(line);
+            }
+        }
+        return lines;
+    }
+
+    private ResponseEntity<String> getIfNoneMatch(String url, String eTag) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setIfNoneMatch(eTag);
+        return restTemplate.exchange(url, HttpMethod.GET, new HttpEntity<>(headers), String.class);
+    }
+
+}
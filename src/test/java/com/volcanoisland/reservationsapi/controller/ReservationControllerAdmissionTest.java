@@ -0,0 +1,159 @@
+package com.volcanoisland.reservationsapi.controller;
+
+import com.volcanoisland.reservationsapi.controller.request.CreateReservationRequest;
+import com.volcanoisland.reservationsapi.service.AdmissionControl;
+import com.volcanoisland.reservationsapi.service.NightLockManager;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@AutoConfigureTestDatabase
+@TestPropertySource(properties = {
+        "server.use-forward-headers=true",
+        "reservations.admission.enabled=true",
+        "reservations.admission.max-concurrent=2",
+        "reservations.admission.client.burst=5",
+        "reservations.admission.client.rate=0.01",
+        "reservations.admission.guest.burst=2",
+        "reservations.admission.guest.rate=0.01"})
+public class ReservationControllerAdmissionTest {
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private NightLockManager nightLockManager;
+
+    @Test
+    public void testGuestOverItsRateIsRejected() {
+        // given a guest that used its burst
+        for (int i = 0; i < 2; i++) {
+            Assert.assertNotEquals(HttpStatus.TOO_MANY_REQUESTS, restTemplate.postForEntity("/reservations",
+                    new CreateReservationRequest("roger@glover.com", "Roger Glover",
+                            LocalDate.now().plusDays(2 + i), LocalDate.now().plusDays(3 + i)), String.class)
+                    .getStatusCode());
+        }
+
+        // when booking again
+        ResponseEntity<String> response = restTemplate.postForEntity("/reservations",
+                new CreateReservationRequest("Roger@Glover.com", "Roger Glover",
+                        LocalDate.now().plusDays(5), LocalDate.now().plusDays(6)), String.class);
+
+        // then receive http status code 429 with a Retry-After and the rejection is counted
+        Assert.assertEquals(HttpStatus.TOO_MANY_REQUESTS, response.getStatusCode());
+        Assert.assertTrue(Long.parseLong(response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER)) > 0);
+        Assert.assertEquals(1, meterRegistry.counter("reservations.admission.rejected",
+                "reason", AdmissionControl.GUEST_RATE).count(), 0);
+
+        // and other guests can still book
+        Assert.assertEquals(HttpStatus.CREATED, restTemplate.postForEntity("/reservations",
+                new CreateReservationRequest("steve@morse.com", "Steve Morse",
+                        LocalDate.now().plusDays(5), LocalDate.now().plusDays(6)), String.class).getStatusCode());
+    }
+
+    @Test
+    public void testClientOverItsRateIsRejected() {
+        // given a client address that used its burst, on behalf of different guests
+        for (int i = 0; i < 5; i++) {
+            Assert.assertNotEquals(HttpStatus.TOO_MANY_REQUESTS, postFrom("203.0.113.7",
+                    new CreateReservationRequest("ian" + i + "@paice.com", "Ian Paice",
+                            LocalDate.now().plusDays(3), LocalDate.now().plusDays(2))).getStatusCode());
+        }
+
+        // when posting again
+        ResponseEntity<String> response = postFrom("203.0.113.7", new CreateReservationRequest(
+                "ian5@paice.com", "Ian Paice", LocalDate.now().plusDays(3), LocalDate.now().plusDays(2)));
+
+        // then receive http status code 429 with a Retry-After and the rejection is counted
+        Assert.assertEquals(HttpStatus.TOO_MANY_REQUESTS, response.getStatusCode());
+        Assert.assertTrue(Long.parseLong(response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER)) > 0);
+        Assert.assertEquals(1, meterRegistry.counter("reservations.admission.rejected",
+                "reason", AdmissionControl.CLIENT_RATE).count(), 0);
+
+        // and other clients can still post
+        Assert.assertNotEquals(HttpStatus.TOO_MANY_REQUESTS, postFrom("203.0.113.8", new CreateReservationRequest(
+                "ian5@paice.com", "Ian Paice", LocalDate.now().plusDays(3), LocalDate.now().plusDays(2))).getStatusCode());
+    }
+
+    @Test
+    public void testWritesOverTheConcurrencyLimitAreRejected() throws InterruptedException {
+        LocalDate arrivalDate = LocalDate.now().plusDays(10);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        List<Future<ResponseEntity<String>>> heldResponses = new ArrayList<>();
+        ResponseEntity<String> response;
+
+        // given as many writes in progress as allowed, waiting for the nights locked here
+        try (NightLockManager.AcquiredLock lock = nightLockManager.lockNights(arrivalDate, arrivalDate.plusDays(1))) {
+            for (int i = 0; i < 2; i++) {
+                final String address = "198.51.100." + i;
+                final String guestEmail = "glenn" + i + "@hughes.com";
+                heldResponses.add(executor.submit(() -> postFrom(address, new CreateReservationRequest(
+                        guestEmail, "Glenn Hughes", arrivalDate, arrivalDate.plusDays(1)))));
+            }
+            awaitInFlight(2);
+
+            // when one more write is made
+            response = postFrom("198.51.100.2", new CreateReservationRequest("tommy@bolin.com", "Tommy Bolin",
+                    arrivalDate.plusDays(2), arrivalDate.plusDays(3)));
+        }
+
+        // then it receives http status code 429 with a Retry-After and the rejection is counted
+        Assert.assertEquals(HttpStatus.TOO_MANY_REQUESTS, response.getStatusCode());
+        Assert.assertTrue(Long.parseLong(response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER)) > 0);
+        Assert.assertEquals(1, meterRegistry.counter("reservations.admission.rejected",
+                "reason", AdmissionControl.CONCURRENCY).count(), 0);
+
+        // and the writes in progress complete once the nights are released, freeing their slots
+        List<HttpStatus> heldStatuses = new ArrayList<>();
+        for (Future<ResponseEntity<String>> heldResponse : heldResponses) {
+            try {
+                heldStatuses.add(heldResponse.get(10, TimeUnit.SECONDS).getStatusCode());
+            } catch (ExecutionException | TimeoutException e) {
+                throw new AssertionError(e);
+            }
+        }
+        executor.shutdown();
+        Assert.assertTrue(heldStatuses.contains(HttpStatus.CREATED));
+        Assert.assertTrue(heldStatuses.contains(HttpStatus.CONFLICT));
+        awaitInFlight(0);
+    }
+
+    private ResponseEntity<String> postFrom(String clientAddress, CreateReservationRequest request) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set("X-Forwarded-For", clientAddress);
+        return restTemplate.postForEntity("/reservations", new HttpEntity<>(request, headers), String.class);
+    }
+
+    private void awaitInFlight(int count) throws InterruptedException {
+        for (int i = 0; i < 100 && meterRegistry.get("reservations.admission.in-flight").gauge().value() != count; i++) {
+            Thread.sleep(50);
+        }
+        Assert.assertEquals(count, meterRegistry.get("reservations.admission.in-flight").gauge().value(), 0);
+    }
+}
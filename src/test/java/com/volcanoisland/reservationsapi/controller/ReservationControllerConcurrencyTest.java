@@ -5,6 +5,7 @@ import com.volcanoisland.reservationsapi.controller.request.CreateReservationReq
 import com.volcanoisland.reservationsapi.controller.request.UpdateReservationRequest;
 import com.volcanoisland.reservationsapi.model.Reservation;
 import com.volcanoisland.reservationsapi.repository.ReservationRepository;
+import com.volcanoisland.reservationsapi.service.NightLockManager;
 import org.junit.Assert;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -12,10 +13,15 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpStatus;
 import org.springframework.test.context.junit4.SpringRunner;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
 @RunWith(SpringRunner.class)
 @AutoConfigureTestDatabase(replace=AutoConfigureTestDatabase.Replace.NONE)
@@ -87,6 +93,151 @@ public class ReservationControllerConcurrencyTest {
         Assert.assertEquals(1, updatedReservations.size());
     }
 
+    @Test
+    public void testMultipleUsersReservingDisjointAndOverlappingPeriods() throws InterruptedException {
+        LocalDate arrivalDate = LocalDate.now().plusDays(14);
+        CountDownLatch startGate = new CountDownLatch(1);
+        List<HttpStatus> disjointStatuses = Collections.synchronizedList(new ArrayList<>());
+        List<HttpStatus> overlappingStatuses = Collections.synchronizedList(new ArrayList<>());
+        List<Runnable> bookings = new ArrayList<>();
+
+        // given requests on separate nights and requests that all include the same night
+        for (int i = 0; i < 4; i++) {
+            LocalDate disjointArrivalDate = arrivalDate.plusDays(i);
+            bookings.add(() -> disjointStatuses.add(createReservation(startGate,
+                    "nick@mason.com", disjointArrivalDate, disjointArrivalDate.plusDays(1))));
+            LocalDate overlappingArrivalDate = arrivalDate.plusDays(10 + i % 2);
+            LocalDate overlappingDepartureDate = arrivalDate.plusDays(13);
+            bookings.add(() -> overlappingStatuses.add(createReservation(startGate,
+                    "rick@wright.com", overlappingArrivalDate, overlappingDepartureDate)));
+        }
+
+        // when they are all sent at the same time
+        bookings.add(startGate::countDown);
+        TestUtils.runAllParallel(bookings.toArray(new Runnable[0]));
+
+        // then every request on separate nights is created and only one of the overlapping ones
+        Assert.assertEquals(Collections.nCopies(4, HttpStatus.CREATED), disjointStatuses);
+        Assert.assertEquals(1, Collections.frequency(overlappingStatuses, HttpStatus.CREATED));
+        Assert.assertEquals(3, Collections.frequency(overlappingStatuses, HttpStatus.CONFLICT));
+        Assert.assertEquals(1, reservationRepository.findAllByGuestEmail("rick@wright.com").size());
+    }
+
+    @Test
+    public void testConnectionPoolMetricsExposed() {
+        // given a booking, run on the pooled datasource kept by this test
+        createReservation();
+
+        // when scraping the metrics
+        String metrics = restTemplate.getForObject("/actuator/prometheus", String.class);
+
+        // then the connection pool usage and the time waited for connections are exposed
+        Assert.assertTrue(metrics.contains("hikaricp_connections_active{"));
+        Assert.assertTrue(metrics.contains("hikaricp_connections_pending{"));
+        Assert.assertTrue(metrics.contains("hikaricp_connections_acquire_seconds_count{"));
+    }
+
+    @Test
+    public void testStripedLockingLetsNonOverlappingPeriodsProceed() throws InterruptedException {
+        NightLockManager lockManager = new NightLockManager(64);
+        LocalDate arrivalDate = LocalDate.now().plusDays(1);
+        CountDownLatch otherPeriodLocked = new CountDownLatch(1);
+
+        // given a period locked by this thread
+        try (NightLockManager.AcquiredLock lock = lockManager.lockNights(arrivalDate, arrivalDate.plusDays(3))) {
+            // when another thread locks the following nights
+            Thread other = lockInOtherThread(lockManager, arrivalDate.plusDays(3), arrivalDate.plusDays(6),
+                    otherPeriodLocked);
+
+            // then it gets its lock while the first one is still held
+            Assert.assertTrue(otherPeriodLocked.await(10, TimeUnit.SECONDS));
+            other.join();
+        }
+    }
+
+    @Test
+    public void testStripedLockingSerializesOverlappingPeriods() throws InterruptedException {
+        NightLockManager lockManager = new NightLockManager(64);
+        LocalDate arrivalDate = LocalDate.now().plusDays(1);
+        CountDownLatch otherPeriodLocked = new CountDownLatch(1);
+        Thread other;
+
+        // given a period locked by this thread
+        try (NightLockManager.AcquiredLock lock = lockManager.lockNights(arrivalDate, arrivalDate.plusDays(3))) {
+            // when another thread locks a period sharing its last night
+            other = lockInOtherThread(lockManager, arrivalDate.plusDays(2), arrivalDate.plusDays(5),
+                    otherPeriodLocked);
+
+            // then it waits for the first lock to be released
+            awaitWaiting(other);
+            Assert.assertEquals(1, otherPeriodLocked.getCount());
+        }
+        Assert.assertTrue(otherPeriodLocked.await(10, TimeUnit.SECONDS));
+        other.join();
+    }
+
+    @Test
+    public void testSingleStripeSerializesNonOverlappingPeriods() throws InterruptedException {
+        NightLockManager lockManager = new NightLockManager(1);
+        LocalDate arrivalDate = LocalDate.now().plusDays(1);
+        CountDownLatch otherPeriodLocked = new CountDownLatch(1);
+        Thread other;
+
+        // given a period locked by this thread on a single stripe, equivalent to the former synchronized methods
+        try (NightLockManager.AcquiredLock lock = lockManager.lockNights(arrivalDate, arrivalDate.plusDays(3))) {
+            // when another thread locks the following nights
+            other = lockInOtherThread(lockManager, arrivalDate.plusDays(3), arrivalDate.plusDays(6),
+                    otherPeriodLocked);
+
+            // then it waits even though no night is shared
+            awaitWaiting(other);
+            Assert.assertEquals(1, otherPeriodLocked.getCount());
+        }
+        Assert.assertTrue(otherPeriodLocked.await(10, TimeUnit.SECONDS));
+        other.join();
+    }
+
+    /**
+     * Starts a thread locking the given period, counting down the latch once the lock is held.
+     * @param lockManager
+     * @param arrivalDate
+     * @param departureDate
+     * @param locked
+     * @return The started thread
+     */
+    private static Thread lockInOtherThread(NightLockManager lockManager, LocalDate arrivalDate,
+                                            LocalDate departureDate, CountDownLatch locked) {
+        Thread thread = new Thread(() -> {
+            try (NightLockManager.AcquiredLock lock = lockManager.lockNights(arrivalDate, departureDate)) {
+                locked.countDown();
+            }
+        });
+        thread.start();
+        return thread;
+    }
+
+    /**
+     * Waits until the thread is parked, which only happens while it waits for a held lock.
+     * @param thread
+     * @throws InterruptedException
+     */
+    private static void awaitWaiting(Thread thread) throws InterruptedException {
+        while (thread.getState() != Thread.State.WAITING) {
+            Assert.assertTrue("The thread did not wait for the lock", thread.isAlive());
+            Thread.sleep(1);
+        }
+    }
+
+    private HttpStatus createReservation(CountDownLatch startGate, String guestEmail,
+                                         LocalDate arrivalDate, LocalDate departureDate) {
+        try {
+            startGate.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return restTemplate.postForEntity("/reservations", new CreateReservationRequest(guestEmail,
+                "Pink Floyd", arrivalDate, departureDate), String.class).getStatusCode();
+    }
 
     private void createReservation() {
         restTemplate.postForEntity("/reservations", new CreateReservationRequest("robert@plant.com",
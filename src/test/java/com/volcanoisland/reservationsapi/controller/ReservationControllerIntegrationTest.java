@@ -1,8 +1,23 @@
 package com.volcanoisland.reservationsapi.controller;
 
+import com.volcanoisland.reservationsapi.controller.request.BatchCreateReservationRequest;
+import com.volcanoisland.reservationsapi.controller.request.BatchModeEnum;
 import com.volcanoisland.reservationsapi.controller.request.CreateReservationRequest;
+import com.volcanoisland.reservationsapi.controller.request.ReservationLookupRequest;
 import com.volcanoisland.reservationsapi.controller.request.UpdateReservationRequest;
+import com.volcanoisland.reservationsapi.dto.BatchItemResultDto;
+import com.volcanoisland.reservationsapi.dto.BatchItemStatusEnum;
+import com.volcanoisland.reservationsapi.dto.BatchReservationResultDto;
 import com.volcanoisland.reservationsapi.dto.ReservationDto;
+import com.volcanoisland.reservationsapi.dto.ReservationLookupDto;
+import com.volcanoisland.reservationsapi.dto.ReservationLookupResultDto;
+import com.volcanoisland.reservationsapi.dto.ReservationPageDto;
+import com.volcanoisland.reservationsapi.model.Reservation;
+import com.volcanoisland.reservationsapi.model.ReservationNight;
+import com.volcanoisland.reservationsapi.model.ReservationStatusEnum;
+import com.volcanoisland.reservationsapi.repository.ReservationNightRepository;
+import com.volcanoisland.reservationsapi.repository.ReservationRepository;
+import com.volcanoisland.reservationsapi.service.HoldExpirySweeper;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
@@ -11,12 +26,19 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
 import org.springframework.test.context.junit4.SpringRunner;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
 
 @RunWith(SpringRunner.class)
@@ -27,6 +49,15 @@ public class ReservationControllerIntegrationTest {
     @Autowired
     private TestRestTemplate restTemplate;
 
+    @Autowired
+    private ReservationNightRepository reservationNightRepository;
+
+    @Autowired
+    private ReservationRepository reservationRepository;
+
+    @Autowired
+    private HoldExpirySweeper holdExpirySweeper;
+
     @Before
     public void setup() {
         restTemplate.getRestTemplate().setRequestFactory(new HttpComponentsClientHttpRequestFactory());
@@ -101,6 +132,209 @@ public class ReservationControllerIntegrationTest {
         Assert.assertEquals(HttpStatus.CONFLICT, overlappingCreateResponse.getStatusCode());
     }
 
+    @Test
+    public void testCreateReservationOnNightTakenByAnotherInstance() {
+        // given a night taken by a reservation saved by another application instance
+        ReservationNight takenNight = reservationNightRepository.saveAndFlush(
+                new ReservationNight(LocalDate.now().plusDays(21), -1L));
+
+        try {
+            // when creating a reservation including that night
+            ResponseEntity<String> createResponse = restTemplate.postForEntity("/reservations",
+                    new CreateReservationRequest("john@paul.com", "John Paul Jones",
+                            LocalDate.now().plusDays(20), LocalDate.now().plusDays(22)), String.class);
+
+            // then receive http status code 409 Conflict and no night is taken by the rejected reservation
+            Assert.assertEquals(HttpStatus.CONFLICT, createResponse.getStatusCode());
+            Assert.assertFalse(reservationNightRepository.existsById(LocalDate.now().plusDays(20)));
+
+            // and the conflict is counted as rejected by the database
+            Assert.assertTrue(restTemplate.getForObject("/actuator/prometheus", String.class)
+                    .contains("reservations_conflicts_total{operation=\"create\",reason=\"db_constraint\",}"));
+        } finally {
+            reservationNightRepository.delete(takenNight);
+        }
+    }
+
+    @Test
+    public void testCreateReservationOnNightReleasedByAnotherInstance() {
+        // given a reservation cancelled by another application instance, unknown to the occupancy index
+        LocalDate arrivalDate = LocalDate.now().plusDays(27);
+        Long id = restTemplate.postForObject("/reservations", new CreateReservationRequest("rod@evans.com",
+                "Rod Evans", arrivalDate, arrivalDate.plusDays(1)), ReservationDto.class).getId();
+        Reservation cancelled = reservationRepository.findById(id).get();
+        cancelled.setStatus(ReservationStatusEnum.CANCELLED.getId());
+        reservationRepository.save(cancelled);
+        reservationNightRepository.deleteAll(reservationNightRepository.findAllByNightBetween(arrivalDate, arrivalDate));
+
+        // when creating a reservation on the released night
+        ResponseEntity<ReservationDto> createResponse = restTemplate.postForEntity("/reservations",
+                new CreateReservationRequest("nick@simper.com", "Nick Simper", arrivalDate, arrivalDate.plusDays(1)),
+                ReservationDto.class);
+
+        // then it is created, as the night is confirmed free on the database
+        Assert.assertEquals(HttpStatus.CREATED, createResponse.getStatusCode());
+    }
+
+    @Test
+    public void testUpdateReservationWithIfMatch() {
+        // given an existing reservation and its ETag
+        ResponseEntity<ReservationDto> createResponse = restTemplate.postForEntity("/reservations",
+                new CreateReservationRequest("keith@moon.com", "Keith Moon",
+                        LocalDate.now().plusDays(10), LocalDate.now().plusDays(12)), ReservationDto.class);
+        Long id = createResponse.getBody().getId();
+        String eTag = restTemplate.getForEntity("/reservations/"+id, ReservationDto.class).getHeaders().getETag();
+        Assert.assertNotNull(eTag);
+
+        // when updating with the current ETag
+        HttpHeaders headers = new HttpHeaders();
+        headers.setIfMatch(eTag);
+        ResponseEntity<ReservationDto> updateResponse = restTemplate.exchange("/reservations/"+id, HttpMethod.PATCH,
+                new HttpEntity<>(new UpdateReservationRequest("keith@who.com", null, null, null), headers),
+                ReservationDto.class);
+
+        // then the update succeeds and a new ETag is returned
+        Assert.assertEquals(HttpStatus.OK, updateResponse.getStatusCode());
+        Assert.assertNotEquals(eTag, updateResponse.getHeaders().getETag());
+
+        // when updating again with the now stale ETag
+        ResponseEntity<String> staleUpdateResponse = restTemplate.exchange("/reservations/"+id, HttpMethod.PATCH,
+                new HttpEntity<>(new UpdateReservationRequest("keith@moon.com", null, null, null), headers),
+                String.class);
+
+        // then receive http status code 412 Precondition Failed
+        Assert.assertEquals(HttpStatus.PRECONDITION_FAILED, staleUpdateResponse.getStatusCode());
+    }
+
+    @Test
+    public void testUpdateReservationWithSingleDate() {
+        // given an existing reservation and the following night taken
+        LocalDate arrivalDate = LocalDate.now().plusDays(28);
+        Long id = restTemplate.postForObject("/reservations", new CreateReservationRequest("ginger@baker.com",
+                "Ginger Baker", arrivalDate, arrivalDate.plusDays(1)), ReservationDto.class).getId();
+        ReservationNight takenNight = reservationNightRepository.saveAndFlush(
+                new ReservationNight(arrivalDate.plusDays(1), -1L));
+
+        try {
+            // when extending the stay over the taken night with only the departure date
+            ResponseEntity<String> extendResponse = restTemplate.exchange("/reservations/"+id, HttpMethod.PATCH,
+                    new HttpEntity<>(new UpdateReservationRequest(null, null, null, arrivalDate.plusDays(2))),
+                    String.class);
+
+            // then receive http status code 409 Conflict
+            Assert.assertEquals(HttpStatus.CONFLICT, extendResponse.getStatusCode());
+        } finally {
+            reservationNightRepository.delete(takenNight);
+        }
+
+        // when moving only the arrival date after the current departure date
+        ResponseEntity<String> invalidResponse = restTemplate.exchange("/reservations/"+id, HttpMethod.PATCH,
+                new HttpEntity<>(new UpdateReservationRequest(null, null, arrivalDate.plusDays(2), null)),
+                String.class);
+
+        // then receive http status code 400 Bad Request
+        Assert.assertEquals(HttpStatus.BAD_REQUEST, invalidResponse.getStatusCode());
+
+        // when extending the stay once the night is free
+        ResponseEntity<ReservationDto> extendResponse = restTemplate.exchange("/reservations/"+id, HttpMethod.PATCH,
+                new HttpEntity<>(new UpdateReservationRequest(null, null, null, arrivalDate.plusDays(2))),
+                ReservationDto.class);
+
+        // then the stay is extended and keeps its arrival date
+        Assert.assertEquals(HttpStatus.OK, extendResponse.getStatusCode());
+        Assert.assertEquals(arrivalDate, extendResponse.getBody().getArrivalDate());
+        Assert.assertEquals(arrivalDate.plusDays(2), extendResponse.getBody().getDepartureDate());
+        Assert.assertTrue(reservationNightRepository.existsById(arrivalDate.plusDays(1)));
+    }
+
+    @Test
+    public void testHoldAndConfirmReservation() {
+        LocalDate night = LocalDate.now().plusDays(14);
+
+        // when holding a night
+        ResponseEntity<ReservationDto> holdResponse = restTemplate.postForEntity("/reservations/holds",
+                new CreateReservationRequest("roger@waters.com", "Roger Waters", night, night.plusDays(1)),
+                ReservationDto.class);
+
+        // then the hold is created with an expiry time
+        Assert.assertEquals(HttpStatus.CREATED, holdResponse.getStatusCode());
+        Assert.assertEquals(ReservationStatusEnum.HELD, holdResponse.getBody().getStatus());
+        Assert.assertTrue(holdResponse.getBody().getExpiresAt().isAfter(LocalDateTime.now()));
+        Long id = holdResponse.getBody().getId();
+
+        // and the night can not be reserved by someone else
+        ResponseEntity<String> createResponse = restTemplate.postForEntity("/reservations",
+                new CreateReservationRequest("david@gilmour.com", "David Gilmour", night, night.plusDays(1)), String.class);
+        Assert.assertEquals(HttpStatus.CONFLICT, createResponse.getStatusCode());
+        ResponseEntity<String> availability = restTemplate.getForEntity("/availability?from=" + night + "&to=" + night,
+                String.class);
+        Assert.assertFalse(availability.getBody().contains(night.toString() + "\"]"));
+
+        // when confirming the hold
+        ResponseEntity<ReservationDto> confirmResponse = restTemplate.postForEntity("/reservations/" + id + "/confirm",
+                null, ReservationDto.class);
+
+        // then it becomes an active reservation
+        Assert.assertEquals(HttpStatus.OK, confirmResponse.getStatusCode());
+        Assert.assertEquals(ReservationStatusEnum.ACTIVE, confirmResponse.getBody().getStatus());
+        Assert.assertNull(confirmResponse.getBody().getExpiresAt());
+    }
+
+    @Test
+    public void testExpiredHoldsAreSwept() {
+        // given a hold past its expiry time
+        Reservation hold = new Reservation("nick@mason.com", "Nick Mason",
+                LocalDate.parse("2020-03-01"), LocalDate.parse("2020-03-03"));
+        hold.setStatus(ReservationStatusEnum.HELD.getId());
+        hold.setExpiresAt(LocalDateTime.now().minusMinutes(1));
+        Long id = reservationRepository.save(hold).getId();
+        reservationNightRepository.saveAll(Arrays.asList(new ReservationNight(LocalDate.parse("2020-03-01"), id),
+                new ReservationNight(LocalDate.parse("2020-03-02"), id)));
+
+        // then it can no longer be confirmed
+        ResponseEntity<String> confirmResponse = restTemplate.postForEntity("/reservations/" + id + "/confirm",
+                null, String.class);
+        Assert.assertEquals(HttpStatus.METHOD_NOT_ALLOWED, confirmResponse.getStatusCode());
+
+        // when the sweeper runs
+        holdExpirySweeper.sweep(LocalDateTime.now());
+
+        // then the hold is expired and its nights released
+        Assert.assertEquals(ReservationStatusEnum.EXPIRED.getId(), reservationRepository.findById(id).get().getStatus());
+        Assert.assertTrue(reservationNightRepository.findAllByNightBetween(
+                LocalDate.parse("2020-03-01"), LocalDate.parse("2020-03-02")).isEmpty());
+    }
+
+    @Test
+    public void testCreateReservationWithIdempotencyKey() {
+        // given
+        HttpHeaders headers = new HttpHeaders();
+        headers.set("Idempotency-Key", "c1a4e2f0-5d2b-4f1e-9a3c-idempotent");
+        CreateReservationRequest request = new CreateReservationRequest("ian@paice.com", "Ian Paice",
+                LocalDate.now().plusDays(18), LocalDate.now().plusDays(19));
+
+        // when sending the same request twice with the same key
+        ResponseEntity<ReservationDto> first = restTemplate.postForEntity("/reservations",
+                new HttpEntity<>(request, headers), ReservationDto.class);
+        ResponseEntity<ReservationDto> retry = restTemplate.postForEntity("/reservations",
+                new HttpEntity<>(request, headers), ReservationDto.class);
+
+        // then the retry gets the original outcome and only one reservation is created
+        Assert.assertEquals(HttpStatus.CREATED, first.getStatusCode());
+        Assert.assertEquals(HttpStatus.CREATED, retry.getStatusCode());
+        Assert.assertEquals("true", retry.getHeaders().getFirst("Idempotent-Replayed"));
+        Assert.assertEquals(first.getBody().getId(), retry.getBody().getId());
+        Assert.assertEquals(1, reservationRepository.findAllByGuestEmail("ian@paice.com").size());
+
+        // when reusing the key for a different request
+        request.setGuestFullName("Ian Anderson Paice");
+        ResponseEntity<String> reused = restTemplate.postForEntity("/reservations",
+                new HttpEntity<>(request, headers), String.class);
+
+        // then receive http status code 400
+        Assert.assertEquals(HttpStatus.BAD_REQUEST, reused.getStatusCode());
+    }
+
     @Test
     public void testGetReservations() {
         // when fetching all reservations
@@ -109,6 +343,221 @@ public class ReservationControllerIntegrationTest {
         Assert.assertEquals(response.getStatusCode(), HttpStatus.OK);
     }
 
+    @Test
+    public void testGetReservationsPaginated() {
+        // given more reservations than fit in a page
+        for (int i = 0; i < 3; i++) {
+            restTemplate.postForEntity("/reservations", new CreateReservationRequest("roger@daltrey.com",
+                    "Roger Daltrey", LocalDate.now().plusDays(24 + i), LocalDate.now().plusDays(25 + i)), ReservationDto.class);
+        }
+        List<Long> allIds = new ArrayList<>();
+        for (ReservationDto reservation : restTemplate.getForObject("/reservations?limit=200", ReservationPageDto.class).getReservations()) {
+            allIds.add(reservation.getId());
+        }
+
+        // when following the next cursor with a page size of 2
+        List<Long> pagedIds = new ArrayList<>();
+        String next = null;
+        do {
+            ReservationPageDto page = restTemplate.getForObject("/reservations?limit=2" + (next != null ? "&cursor=" + next : ""),
+                    ReservationPageDto.class);
+            Assert.assertTrue(page.getReservations().size() <= 2);
+            page.getReservations().forEach(r -> pagedIds.add(r.getId()));
+            next = page.getNext();
+        } while (next != null);
+
+        // then every reservation is returned once, in ascending id order
+        Assert.assertTrue(allIds.size() >= 3);
+        Assert.assertEquals(allIds, pagedIds);
+    }
+
+    @Test
+    public void testGetReservationsFiltered() {
+        // when filtering cancelled reservations after cancelling one
+        Long id = restTemplate.postForEntity("/reservations", new CreateReservationRequest("pete@townshend.com",
+                "Pete Townshend", LocalDate.now().plusDays(15), LocalDate.now().plusDays(16)), ReservationDto.class)
+                .getBody().getId();
+        restTemplate.delete("/reservations/"+id);
+        ReservationPageDto page = restTemplate.getForObject("/reservations?status=CANCELLED&from=" +
+                LocalDate.now().plusDays(15) + "&to=" + LocalDate.now().plusDays(16), ReservationPageDto.class);
+
+        // then only matching reservations are returned
+        Assert.assertEquals(1, page.getReservations().size());
+        Assert.assertEquals(id, page.getReservations().get(0).getId());
+        Assert.assertNull(page.getNext());
+    }
+
+    @Test
+    public void testExportReservations() {
+        // given an existing reservation
+        Long id = restTemplate.postForEntity("/reservations", new CreateReservationRequest("john@entwistle.com",
+                "John Entwistle, Jr.", LocalDate.now().plusDays(17), LocalDate.now().plusDays(18)), ReservationDto.class)
+                .getBody().getId();
+
+        // when exporting as newline delimited JSON
+        ResponseEntity<String> ndjsonResponse = restTemplate.getForEntity("/reservations/export", String.class);
+        // then receive one JSON document per line
+        Assert.assertEquals(HttpStatus.OK, ndjsonResponse.getStatusCode());
+        Assert.assertTrue(ndjsonResponse.getBody().contains("{\"id\":" + id + ","));
+        for (String line : ndjsonResponse.getBody().split("\n")) {
+            Assert.assertTrue(line.startsWith("{") && line.endsWith("}"));
+        }
+
+        // when exporting as CSV
+        ResponseEntity<String> csvResponse = restTemplate.getForEntity("/reservations/export?format=csv", String.class);
+        // then receive a header line and quoted values when needed
+        Assert.assertEquals(HttpStatus.OK, csvResponse.getStatusCode());
+        Assert.assertTrue(csvResponse.getBody().startsWith("id,guestEmail,guestFullName,"));
+        Assert.assertTrue(csvResponse.getBody().contains(id + ",john@entwistle.com,\"John Entwistle, Jr.\","));
+    }
+
+    @Test
+    public void testValidateReservation() {
+        CreateReservationRequest request = new CreateReservationRequest("robert@plant.com", "Robert Plant",
+                LocalDate.now().plusDays(13), LocalDate.now().plusDays(14));
+
+        // when validating a reservation on available dates
+        ResponseEntity<String> validateResponse = restTemplate.postForEntity("/reservations/validate", request, String.class);
+
+        // then receive http status code 204 and no night is taken
+        Assert.assertEquals(HttpStatus.NO_CONTENT, validateResponse.getStatusCode());
+        Assert.assertFalse(reservationNightRepository.existsById(LocalDate.now().plusDays(13)));
+
+        // when validating a reservation overlapping an existing one
+        Assert.assertEquals(HttpStatus.CREATED,
+                restTemplate.postForEntity("/reservations", request, ReservationDto.class).getStatusCode());
+        ResponseEntity<String> conflictResponse = restTemplate.postForEntity("/reservations/validate",
+                new CreateReservationRequest("robert@plant.com", "Robert Plant",
+                        LocalDate.now().plusDays(12), LocalDate.now().plusDays(14)), String.class);
+
+        // then receive http status code 409 Conflict listing the taken nights
+        Assert.assertEquals(HttpStatus.CONFLICT, conflictResponse.getStatusCode());
+        Assert.assertTrue(conflictResponse.getBody().contains("\"errors\":[\"" + LocalDate.now().plusDays(13) + "\"]"));
+    }
+
+    @Test
+    public void testBookingMetricsExposedForPrometheus() {
+        // given a created reservation and a conflicting one
+        CreateReservationRequest request = new CreateReservationRequest("ian@gillan.com", "Ian Gillan",
+                LocalDate.now().plusDays(19), LocalDate.now().plusDays(20));
+        Assert.assertEquals(HttpStatus.CREATED, restTemplate.postForEntity("/reservations", request, String.class).getStatusCode());
+        Assert.assertEquals(HttpStatus.CONFLICT, restTemplate.postForEntity("/reservations", request, String.class).getStatusCode());
+
+        // when scraping the metrics
+        ResponseEntity<String> response = restTemplate.getForEntity("/actuator/prometheus", String.class);
+
+        // then booking timers and conflict counters are exposed
+        Assert.assertEquals(HttpStatus.OK, response.getStatusCode());
+        String metrics = response.getBody();
+        Assert.assertTrue(metrics.contains("reservations_operation_seconds_count{operation=\"create\",outcome=\"success\",}"));
+        Assert.assertTrue(metrics.contains("reservations_conflicts_total{operation=\"create\",reason=\"availability_check\",}"));
+        Assert.assertTrue(metrics.contains("reservations_lock_wait_seconds_count{operation=\"create\",}"));
+        Assert.assertTrue(metrics.contains("reservations_db_seconds_count{operation=\"create\",step=\"write\",}"));
+        Assert.assertTrue(metrics.contains("reservations_db_seconds_count{operation=\"create\",step=\"commit\",}"));
+    }
+
+    @Test
+    public void testCreateReservationsBatch() {
+        CreateReservationRequest first = new CreateReservationRequest("ritchie@blackmore.com", "Ritchie Blackmore",
+                LocalDate.now().plusDays(22), LocalDate.now().plusDays(23));
+        CreateReservationRequest overlapping = new CreateReservationRequest("jon@lord.com", "Jon Lord",
+                LocalDate.now().plusDays(22), LocalDate.now().plusDays(23));
+        CreateReservationRequest invalid = new CreateReservationRequest("roger@glover.com", "Roger Glover",
+                LocalDate.now().plusDays(23), LocalDate.now().plusDays(22));
+
+        // when creating a batch with reservations overlapping each other in all or nothing mode
+        ResponseEntity<BatchReservationResultDto> allOrNothingResponse = restTemplate.postForEntity("/reservations/batch",
+                new BatchCreateReservationRequest(BatchModeEnum.ALL_OR_NOTHING, Arrays.asList(first, overlapping)),
+                BatchReservationResultDto.class);
+
+        // then receive http status code 409 Conflict and nothing is created
+        Assert.assertEquals(HttpStatus.CONFLICT, allOrNothingResponse.getStatusCode());
+        Assert.assertEquals(0, allOrNothingResponse.getBody().getCreated());
+        Assert.assertEquals(BatchItemStatusEnum.NOT_CREATED, allOrNothingResponse.getBody().getResults().get(0).getStatus());
+        Assert.assertEquals(BatchItemStatusEnum.CONFLICT, allOrNothingResponse.getBody().getResults().get(1).getStatus());
+        Assert.assertFalse(reservationNightRepository.existsById(LocalDate.now().plusDays(22)));
+
+        // when creating a batch with an invalid reservation and no conflict in all or nothing mode
+        ResponseEntity<BatchReservationResultDto> invalidResponse = restTemplate.postForEntity("/reservations/batch",
+                new BatchCreateReservationRequest(BatchModeEnum.ALL_OR_NOTHING, Arrays.asList(first, invalid)),
+                BatchReservationResultDto.class);
+
+        // then receive http status code 400 Bad Request and nothing is created
+        Assert.assertEquals(HttpStatus.BAD_REQUEST, invalidResponse.getStatusCode());
+        Assert.assertEquals(BatchItemStatusEnum.NOT_CREATED, invalidResponse.getBody().getResults().get(0).getStatus());
+        Assert.assertEquals(BatchItemStatusEnum.INVALID, invalidResponse.getBody().getResults().get(1).getStatus());
+        Assert.assertFalse(reservationNightRepository.existsById(LocalDate.now().plusDays(22)));
+
+        // when creating the same batch plus an invalid reservation in partial mode
+        ResponseEntity<BatchReservationResultDto> partialResponse = restTemplate.postForEntity("/reservations/batch",
+                new BatchCreateReservationRequest(BatchModeEnum.PARTIAL, Arrays.asList(first, overlapping, invalid)),
+                BatchReservationResultDto.class);
+
+        // then receive http status code 200 and the result of each reservation
+        Assert.assertEquals(HttpStatus.OK, partialResponse.getStatusCode());
+        Assert.assertEquals(1, partialResponse.getBody().getCreated());
+        List<BatchItemResultDto> results = partialResponse.getBody().getResults();
+        Assert.assertEquals(BatchItemStatusEnum.CREATED, results.get(0).getStatus());
+        Assert.assertNotNull(results.get(0).getId());
+        Assert.assertEquals(BatchItemStatusEnum.CONFLICT, results.get(1).getStatus());
+        Assert.assertEquals(BatchItemStatusEnum.INVALID, results.get(2).getStatus());
+        Assert.assertTrue(reservationNightRepository.existsById(LocalDate.now().plusDays(22)));
+    }
+
+    @Test
+    public void testGetReservationsByIds() {
+        // given existing reservations
+        Long first = reservationRepository.save(new Reservation("david@coverdale.com", "David Coverdale",
+                LocalDate.parse("2020-05-01"), LocalDate.parse("2020-05-03"))).getId();
+        Long second = reservationRepository.save(new Reservation("glenn@hughes.com", "Glenn Hughes",
+                LocalDate.parse("2020-05-03"), LocalDate.parse("2020-05-05"))).getId();
+
+        // when fetching them by ids, along with a nonexistent one
+        ResponseEntity<ReservationLookupDto> response = restTemplate.getForEntity(
+                "/reservations?ids=" + second + ",-1," + first, ReservationLookupDto.class);
+
+        // then receive them in request order, with the nonexistent one marked as not found
+        Assert.assertEquals(HttpStatus.OK, response.getStatusCode());
+        List<ReservationLookupResultDto> results = response.getBody().getResults();
+        Assert.assertEquals(3, results.size());
+        Assert.assertEquals("glenn@hughes.com", results.get(0).getReservation().getGuestEmail());
+        Assert.assertEquals(Long.valueOf(-1), results.get(1).getId());
+        Assert.assertFalse(results.get(1).isFound());
+        Assert.assertNull(results.get(1).getReservation());
+        Assert.assertTrue(results.get(2).isFound());
+        Assert.assertEquals(first, results.get(2).getReservation().getId());
+
+        // when fetching them through the request body
+        ResponseEntity<ReservationLookupDto> postResponse = restTemplate.postForEntity("/reservations/lookup",
+                new ReservationLookupRequest(Arrays.asList(first, second)), ReservationLookupDto.class);
+
+        // then receive them in request order
+        Assert.assertEquals(HttpStatus.OK, postResponse.getStatusCode());
+        Assert.assertEquals(first, postResponse.getBody().getResults().get(0).getId());
+        Assert.assertEquals(second, postResponse.getBody().getResults().get(1).getId());
+    }
+
+    @Test
+    public void testGetReservationsByIdsIsBounded() {
+        // when fetching more reservations than allowed
+        List<Long> ids = new ArrayList<>();
+        for (long i = 0; i <= ReservationLookupRequest.MAX_IDS; i++) {
+            ids.add(i);
+        }
+        ResponseEntity<String> response = restTemplate.postForEntity("/reservations/lookup",
+                new ReservationLookupRequest(ids), String.class);
+        // then receive http status code 400
+        Assert.assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+    }
+
+    @Test
+    public void testGetReservationsPageSizeIsBounded() {
+        // when requesting a page larger than allowed
+        ResponseEntity<String> response = restTemplate.getForEntity("/reservations?limit=1000", String.class);
+        // then receive http status code 400
+        Assert.assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+    }
+
 
 
 }
\ No newline at end of file
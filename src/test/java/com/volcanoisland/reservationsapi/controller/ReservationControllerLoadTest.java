@@ -0,0 +1,215 @@
+package com.volcanoisland.reservationsapi.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.volcanoisland.reservationsapi.controller.request.CreateReservationRequest;
+import com.volcanoisland.reservationsapi.controller.request.UpdateReservationRequest;
+import com.volcanoisland.reservationsapi.dto.ReservationDto;
+import com.volcanoisland.reservationsapi.model.Reservation;
+import com.volcanoisland.reservationsapi.model.ReservationStatusEnum;
+import com.volcanoisland.reservationsapi.repository.ReservationRepository;
+import org.apache.http.impl.client.HttpClientBuilder;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Simulates the opening of bookings: many clients released at once, most of them after the same few hot nights,
+ * mixing availability lookups with creations, updates and cancellations of their own reservations.
+ *
+ * Reports throughput, latency percentiles and conflict rate, and checks that no active reservations overlap.
+ * The load can be scaled up with -Dloadtest.clients, -Dloadtest.operations and -Dloadtest.threads.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@AutoConfigureTestDatabase
+@TestPropertySource(properties = "server.tomcat.max-threads=200")
+public class ReservationControllerLoadTest {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ReservationControllerLoadTest.class);
+
+    private static final int CLIENTS = Integer.getInteger("loadtest.clients", 200);
+    private static final int OPERATIONS_PER_CLIENT = Integer.getInteger("loadtest.operations", 10);
+    private static final int THREADS = Integer.getInteger("loadtest.threads", 32);
+    // Share of bookings going to the hot nights, the first ones on sale
+    private static final double HOT_RANGE_RATIO = 0.8;
+    private static final int HOT_RANGE_DAYS = 5;
+    private static final int BOOKING_WINDOW_DAYS = 28;
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private ReservationRepository reservationRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private final Map<String, ConcurrentLinkedQueue<Long>> latencies = new ConcurrentHashMap<>();
+    private final AtomicInteger conflicts = new AtomicInteger();
+    private final AtomicInteger bookingAttempts = new AtomicInteger();
+    private final ConcurrentLinkedQueue<String> unexpectedResponses = new ConcurrentLinkedQueue<>();
+
+    @Before
+    public void setup() {
+        restTemplate.getRestTemplate().setRequestFactory(new HttpComponentsClientHttpRequestFactory(
+                HttpClientBuilder.create().setMaxConnTotal(THREADS).setMaxConnPerRoute(THREADS).build()));
+    }
+
+    @Test
+    public void testBookingOpenSpike() throws InterruptedException {
+        // given many clients waiting for bookings to open
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch opening = new CountDownLatch(1);
+        for (int i = 0; i < CLIENTS; i++) {
+            final int clientId = i;
+            executor.execute(() -> {
+                try {
+                    opening.await();
+                    runClient(clientId);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } catch (Exception e) {
+                    unexpectedResponses.add("client " + clientId + ": " + e);
+                }
+            });
+        }
+
+        // when they are all released at once
+        long start = System.nanoTime();
+        opening.countDown();
+        executor.shutdown();
+        Assert.assertTrue(executor.awaitTermination(10, TimeUnit.MINUTES));
+        long elapsedNanos = System.nanoTime() - start;
+        report(elapsedNanos);
+
+        // then every request got an expected response and no active reservations overlap
+        Assert.assertTrue(unexpectedResponses.toString(), unexpectedResponses.isEmpty());
+        List<Reservation> activeReservations = reservationRepository.findAll().stream()
+                .filter(r -> ReservationStatusEnum.ACTIVE.getId().equals(r.getStatus()))
+                .sorted(Comparator.comparing(Reservation::getArrivalDate))
+                .collect(Collectors.toList());
+        Assert.assertFalse(activeReservations.isEmpty());
+        for (int i = 1; i < activeReservations.size(); i++) {
+            Reservation previous = activeReservations.get(i - 1);
+            Reservation current = activeReservations.get(i);
+            Assert.assertFalse("Reservations " + previous.getId() + " and " + current.getId() + " overlap",
+                    current.getArrivalDate().isBefore(previous.getDepartureDate()));
+        }
+    }
+
+    /**
+     * Runs the operations of a single client: mostly availability lookups and bookings, plus updates and
+     * cancellations of the reservations it got.
+     * @param clientId
+     */
+    private void runClient(int clientId) throws IOException {
+        Random random = new Random(clientId);
+        List<Long> ownReservations = new ArrayList<>();
+        String email = "guest" + clientId + "@volcano.com";
+
+        for (int i = 0; i < OPERATIONS_PER_CLIENT; i++) {
+            int operation = random.nextInt(10);
+            if (operation < 5) {
+                LocalDate from = LocalDate.now().plusDays(1);
+                call("availability", () -> restTemplate.getForEntity(
+                        "/availability?from=" + from + "&to=" + from.plusDays(BOOKING_WINDOW_DAYS), String.class),
+                        HttpStatus.OK);
+            } else if (operation < 8 || ownReservations.isEmpty()) {
+                LocalDate arrivalDate = randomArrivalDate(random);
+                bookingAttempts.incrementAndGet();
+                ResponseEntity<String> response = call("create", () -> restTemplate.postForEntity(
+                        "/reservations", new CreateReservationRequest(email, "Guest " + clientId, arrivalDate,
+                                arrivalDate.plusDays(1 + random.nextInt(3))), String.class),
+                        HttpStatus.CREATED, HttpStatus.CONFLICT);
+                if (response.getStatusCode() == HttpStatus.CREATED) {
+                    ownReservations.add(objectMapper.readValue(response.getBody(), ReservationDto.class).getId());
+                }
+            } else if (operation < 9) {
+                Long id = ownReservations.get(random.nextInt(ownReservations.size()));
+                LocalDate arrivalDate = randomArrivalDate(random);
+                bookingAttempts.incrementAndGet();
+                call("update", () -> restTemplate.exchange("/reservations/" + id, HttpMethod.PATCH,
+                        new HttpEntity<>(new UpdateReservationRequest(arrivalDate, arrivalDate.plusDays(1 + random.nextInt(3)))),
+                        String.class), HttpStatus.OK, HttpStatus.CONFLICT);
+            } else {
+                Long id = ownReservations.remove(random.nextInt(ownReservations.size()));
+                call("cancel", () -> restTemplate.exchange("/reservations/" + id, HttpMethod.DELETE,
+                        null, String.class), HttpStatus.OK);
+            }
+        }
+    }
+
+    private LocalDate randomArrivalDate(Random random) {
+        int offset = random.nextDouble() < HOT_RANGE_RATIO
+                ? random.nextInt(HOT_RANGE_DAYS)
+                : HOT_RANGE_DAYS + random.nextInt(BOOKING_WINDOW_DAYS - HOT_RANGE_DAYS - 3);
+        return LocalDate.now().plusDays(1 + offset);
+    }
+
+    /**
+     * Performs a request recording its latency, and whether it ended in a conflict or an unexpected status.
+     */
+    private <T> ResponseEntity<T> call(String operation, Supplier<ResponseEntity<T>> request, HttpStatus... expected) {
+        long start = System.nanoTime();
+        ResponseEntity<T> response = request.get();
+        latencies.computeIfAbsent(operation, k -> new ConcurrentLinkedQueue<>()).add(System.nanoTime() - start);
+
+        if (response.getStatusCode() == HttpStatus.CONFLICT) {
+            conflicts.incrementAndGet();
+        }
+        if (!Arrays.asList(expected).contains(response.getStatusCode())) {
+            unexpectedResponses.add(operation + ": " + response.getStatusCode());
+        }
+        return response;
+    }
+
+    private void report(long elapsedNanos) {
+        long requests = latencies.values().stream().mapToLong(ConcurrentLinkedQueue::size).sum();
+        LOGGER.info("{} clients sent {} requests in {} ms: {} requests/s, {}% of {} bookings conflicted",
+                CLIENTS, requests, elapsedNanos / 1_000_000, requests * 1_000_000_000L / elapsedNanos,
+                bookingAttempts.get() == 0 ? 0 : conflicts.get() * 100 / bookingAttempts.get(), bookingAttempts.get());
+        latencies.forEach((operation, samples) -> {
+            long[] sorted = samples.stream().mapToLong(Long::longValue).sorted().toArray();
+            LOGGER.info("{}: {} requests, p50 {} ms, p95 {} ms, p99 {} ms, max {} ms", operation, sorted.length,
+                    percentileMillis(sorted, 50), percentileMillis(sorted, 95), percentileMillis(sorted, 99),
+                    percentileMillis(sorted, 100));
+        });
+    }
+
+    private static double percentileMillis(long[] sorted, int percentile) {
+        int index = Math.max(0, (int) Math.ceil(percentile / 100.0 * sorted.length) - 1);
+        return Math.round(sorted[index] / 10_000.0) / 100.0;
+    }
+}
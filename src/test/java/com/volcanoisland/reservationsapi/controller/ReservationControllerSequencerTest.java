@@ -0,0 +1,146 @@
+package com.volcanoisland.reservationsapi.controller;
+
+import com.volcanoisland.reservationsapi.TestUtils;
+import com.volcanoisland.reservationsapi.controller.request.CreateReservationRequest;
+import com.volcanoisland.reservationsapi.controller.request.UpdateReservationRequest;
+import com.volcanoisland.reservationsapi.dto.BookingCommandDto;
+import com.volcanoisland.reservationsapi.dto.BookingCommandStatusEnum;
+import com.volcanoisland.reservationsapi.exception.PreconditionFailedException;
+import com.volcanoisland.reservationsapi.exception.UnavailableDatesException;
+import com.volcanoisland.reservationsapi.model.Reservation;
+import com.volcanoisland.reservationsapi.repository.ReservationRepository;
+import com.volcanoisland.reservationsapi.service.BookingCommand;
+import com.volcanoisland.reservationsapi.service.BookingSequencer;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@AutoConfigureTestDatabase
+@TestPropertySource(properties = "reservations.sequencer.enabled=true")
+public class ReservationControllerSequencerTest {
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private ReservationRepository reservationRepository;
+
+    @Autowired
+    private BookingSequencer bookingSequencer;
+
+    @Test
+    public void testMultipleUsersReservingSamePeriod() throws InterruptedException {
+        // when multiple concurrent requests attempt to reserve the same days through the sequencer
+        ConcurrentLinkedQueue<HttpStatus> statuses = new ConcurrentLinkedQueue<>();
+        TestUtils.runMultithreaded(() -> statuses.add(restTemplate.postForEntity("/reservations",
+                new CreateReservationRequest("ritchie@blackmore.com", "Ritchie Blackmore",
+                        LocalDate.now().plusDays(2), LocalDate.now().plusDays(5)), String.class).getStatusCode()),
+                10);
+
+        // then only 1 was created and the rest were rejected
+        Assert.assertEquals(1, statuses.stream().filter(HttpStatus.CREATED::equals).count());
+        Assert.assertEquals(9, statuses.stream().filter(HttpStatus.CONFLICT::equals).count());
+        List<Reservation> createdReservations = reservationRepository.findAllByGuestEmail("ritchie@blackmore.com");
+        Assert.assertEquals(1, createdReservations.size());
+    }
+
+    @Test
+    public void testCreateReservationRespondAsync() throws InterruptedException {
+        // given
+        HttpHeaders headers = new HttpHeaders();
+        headers.set("Prefer", "respond-async");
+        CreateReservationRequest request = new CreateReservationRequest("jon@lord.com", "Jon Lord",
+                LocalDate.now().plusDays(10), LocalDate.now().plusDays(11));
+
+        // when
+        ResponseEntity<String> response = restTemplate.postForEntity("/reservations",
+                new HttpEntity<>(request, headers), String.class);
+
+        // then the command is accepted and eventually completed
+        Assert.assertEquals(HttpStatus.ACCEPTED, response.getStatusCode());
+        Assert.assertNotNull(response.getHeaders().getLocation());
+        BookingCommandDto command = null;
+        for (int i = 0; i < 50; i++) {
+            command = restTemplate.getForObject(response.getHeaders().getLocation().toString(), BookingCommandDto.class);
+            if (command.getStatus() != BookingCommandStatusEnum.PENDING) {
+                break;
+            }
+            Thread.sleep(100);
+        }
+        Assert.assertEquals(BookingCommandStatusEnum.COMPLETED, command.getStatus());
+        Assert.assertTrue(reservationRepository.findById(command.getReservationId()).isPresent());
+    }
+
+    @Test
+    public void testUpdateWithSingleDateClaimsMergedPeriod() throws InterruptedException {
+        // given a reservation extended by its departure date only, and a creation on the night it extends onto
+        Reservation reservation = restTemplate.postForObject("/reservations", new CreateReservationRequest(
+                "ian@gillan.com", "Ian Gillan", LocalDate.now().plusDays(20), LocalDate.now().plusDays(22)),
+                Reservation.class);
+        UpdateReservationRequest update = new UpdateReservationRequest();
+        update.setId(reservation.getId());
+        update.setDepartureDate(LocalDate.now().plusDays(23));
+
+        // when both are queued together
+        BookingCommand updateCommand = bookingSequencer.submitUpdate(update);
+        BookingCommand createCommand = bookingSequencer.submitCreate(new CreateReservationRequest(
+                "roger@glover.com", "Roger Glover", LocalDate.now().plusDays(22), LocalDate.now().plusDays(24)));
+
+        // then the update is applied and the creation rejected by the availability check
+        Assert.assertEquals(LocalDate.now().plusDays(23), updateCommand.getResult().join().getDepartureDate());
+        try {
+            createCommand.getResult().join();
+            Assert.fail("The creation should have been rejected");
+        } catch (CompletionException e) {
+            Assert.assertEquals(UnavailableDatesException.class, e.getCause().getClass());
+        }
+    }
+
+    @Test
+    public void testUpdateWithStaleVersionRejectedBeforeWriting() {
+        // given
+        Reservation reservation = restTemplate.postForObject("/reservations", new CreateReservationRequest(
+                "david@coverdale.com", "David Coverdale", LocalDate.now().plusDays(26), LocalDate.now().plusDays(27)),
+                Reservation.class);
+        UpdateReservationRequest update = new UpdateReservationRequest();
+        update.setId(reservation.getId());
+        update.setVersion(reservationRepository.findById(reservation.getId()).get().getVersion() + 1);
+        update.setDepartureDate(LocalDate.now().plusDays(28));
+
+        // when
+        BookingCommand command = bookingSequencer.submitUpdate(update);
+
+        // then
+        try {
+            command.getResult().join();
+            Assert.fail("The update should have been rejected");
+        } catch (CompletionException e) {
+            Assert.assertEquals(PreconditionFailedException.class, e.getCause().getClass());
+        }
+        Assert.assertEquals(LocalDate.now().plusDays(27),
+                reservationRepository.findById(reservation.getId()).get().getDepartureDate());
+    }
+
+    @Test
+    public void testGetUnknownBookingCommand() {
+        ResponseEntity<String> response = restTemplate.getForEntity("/reservations/commands/unknown", String.class);
+        Assert.assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
+    }
+}
@@ -0,0 +1,120 @@
+package com.volcanoisland.reservationsapi.controller;
+
+import com.volcanoisland.reservationsapi.controller.request.BatchCreateReservationRequest;
+import com.volcanoisland.reservationsapi.controller.request.BatchModeEnum;
+import com.volcanoisland.reservationsapi.controller.request.CreateReservationRequest;
+import com.volcanoisland.reservationsapi.dto.WaitingRoomPlaceDto;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.time.LocalDate;
+import java.util.Collections;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@AutoConfigureTestDatabase
+@TestPropertySource(properties = "reservations.waiting-room.enabled=true")
+public class ReservationControllerWaitingRoomTest {
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Test
+    public void testCreateReservationThroughWaitingRoom() {
+        // given
+        CreateReservationRequest request = new CreateReservationRequest("don@airey.com", "Don Airey",
+                LocalDate.now().plusDays(3), LocalDate.now().plusDays(4));
+
+        // when creating a reservation without a waiting room token, then receive http status code 400
+        Assert.assertEquals(HttpStatus.BAD_REQUEST,
+                restTemplate.postForEntity("/reservations", request, String.class).getStatusCode());
+
+        // when taking a place in the waiting room and polling it
+        ResponseEntity<WaitingRoomPlaceDto> place = restTemplate.postForEntity("/waiting-room/places", null,
+                WaitingRoomPlaceDto.class);
+        Assert.assertEquals(HttpStatus.CREATED, place.getStatusCode());
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(WaitingRoomController.WAITING_ROOM_TOKEN, place.getBody().getToken());
+        ResponseEntity<WaitingRoomPlaceDto> polled = restTemplate.exchange("/waiting-room/places/current",
+                HttpMethod.GET, new HttpEntity<>(headers), WaitingRoomPlaceDto.class);
+
+        // then the place is admitted, as the room is empty
+        Assert.assertEquals(HttpStatus.OK, polled.getStatusCode());
+        Assert.assertTrue(polled.getBody().isAdmitted());
+        Assert.assertEquals(0, polled.getBody().getPosition());
+
+        // when creating the reservation with the token, then it is created
+        Assert.assertEquals(HttpStatus.CREATED, restTemplate.postForEntity("/reservations",
+                new HttpEntity<>(request, headers), String.class).getStatusCode());
+
+        // when using the token again, then receive http status code 400
+        request.setArrivalDate(LocalDate.now().plusDays(5));
+        request.setDepartureDate(LocalDate.now().plusDays(6));
+        Assert.assertEquals(HttpStatus.BAD_REQUEST, restTemplate.postForEntity("/reservations",
+                new HttpEntity<>(request, headers), String.class).getStatusCode());
+    }
+
+    @Test
+    public void testHoldAndBatchThroughWaitingRoom() throws InterruptedException {
+        // given
+        CreateReservationRequest request = new CreateReservationRequest("glenn@hughes.com", "Glenn Hughes",
+                LocalDate.now().plusDays(8), LocalDate.now().plusDays(9));
+        BatchCreateReservationRequest batch = new BatchCreateReservationRequest(BatchModeEnum.ALL_OR_NOTHING,
+                Collections.singletonList(new CreateReservationRequest("tommy@bolin.com", "Tommy Bolin",
+                        LocalDate.now().plusDays(10), LocalDate.now().plusDays(11))));
+
+        // when holding or booking a batch without a waiting room token, then receive http status code 400
+        Assert.assertEquals(HttpStatus.BAD_REQUEST,
+                restTemplate.postForEntity("/reservations/holds", request, String.class).getStatusCode());
+        Assert.assertEquals(HttpStatus.BAD_REQUEST,
+                restTemplate.postForEntity("/reservations/batch", batch, String.class).getStatusCode());
+
+        // when holding or booking a batch with admitted tokens, then they are created
+        Assert.assertEquals(HttpStatus.CREATED, restTemplate.postForEntity("/reservations/holds",
+                new HttpEntity<>(request, admittedTokenHeaders()), String.class).getStatusCode());
+        Assert.assertEquals(HttpStatus.CREATED, restTemplate.postForEntity("/reservations/batch",
+                new HttpEntity<>(batch, admittedTokenHeaders()), String.class).getStatusCode());
+    }
+
+    @Test
+    public void testWaitingRoomRejectionNotRememberedUnderIdempotencyKey() throws InterruptedException {
+        // given
+        CreateReservationRequest request = new CreateReservationRequest("joe@lynn-turner.com", "Joe Lynn Turner",
+                LocalDate.now().plusDays(12), LocalDate.now().plusDays(13));
+        HttpHeaders headers = new HttpHeaders();
+        headers.set("Idempotency-Key", "waiting-room-rejection");
+
+        // when creating a reservation without a waiting room token, then receive http status code 400
+        Assert.assertEquals(HttpStatus.BAD_REQUEST, restTemplate.postForEntity("/reservations",
+                new HttpEntity<>(request, headers), String.class).getStatusCode());
+
+        // when sending it again with the same key and an admitted token, then it is created
+        headers.addAll(admittedTokenHeaders());
+        Assert.assertEquals(HttpStatus.CREATED, restTemplate.postForEntity("/reservations",
+                new HttpEntity<>(request, headers), String.class).getStatusCode());
+    }
+
+    private HttpHeaders admittedTokenHeaders() throws InterruptedException {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(WaitingRoomController.WAITING_ROOM_TOKEN, restTemplate.postForEntity("/waiting-room/places", null,
+                WaitingRoomPlaceDto.class).getBody().getToken());
+        // Places are admitted at the room rate, so the place may need a moment
+        for (int i = 0; i < 50 && !restTemplate.exchange("/waiting-room/places/current", HttpMethod.GET,
+                new HttpEntity<>(headers), WaitingRoomPlaceDto.class).getBody().isAdmitted(); i++) {
+            Thread.sleep(100);
+        }
+        return headers;
+    }
+}
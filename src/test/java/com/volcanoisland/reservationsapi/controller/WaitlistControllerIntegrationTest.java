@@ -0,0 +1,135 @@
+package com.volcanoisland.reservationsapi.controller;
+
+import com.sun.net.httpserver.HttpServer;
+import com.volcanoisland.reservationsapi.controller.request.CreateReservationRequest;
+import com.volcanoisland.reservationsapi.controller.request.CreateWaitlistEntryRequest;
+import com.volcanoisland.reservationsapi.dto.ReservationDto;
+import com.volcanoisland.reservationsapi.dto.WaitlistEntryDto;
+import com.volcanoisland.reservationsapi.model.WaitlistStatusEnum;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@AutoConfigureTestDatabase
+@TestPropertySource(properties = {
+        "reservations.outbox.dispatch-interval=PT0.1S",
+        "reservations.waitlist.callback-hosts=localhost",
+        "reservations.waitlist.callback-ports=" + WaitlistControllerIntegrationTest.CALLBACK_PORT})
+public class WaitlistControllerIntegrationTest {
+
+    static final int CALLBACK_PORT = 18089;
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    private HttpServer callbackServer;
+    private final BlockingQueue<String> callbacks = new LinkedBlockingQueue<>();
+
+    @Before
+    public void setup() throws IOException {
+        callbackServer = HttpServer.create(new InetSocketAddress("localhost", CALLBACK_PORT), 0);
+        callbackServer.createContext("/callback", exchange -> {
+            try (InputStream body = exchange.getRequestBody()) {
+                callbacks.add(new String(body.readAllBytes(), StandardCharsets.UTF_8));
+            }
+            exchange.sendResponseHeaders(204, -1);
+            exchange.close();
+        });
+        callbackServer.start();
+    }
+
+    @After
+    public void tearDown() {
+        callbackServer.stop(0);
+    }
+
+    @Test
+    public void testWaitlistNotifiedWhenNightsAreReleased() throws InterruptedException {
+        // given a reservation and guests waiting for its nights
+        LocalDate arrivalDate = LocalDate.now().plusDays(2);
+        Long reservationId = restTemplate.postForObject("/reservations", new CreateReservationRequest(
+                "ian@gillan.com", "Ian Gillan", arrivalDate, arrivalDate.plusDays(3)), ReservationDto.class).getId();
+        String callbackUrl = "http://localhost:" + CALLBACK_PORT + "/callback";
+        ResponseEntity<WaitlistEntryDto> waiting = restTemplate.postForEntity("/waitlist", new CreateWaitlistEntryRequest(
+                "joe@satriani.com", arrivalDate.plusDays(1), arrivalDate.plusDays(3), callbackUrl), WaitlistEntryDto.class);
+        Assert.assertEquals(HttpStatus.CREATED, waiting.getStatusCode());
+        Assert.assertEquals(WaitlistStatusEnum.WAITING, waiting.getBody().getStatus());
+        restTemplate.postForObject("/reservations", new CreateReservationRequest("ritchie@blackmore.com",
+                "Ritchie Blackmore", arrivalDate.plusDays(5), arrivalDate.plusDays(6)), ReservationDto.class);
+        Long otherPeriodId = restTemplate.postForObject("/waitlist", new CreateWaitlistEntryRequest(
+                "joe@lynn-turner.com", arrivalDate.plusDays(5), arrivalDate.plusDays(6), null),
+                WaitlistEntryDto.class).getId();
+
+        // when the reservation is cancelled
+        restTemplate.delete("/reservations/" + reservationId);
+
+        // then the entry waiting for its nights is notified, and posted to its callbackUrl
+        WaitlistEntryDto notified = restTemplate.getForObject("/waitlist/" + waiting.getBody().getId(),
+                WaitlistEntryDto.class);
+        Assert.assertEquals(WaitlistStatusEnum.NOTIFIED, notified.getStatus());
+        Assert.assertNotNull(notified.getNotifiedAt());
+        String callback = callbacks.poll(10, TimeUnit.SECONDS);
+        Assert.assertNotNull(callback);
+        Assert.assertTrue(callback, callback.contains("\"id\":" + waiting.getBody().getId()));
+
+        // and the entry waiting for other nights keeps waiting
+        Assert.assertEquals(WaitlistStatusEnum.WAITING,
+                restTemplate.getForObject("/waitlist/" + otherPeriodId, WaitlistEntryDto.class).getStatus());
+    }
+
+    @Test
+    public void testCreateWaitlistEntryWithCallbackOnOtherHost() {
+        // when waiting with a callback on a host not allowed
+        ResponseEntity<String> response = restTemplate.postForEntity("/waitlist", new CreateWaitlistEntryRequest(
+                "steve@vai.com", LocalDate.now().plusDays(10), LocalDate.now().plusDays(11),
+                "http://169.254.169.254/latest"), String.class);
+        // then receive http status code 400
+        Assert.assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+    }
+
+    @Test
+    public void testCreateWaitlistEntryOnFreePeriod() throws InterruptedException {
+        // when waiting for a period already free
+        ResponseEntity<WaitlistEntryDto> response = restTemplate.postForEntity("/waitlist", new CreateWaitlistEntryRequest(
+                "steve@morse.com", LocalDate.now().plusDays(14), LocalDate.now().plusDays(15),
+                "http://localhost:" + CALLBACK_PORT + "/callback"), WaitlistEntryDto.class);
+
+        // then the entry is notified right away, and posted to its callbackUrl
+        Assert.assertEquals(HttpStatus.CREATED, response.getStatusCode());
+        Assert.assertEquals(WaitlistStatusEnum.NOTIFIED, response.getBody().getStatus());
+        String callback = callbacks.poll(10, TimeUnit.SECONDS);
+        Assert.assertNotNull(callback);
+        Assert.assertTrue(callback, callback.contains("\"id\":" + response.getBody().getId()));
+    }
+
+    @Test
+    public void testCreateWaitlistEntryWithCallbackOnOtherPort() {
+        // when waiting with a callback on an allowed host but a port not allowed
+        ResponseEntity<String> response = restTemplate.postForEntity("/waitlist", new CreateWaitlistEntryRequest(
+                "steve@vai.com", LocalDate.now().plusDays(10), LocalDate.now().plusDays(11),
+                "http://localhost:22/callback"), String.class);
+        // then receive http status code 400
+        Assert.assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+    }
+}
@@ -0,0 +1,95 @@
+package com.volcanoisland.reservationsapi.repository;
+
+import com.volcanoisland.reservationsapi.model.CalendarDay;
+import com.volcanoisland.reservationsapi.model.Reservation;
+import com.volcanoisland.reservationsapi.service.AvailabilityCalculator;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import static java.time.temporal.ChronoUnit.DAYS;
+
+/**
+ * Compares the CalendarDay join against the computation over the reservation intervals, checking both return
+ * the same days and logging how long each one takes for 30 and 365 day windows.
+ */
+@RunWith(SpringRunner.class)
+@DataJpaTest
+public class AvailabilityQueryBenchmarkTest {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(AvailabilityQueryBenchmarkTest.class);
+    private static final LocalDate FIRST_DAY = LocalDate.parse("2020-01-01");
+    private static final int ITERATIONS = 20;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private ReservationRepository reservationRepository;
+
+    @Before
+    public void setup() {
+        FIRST_DAY.datesUntil(FIRST_DAY.plusYears(2))
+                .forEach(day -> entityManager.persist(new CalendarDay(day)));
+        // 1 to 3 night stays separated by 0 to 2 free days
+        LocalDate arrival = FIRST_DAY;
+        for (int i = 0; arrival.isBefore(FIRST_DAY.plusYears(1).plusMonths(6)); i++) {
+            LocalDate departure = arrival.plusDays(1 + i % 3);
+            entityManager.persist(new Reservation("guest" + i + "@volcano.com", "Guest " + i, arrival, departure));
+            arrival = departure.plusDays(i % 5 % 3);
+        }
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    public void testFindAvailableDays_30DayWindow() {
+        this.compare(FIRST_DAY.plusDays(100), FIRST_DAY.plusDays(129));
+    }
+
+    @Test
+    public void testFindAvailableDays_365DayWindow() {
+        this.compare(FIRST_DAY.plusDays(100), FIRST_DAY.plusDays(464));
+    }
+
+    private void compare(LocalDate periodStart, LocalDate periodEnd) {
+        Supplier<List<LocalDate>> calendarTable = () -> reservationRepository.findAvailableDays(periodStart, periodEnd)
+                .stream().map(CalendarDay::getDay).collect(Collectors.toList());
+        Supplier<List<LocalDate>> intervals = () -> AvailabilityCalculator.findAvailableDays(
+                reservationRepository.findInPeriod(periodStart, periodEnd.plusDays(1)), periodStart, periodEnd);
+
+        // when
+        List<LocalDate> expected = calendarTable.get();
+        List<LocalDate> actual = intervals.get();
+        // then
+        Assert.assertFalse(expected.isEmpty());
+        Assert.assertEquals(expected, actual);
+
+        long calendarTableNanos = this.time(calendarTable);
+        long intervalsNanos = this.time(intervals);
+        LOGGER.info("Availability for {} days: calendar table {} us, reservation intervals {} us",
+                DAYS.between(periodStart, periodEnd) + 1,
+                calendarTableNanos / ITERATIONS / 1000, intervalsNanos / ITERATIONS / 1000);
+    }
+
+    private long time(Supplier<List<LocalDate>> lookup) {
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            entityManager.clear();
+            lookup.get();
+        }
+        return System.nanoTime() - start;
+    }
+}
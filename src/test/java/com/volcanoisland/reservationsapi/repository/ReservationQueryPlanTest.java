@@ -0,0 +1,127 @@
+package com.volcanoisland.reservationsapi.repository;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Runs EXPLAIN on H2 for the SQL generated by the repository queries, checking that the reservations are looked up
+ * through an index instead of scanning the whole table.
+ */
+@RunWith(SpringRunner.class)
+@DataJpaTest
+@TestPropertySource(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+        + "com.volcanoisland.reservationsapi.repository.ReservationQueryPlanTest$LastStatementInspector")
+public class ReservationQueryPlanTest {
+
+    private static final Date PERIOD_START = Date.valueOf(LocalDate.parse("2020-01-10"));
+    private static final Date PERIOD_END = Date.valueOf(LocalDate.parse("2020-01-13"));
+
+    @Autowired
+    private ReservationRepository reservationRepository;
+
+    @Autowired
+    private WaitlistEntryRepository waitlistEntryRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Before
+    public void setup() {
+        LastStatementInspector.lastStatement = null;
+    }
+
+    @Test
+    public void testFindInPeriod_usesIndex() {
+        reservationRepository.findInPeriod(PERIOD_START.toLocalDate(), PERIOD_END.toLocalDate());
+        assertReservationIndexUsed("idx_reservation_status_period", 0, 2, PERIOD_END, PERIOD_START);
+    }
+
+    @Test
+    public void testFindInPeriodExcluding_usesIndex() {
+        reservationRepository.findInPeriodExcluding(PERIOD_START.toLocalDate(), PERIOD_END.toLocalDate(), 1L);
+        assertReservationIndexUsed("idx_reservation_status_period", 0, 2, PERIOD_END, PERIOD_START, 1L);
+    }
+
+    @Test
+    public void testExistsInPeriod_usesIndex() {
+        reservationRepository.existsInPeriod(PERIOD_START.toLocalDate(), PERIOD_END.toLocalDate());
+        assertReservationIndexUsed("idx_reservation_status_period", 0, 2, PERIOD_END, PERIOD_START, 1);
+    }
+
+    @Test
+    public void testExistsInPeriodExcluding_usesIndex() {
+        reservationRepository.existsInPeriodExcluding(PERIOD_START.toLocalDate(), PERIOD_END.toLocalDate(), 1L);
+        assertReservationIndexUsed("idx_reservation_status_period", 0, 2, PERIOD_END, PERIOD_START, 1L, 1);
+    }
+
+    @Test
+    public void testFindAvailableDays_usesIndex() {
+        reservationRepository.findAvailableDays(PERIOD_START.toLocalDate(), PERIOD_END.toLocalDate());
+        assertReservationIndexUsed("idx_reservation_status_period", 0, 2, PERIOD_END, PERIOD_START);
+    }
+
+    @Test
+    public void testFindActiveDepartingAfter_usesIndex() {
+        reservationRepository.findActiveDepartingAfter(PERIOD_START.toLocalDate());
+        // Only the status is matched on the index, either of the status prefixed ones serves
+        assertReservationIndexUsed("idx_reservation_status_", 0, 2, PERIOD_START);
+    }
+
+    @Test
+    public void testFindExpiredHolds_usesIndex() {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.parse("2020-01-10T12:00:00"));
+        reservationRepository.findExpiredHolds(now.toLocalDateTime(), PageRequest.of(0, 500));
+        assertReservationIndexUsed("idx_reservation_status_expiry", 2, now, 500);
+    }
+
+    @Test
+    public void testFindAllByGuestEmail_usesIndex() {
+        reservationRepository.findAllByGuestEmail("john@lennon.com");
+        assertReservationIndexUsed("idx_reservation_guest_email", "john@lennon.com");
+    }
+
+    @Test
+    public void testFindWaitingOverlapping_usesIndex() {
+        Date earliestArrival = Date.valueOf(LocalDate.parse("2020-01-08"));
+        waitlistEntryRepository.findWaitingOverlapping(0L, earliestArrival.toLocalDate(), PERIOD_START.toLocalDate(),
+                PERIOD_END.toLocalDate(), PageRequest.of(0, 100));
+        assertReservationIndexUsed("idx_waitlist_status_period", 0L, earliestArrival, PERIOD_END, PERIOD_START, 100);
+    }
+
+    private void assertReservationIndexUsed(String indexName, Object... parameters) {
+        String sql = LastStatementInspector.lastStatement;
+        Assert.assertNotNull(sql);
+        String plan = jdbcTemplate.queryForObject("EXPLAIN " + sql, parameters, String.class).toUpperCase();
+
+        Assert.assertFalse(plan, plan.contains(".TABLESCAN"));
+        Assert.assertTrue(plan, plan.contains("PUBLIC." + indexName.toUpperCase()));
+    }
+
+    /**
+     * Keeps the last SQL statement prepared by Hibernate.
+     */
+    public static class LastStatementInspector implements StatementInspector {
+
+        static volatile String lastStatement;
+
+        @Override
+        public String inspect(String sql) {
+            lastStatement = sql;
+            return sql;
+        }
+    }
+}
@@ -2,12 +2,14 @@ package com.volcanoisland.reservationsapi.repository;
 
 import com.volcanoisland.reservationsapi.model.CalendarDay;
 import com.volcanoisland.reservationsapi.model.Reservation;
+import com.volcanoisland.reservationsapi.model.ReservationNight;
 import org.junit.Assert;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.test.context.junit4.SpringRunner;
 
 import java.time.LocalDate;
@@ -23,6 +25,10 @@ public class ReservationRepositoryTest {
     @Autowired
     private ReservationRepository reservationRepository;
 
+    @Autowired
+    private ReservationNightRepository reservationNightRepository;
+
+
     @Test
     public void testFindInPeriod_noOverlapInLimits() {
         // given
@@ -62,6 +68,8 @@ public class ReservationRepositoryTest {
     @Test
     public void testFindAvailableDays_reservationLimits() {
         // given
+        LocalDate.parse("2020-03-01").datesUntil(LocalDate.parse("2020-03-31"))
+                .forEach(day -> entityManager.persist(new CalendarDay(day)));
         Reservation george = new Reservation("george@harrison.com", "George Harrison",
                 LocalDate.parse("2020-03-10"), LocalDate.parse("2020-03-13"));
         entityManager.persistAndFlush(george);
@@ -88,4 +96,19 @@ public class ReservationRepositoryTest {
 
     }
 
-}
\ No newline at end of file
+    @Test
+    public void testSaveTakenNight_violatesPrimaryKey() {
+        // given a taken night
+        reservationNightRepository.saveAndFlush(new ReservationNight(LocalDate.parse("2020-04-10"), 1L));
+        entityManager.clear();
+
+        // when taking it again
+        try {
+            reservationNightRepository.saveAndFlush(new ReservationNight(LocalDate.parse("2020-04-10"), 2L));
+            Assert.fail();
+        } catch (DataIntegrityViolationException e) {
+            // then the insert is rejected rather than overwriting the night
+        }
+    }
+
+}
@@ -0,0 +1,49 @@
+package com.volcanoisland.reservationsapi.seeder;
+
+import com.volcanoisland.reservationsapi.model.CalendarDay;
+import com.volcanoisland.reservationsapi.repository.CalendarDayRepository;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.time.LocalDate;
+
+@RunWith(SpringRunner.class)
+@DataJpaTest
+@Import(CalendarDaySeeder.class)
+@TestPropertySource(properties = {
+        "reservations.availability.calendar-table.enabled=true",
+        "reservations.availability.calendar-table.horizon-years=1"})
+public class CalendarDaySeederTest {
+
+    @Autowired
+    private CalendarDaySeeder calendarDaySeeder;
+
+    @Autowired
+    private CalendarDayRepository calendarDayRepository;
+
+    @Test
+    public void testRefreshCalendarTable() {
+        LocalDate today = LocalDate.parse("2020-01-01");
+
+        // when seeding an empty table
+        calendarDaySeeder.refreshCalendarTable(today);
+        // then a year of days starting today is added
+        Assert.assertEquals(366, calendarDayRepository.count());
+        Assert.assertEquals(today.toEpochDay(), calendarDayRepository.findAll().stream()
+                .mapToLong(CalendarDay::getEpochDay).min().getAsLong());
+        Assert.assertEquals(LocalDate.parse("2020-12-31").toEpochDay(), calendarDayRepository.findLastEpochDay().longValue());
+
+        // when refreshing on the next day
+        calendarDaySeeder.refreshCalendarTable(today.plusDays(1));
+        // then the past day is removed and one more day is added
+        Assert.assertEquals(366, calendarDayRepository.count());
+        Assert.assertFalse(calendarDayRepository.existsById(today.toEpochDay()));
+        Assert.assertEquals(LocalDate.parse("2021-01-01").toEpochDay(), calendarDayRepository.findLastEpochDay().longValue());
+    }
+}
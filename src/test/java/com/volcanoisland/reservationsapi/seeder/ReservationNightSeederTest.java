@@ -0,0 +1,69 @@
+package com.volcanoisland.reservationsapi.seeder;
+
+import com.volcanoisland.reservationsapi.model.Reservation;
+import com.volcanoisland.reservationsapi.model.ReservationNight;
+import com.volcanoisland.reservationsapi.repository.ReservationNightRepository;
+import com.volcanoisland.reservationsapi.repository.ReservationRepository;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.StreamSupport;
+
+@RunWith(SpringRunner.class)
+@DataJpaTest
+@Import(ReservationNightSeeder.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class ReservationNightSeederTest {
+
+    @Autowired
+    private ReservationNightSeeder reservationNightSeeder;
+
+    @Autowired
+    private ReservationRepository reservationRepository;
+
+    @MockBean
+    private ReservationNightRepository reservationNightRepository;
+
+    @Test
+    public void testSeedNightsSeededMeanwhileByAnotherInstance() {
+        // given two reservations without nights, the first one seeded by another instance after they were looked up
+        LocalDate arrivalDate = LocalDate.now().plusDays(2);
+        Reservation seeded = reservationRepository.save(new Reservation("ian@gillan.com", "Ian Gillan",
+                arrivalDate, arrivalDate.plusDays(2)));
+        Reservation missing = reservationRepository.save(new Reservation("roger@glover.com", "Roger Glover",
+                arrivalDate.plusDays(3), arrivalDate.plusDays(4)));
+        Mockito.when(reservationNightRepository.findAllByNightBetween(Mockito.any(), Mockito.any()))
+                .thenReturn(Collections.emptyList());
+        Mockito.when(reservationNightRepository.saveAll(Mockito.<Iterable<ReservationNight>>argThat(
+                nights -> nights != null && seeded.getId().equals(reservationIdOf(nights)))))
+                .thenThrow(new DataIntegrityViolationException("Duplicate entry for key 'PRIMARY'"));
+
+        try {
+            // when seeding, then the nights seeded meanwhile are skipped and the missing ones are still added
+            reservationNightSeeder.seedReservationNightTable(null);
+            Mockito.verify(reservationNightRepository).saveAll(Mockito.<Iterable<ReservationNight>>argThat(
+                    nights -> nights != null && missing.getId().equals(reservationIdOf(nights))));
+        } finally {
+            reservationRepository.deleteAll();
+        }
+    }
+
+    private static Long reservationIdOf(Iterable<ReservationNight> nights) {
+        List<Long> reservationIds = StreamSupport.stream(nights.spliterator(), false)
+                .map(ReservationNight::getReservationId).distinct().collect(Collectors.toList());
+        return reservationIds.size() == 1 ? reservationIds.get(0) : null;
+    }
+}
@@ -0,0 +1,36 @@
+package com.volcanoisland.reservationsapi.service;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collections;
+
+public class AvailabilityETagTest {
+
+    private static final LocalDate START = LocalDate.parse("2020-01-10");
+    private static final LocalDate END = LocalDate.parse("2020-01-12");
+
+    @Test
+    public void testSameAvailabilitySameTag() {
+        // when the same availability is tagged twice, as by two application instances
+        String eTag = AvailabilityETag.of(START, END, Arrays.asList(START, END));
+        String otherETag = AvailabilityETag.of(START, END, Arrays.asList(START, END));
+
+        // then the tags match
+        Assert.assertEquals(eTag, otherETag);
+        Assert.assertTrue(eTag.startsWith("\"") && eTag.endsWith("\""));
+    }
+
+    @Test
+    public void testDifferentAvailabilityDifferentTag() {
+        String eTag = AvailabilityETag.of(START, END, Arrays.asList(START, END));
+
+        // when a day is taken, then the tag changes
+        Assert.assertNotEquals(eTag, AvailabilityETag.of(START, END, Collections.singletonList(START)));
+
+        // when the range changes with the same available days, then the tag changes
+        Assert.assertNotEquals(eTag, AvailabilityETag.of(START, END.plusDays(1), Arrays.asList(START, END)));
+    }
+}
@@ -0,0 +1,68 @@
+package com.volcanoisland.reservationsapi.service;
+
+import com.volcanoisland.reservationsapi.exception.ServiceUnavailableException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+public class AvailabilityStreamServiceTest {
+
+    private AvailabilityStreamService availabilityStreamService;
+
+    @Before
+    public void setup() {
+        // a stream service allowing 2 connections
+        availabilityStreamService = new AvailabilityStreamService();
+        ReflectionTestUtils.setField(availabilityStreamService, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(availabilityStreamService, "maxConnections", 2);
+        ReflectionTestUtils.setField(availabilityStreamService, "replaySize", 10);
+        ReflectionTestUtils.setField(availabilityStreamService, "queueSize", 10);
+        ReflectionTestUtils.setField(availabilityStreamService, "sendTimeout", Duration.ofSeconds(5));
+        ReflectionTestUtils.setField(availabilityStreamService, "timeout", Duration.ofMinutes(30));
+        availabilityStreamService.start();
+    }
+
+    @After
+    public void tearDown() {
+        availabilityStreamService.stop();
+    }
+
+    @Test
+    public void testConcurrentSubscriptionsAreLimited() throws Exception {
+        // when 10 clients open a stream at once
+        ExecutorService executor = Executors.newFixedThreadPool(10);
+        List<Callable<Boolean>> subscriptions = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            subscriptions.add(() -> availabilityStreamService.subscribe(null) != null);
+        }
+        int opened = 0;
+        int rejected = 0;
+        for (Future<Boolean> subscription : executor.invokeAll(subscriptions)) {
+            try {
+                subscription.get();
+                opened++;
+            } catch (ExecutionException e) {
+                Assert.assertTrue(e.getCause() instanceof ServiceUnavailableException);
+                rejected++;
+            }
+        }
+        executor.shutdown();
+
+        // then only 2 of them are opened and the others get a 503
+        Assert.assertEquals(2, opened);
+        Assert.assertEquals(8, rejected);
+    }
+
+}
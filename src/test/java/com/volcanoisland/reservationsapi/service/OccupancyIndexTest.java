@@ -0,0 +1,65 @@
+package com.volcanoisland.reservationsapi.service;
+
+import com.volcanoisland.reservationsapi.model.Reservation;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+
+public class OccupancyIndexTest {
+
+    private OccupancyIndex occupancyIndex;
+
+    @Before
+    public void setup() {
+        occupancyIndex = new OccupancyIndex();
+        occupancyIndex.load(LocalDate.parse("2020-01-01"), Arrays.asList(
+                new Reservation("john@lennon.com", "John Lennon",
+                        LocalDate.parse("2020-01-10"), LocalDate.parse("2020-01-13"))));
+    }
+
+    @Test
+    public void testCovers() {
+        Assert.assertTrue(occupancyIndex.covers(LocalDate.parse("2020-01-01")));
+        Assert.assertFalse(occupancyIndex.covers(LocalDate.parse("2019-12-31")));
+    }
+
+    @Test
+    public void testIsFree_reservationLimits() {
+        // Departure day of an existing reservation is free
+        Assert.assertTrue(occupancyIndex.isFree(LocalDate.parse("2020-01-13"), LocalDate.parse("2020-01-16")));
+        // Nights before the arrival day of an existing reservation are free
+        Assert.assertTrue(occupancyIndex.isFree(LocalDate.parse("2020-01-08"), LocalDate.parse("2020-01-10")));
+        // Overlapping nights are not free
+        Assert.assertFalse(occupancyIndex.isFree(LocalDate.parse("2020-01-12"), LocalDate.parse("2020-01-14")));
+    }
+
+    @Test
+    public void testIsFreeExcluding() {
+        Reservation george = new Reservation("george@harrison.com", "George Harrison",
+                LocalDate.parse("2020-01-20"), LocalDate.parse("2020-01-23"));
+        occupancyIndex.occupy(george.getArrivalDate(), george.getDepartureDate());
+
+        Assert.assertFalse(occupancyIndex.isFree(LocalDate.parse("2020-01-21"), LocalDate.parse("2020-01-24")));
+        Assert.assertTrue(occupancyIndex.isFreeExcluding(LocalDate.parse("2020-01-21"), LocalDate.parse("2020-01-24"), george));
+    }
+
+    @Test
+    public void testOccupyAndRelease() {
+        // when occupying nights far beyond the initial capacity
+        occupancyIndex.occupy(LocalDate.parse("2022-06-01"), LocalDate.parse("2022-06-03"));
+        List<LocalDate> freeNights = occupancyIndex.findFreeNights(LocalDate.parse("2022-05-31"), LocalDate.parse("2022-06-03"));
+        // then
+        Assert.assertEquals(Arrays.asList(LocalDate.parse("2022-05-31"), LocalDate.parse("2022-06-03")), freeNights);
+
+        // when releasing them
+        occupancyIndex.release(LocalDate.parse("2022-06-01"), LocalDate.parse("2022-06-03"));
+        freeNights = occupancyIndex.findFreeNights(LocalDate.parse("2022-05-31"), LocalDate.parse("2022-06-03"));
+        // then
+        Assert.assertEquals(4, freeNights.size());
+    }
+
+}
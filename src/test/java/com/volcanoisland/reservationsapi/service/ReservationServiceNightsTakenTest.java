@@ -0,0 +1,43 @@
+package com.volcanoisland.reservationsapi.service;
+
+import com.volcanoisland.reservationsapi.controller.request.CreateReservationRequest;
+import com.volcanoisland.reservationsapi.exception.NightsTakenException;
+import com.volcanoisland.reservationsapi.repository.ReservationNightRepository;
+import org.hibernate.exception.ConstraintViolationException;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.sql.SQLIntegrityConstraintViolationException;
+import java.time.LocalDate;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@AutoConfigureTestDatabase
+public class ReservationServiceNightsTakenTest {
+
+    @Autowired
+    private ReservationService reservationService;
+
+    @MockBean
+    private ReservationNightRepository reservationNightRepository;
+
+    @Test(expected = NightsTakenException.class)
+    public void testNightPrimaryKeyViolationNamedAsOnMySql() {
+        // given the night inserts rejected as MySQL does, naming the violated constraint PRIMARY only
+        Mockito.when(reservationNightRepository.saveAll(Mockito.anyIterable())).thenThrow(
+                new DataIntegrityViolationException("could not execute statement", new ConstraintViolationException(
+                        "could not execute statement", new SQLIntegrityConstraintViolationException(
+                        "Duplicate entry for key 'PRIMARY'", "23000", 1062), "PRIMARY")));
+
+        // when creating a reservation, then its nights are reported as taken
+        reservationService.create(new CreateReservationRequest("jon@lord.com", "Jon Lord",
+                LocalDate.now().plusDays(2), LocalDate.now().plusDays(4)));
+    }
+}
@@ -0,0 +1,43 @@
+package com.volcanoisland.reservationsapi.service;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+public class TokenBucketTest {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    @Test
+    public void testBurstThenRate() {
+        // given a bucket allowing bursts of 2 and refilled with a token every 2 seconds
+        TokenBucket bucket = new TokenBucket(2, 0.5, 0);
+
+        // then the burst is admitted and the next request waits for the refill
+        Assert.assertEquals(0, bucket.tryConsume(0));
+        Assert.assertEquals(0, bucket.tryConsume(0));
+        Assert.assertEquals(2 * SECOND, bucket.tryConsume(0));
+        Assert.assertEquals(SECOND, bucket.tryConsume(SECOND));
+
+        // when the refill time has passed, a single token is available
+        Assert.assertEquals(0, bucket.tryConsume(2 * SECOND));
+        Assert.assertTrue(bucket.tryConsume(2 * SECOND) > 0);
+    }
+
+    @Test
+    public void testRefillIsCappedAtBurst() {
+        // given an idle bucket
+        TokenBucket bucket = new TokenBucket(2, 1, 0);
+        bucket.tryConsume(0);
+        Assert.assertFalse(bucket.isFull(0));
+
+        // when idle for much longer than needed to refill it
+        Assert.assertTrue(bucket.isFull(100 * SECOND));
+
+        // then only the burst is admitted
+        Assert.assertEquals(0, bucket.tryConsume(100 * SECOND));
+        Assert.assertEquals(0, bucket.tryConsume(100 * SECOND));
+        Assert.assertTrue(bucket.tryConsume(100 * SECOND) > 0);
+    }
+}
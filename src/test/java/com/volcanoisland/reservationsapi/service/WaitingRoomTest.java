@@ -0,0 +1,86 @@
+package com.volcanoisland.reservationsapi.service;
+
+import com.volcanoisland.reservationsapi.exception.BadRequestException;
+import com.volcanoisland.reservationsapi.exception.TooManyRequestsException;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.Duration;
+
+public class WaitingRoomTest {
+
+    private WaitingRoom waitingRoom;
+    private long now;
+
+    @Before
+    public void setup() {
+        // a waiting room admitting a guest per second
+        waitingRoom = new WaitingRoom(true, 1, Duration.ofMinutes(30), "secret");
+        now = System.currentTimeMillis();
+    }
+
+    @Test
+    public void testPlacesAreAdmittedInOrderAtRate() {
+        // when 3 guests arrive at once
+        WaitingRoom.Place first = waitingRoom.enter(now);
+        WaitingRoom.Place second = waitingRoom.enter(now);
+        WaitingRoom.Place third = waitingRoom.enter(now);
+
+        // then they wait in arrival order
+        Assert.assertEquals(1, first.getPosition());
+        Assert.assertEquals(3, waitingRoom.find(third.getToken(), now).getPosition());
+        Assert.assertEquals(3, waitingRoom.find(third.getToken(), now).getEstimatedWaitSeconds());
+        try {
+            waitingRoom.claim(first.getToken(), now);
+            Assert.fail();
+        } catch (TooManyRequestsException e) {
+            Assert.assertEquals(1, e.getRetryAfterSeconds());
+        }
+
+        // when a second has passed, only the first one is admitted
+        Assert.assertTrue(waitingRoom.find(first.getToken(), now + 1000).isAdmitted());
+        Assert.assertEquals(1, waitingRoom.find(second.getToken(), now + 1000).getPosition());
+        Assert.assertEquals(first.getPlace(), waitingRoom.claim(first.getToken(), now + 1000).getPlace());
+    }
+
+    @Test
+    public void testIdleRoomDoesNotBuildUpBurst() {
+        // given a room idle for a minute
+        waitingRoom.find(waitingRoom.enter(now).getToken(), now + 60000);
+
+        // when 2 guests arrive at once, then only one is admitted right away
+        Assert.assertTrue(waitingRoom.enter(now + 61000).isAdmitted());
+        Assert.assertFalse(waitingRoom.enter(now + 61000).isAdmitted());
+    }
+
+    @Test
+    public void testTokenIsUsedOnce() {
+        // given an admitted place
+        WaitingRoom.Place place = waitingRoom.enter(now);
+        WaitingRoom.Place claimed = waitingRoom.claim(place.getToken(), now + 1000);
+
+        // then its token can not be used again, unless released
+        try {
+            waitingRoom.claim(place.getToken(), now + 1000);
+            Assert.fail();
+        } catch (BadRequestException e) {
+            // expected
+        }
+        waitingRoom.release(claimed);
+        waitingRoom.claim(place.getToken(), now + 1000);
+    }
+
+    @Test(expected = BadRequestException.class)
+    public void testTamperedTokenIsRejected() {
+        String[] parts = waitingRoom.enter(now).getToken().split("\\.");
+        // when moving the place ahead of the one signed
+        waitingRoom.find(parts[0] + "." + (Long.parseLong(parts[1]) - 1) + "." + parts[2] + "." + parts[3], now);
+    }
+
+    @Test(expected = BadRequestException.class)
+    public void testExpiredTokenIsRejected() {
+        String token = waitingRoom.enter(now).getToken();
+        waitingRoom.find(token, now + Duration.ofMinutes(30).toMillis());
+    }
+}